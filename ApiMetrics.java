@@ -0,0 +1,352 @@
+// ICICI Banking API - Call Metrics
+// Instrumentation SPI for ICICIBankingAPI: per-exchange phase timings, status
+// codes and byte counts, a default per-endpoint implementation, and the JDK
+// Flight Recorder events emitted for the same phases.
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// Receives one callback pair per HTTP exchange (each retry and hedge is its
+// own exchange) and one per JSON body bound to a DTO. Endpoints are named as
+// everywhere else, e.g. "GET /accounts/*/balance". Callbacks run on the
+// client's completion threads and take only primitives, so an implementation
+// that records into preallocated counters allocates nothing per call.
+//
+// Exchange phases, in nanoseconds:
+//   queue     waiting for the endpoint's client-side limiter
+//   response  send to response headers: connection acquisition, TLS
+//             handshake, request upload and server time (java.net.http does
+//             not expose these separately; JFR's jdk.TLSHandshake and socket
+//             events do when they are enabled)
+//   body      response headers to the complete body
+public interface ApiMetrics {
+    void exchangeStarted(String endpoint);
+
+    // statusCode is 0 and error non-null when no response arrived; bytes are
+    // -1 when unknown (e.g. a streamed body without Content-Length)
+    void exchangeFinished(String endpoint, int statusCode, long queueNanos, long responseNanos,
+        long bodyNanos, long bytesSent, long bytesReceived, Throwable error);
+
+    // bytes is the body's size as received, before any inflating
+    void bodyDecoded(String endpoint, long decodeNanos, long bytes);
+}
+
+// Default ApiMetrics: per endpoint, latency histograms for the whole exchange
+// and each phase, an in-flight gauge, counts per status code and bytes in and
+// out. Everything is preallocated per endpoint on its first call; recording
+// after that is atomic increments only.
+class EndpointMetrics implements ApiMetrics {
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public void exchangeStarted(String endpoint) {
+        endpoint(endpoint).inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void exchangeFinished(String endpoint, int statusCode, long queueNanos, long responseNanos,
+            long bodyNanos, long bytesSent, long bytesReceived, Throwable error) {
+        Endpoint metrics = endpoint(endpoint);
+        metrics.inFlight.decrementAndGet();
+        metrics.total.record(queueNanos + responseNanos + bodyNanos);
+        metrics.queue.record(queueNanos);
+        metrics.response.record(responseNanos);
+        if (error == null) {
+            metrics.body.record(bodyNanos);
+        }
+        metrics.statusCounts.incrementAndGet(statusCode > 0 && statusCode < 600 ? statusCode : 0);
+        if (bytesSent > 0) {
+            metrics.bytesSent.add(bytesSent);
+        }
+        if (bytesReceived > 0) {
+            metrics.bytesReceived.add(bytesReceived);
+        }
+    }
+
+    @Override
+    public void bodyDecoded(String endpoint, long decodeNanos, long bytes) {
+        Endpoint metrics = endpoint(endpoint);
+        metrics.decode.record(decodeNanos);
+        metrics.bytesDecoded.add(bytes);
+    }
+
+    List<EndpointCallStats> snapshot() {
+        List<EndpointCallStats> stats = new ArrayList<>();
+        for (Map.Entry<String, Endpoint> entry : new TreeMap<>(endpoints).entrySet()) {
+            stats.add(entry.getValue().stats(entry.getKey()));
+        }
+        return stats;
+    }
+
+    // Full phase histograms for one endpoint, or null if it has no calls
+    Endpoint endpointMetrics(String endpoint) {
+        return endpoints.get(endpoint);
+    }
+
+    void reset() {
+        endpoints.clear();
+    }
+
+    private Endpoint endpoint(String endpoint) {
+        Endpoint metrics = endpoints.get(endpoint);
+        return metrics != null ? metrics : endpoints.computeIfAbsent(endpoint, key -> new Endpoint());
+    }
+
+    static final class Endpoint {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final LatencyHistogram total = new LatencyHistogram();
+        final LatencyHistogram queue = new LatencyHistogram();
+        final LatencyHistogram response = new LatencyHistogram();
+        final LatencyHistogram body = new LatencyHistogram();
+        final LatencyHistogram decode = new LatencyHistogram();
+        // index 0 counts exchanges that failed without a response
+        final AtomicLongArray statusCounts = new AtomicLongArray(600);
+        final LongAdder bytesSent = new LongAdder();
+        final LongAdder bytesReceived = new LongAdder();
+        final LongAdder bytesDecoded = new LongAdder();
+
+        EndpointCallStats stats(String name) {
+            Map<Integer, Long> statuses = new TreeMap<>();
+            for (int status = 0; status < statusCounts.length(); status++) {
+                long count = statusCounts.get(status);
+                if (count > 0) {
+                    statuses.put(status, count);
+                }
+            }
+            return new EndpointCallStats(name, inFlight.get(), total.count(), statuses,
+                total.percentileNanos(50), total.percentileNanos(99), total.maxNanos(),
+                response.percentileNanos(99), decode.percentileNanos(99),
+                bytesSent.sum(), bytesReceived.sum(), bytesDecoded.sum());
+        }
+    }
+}
+
+class EndpointCallStats {
+    private final String endpoint;
+    private final int inFlight;
+    private final long exchanges;
+    private final Map<Integer, Long> statusCounts;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long maxNanos;
+    private final long responseP99Nanos;
+    private final long decodeP99Nanos;
+    private final long bytesSent;
+    private final long bytesReceived;
+    private final long bytesDecoded;
+
+    public EndpointCallStats(String endpoint, int inFlight, long exchanges, Map<Integer, Long> statusCounts,
+            long p50Nanos, long p99Nanos, long maxNanos, long responseP99Nanos, long decodeP99Nanos,
+            long bytesSent, long bytesReceived, long bytesDecoded) {
+        this.endpoint = endpoint;
+        this.inFlight = inFlight;
+        this.exchanges = exchanges;
+        this.statusCounts = Collections.unmodifiableMap(statusCounts);
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.maxNanos = maxNanos;
+        this.responseP99Nanos = responseP99Nanos;
+        this.decodeP99Nanos = decodeP99Nanos;
+        this.bytesSent = bytesSent;
+        this.bytesReceived = bytesReceived;
+        this.bytesDecoded = bytesDecoded;
+    }
+
+    public String getEndpoint() { return endpoint; }
+    public int getInFlight() { return inFlight; }
+    public long getExchanges() { return exchanges; }
+    // Exchanges per HTTP status; 0 for those that got no response
+    public Map<Integer, Long> getStatusCounts() { return statusCounts; }
+    public long getP50Nanos() { return p50Nanos; }
+    public long getP99Nanos() { return p99Nanos; }
+    public long getMaxNanos() { return maxNanos; }
+    public long getResponseP99Nanos() { return responseP99Nanos; }
+    public long getDecodeP99Nanos() { return decodeP99Nanos; }
+    public long getBytesSent() { return bytesSent; }
+    public long getBytesReceived() { return bytesReceived; }
+    // Response bytes bound to DTOs, as received; streamed pages are not included
+    public long getBytesDecoded() { return bytesDecoded; }
+
+    @Override
+    public String toString() {
+        return String.format("EndpointCallStats{endpoint=%s, inFlight=%d, exchanges=%d, statuses=%s, "
+                + "p50=%.3fms, p99=%.3fms, max=%.3fms, responseP99=%.3fms, decodeP99=%.3fms, sent=%d, received=%d, decoded=%d}",
+            endpoint, inFlight, exchanges, statusCounts, LatencyHistogram.millis(p50Nanos),
+            LatencyHistogram.millis(p99Nanos), LatencyHistogram.millis(maxNanos),
+            LatencyHistogram.millis(responseP99Nanos), LatencyHistogram.millis(decodeP99Nanos),
+            bytesSent, bytesReceived, bytesDecoded);
+    }
+}
+
+// Times one exchange. It wraps the exchange's BodyHandler, which
+// java.net.http calls when the response headers arrive, so the timer itself
+// marks the response/body boundary without a second allocation. Created only
+// when metrics or the JFR event are enabled.
+class ExchangeTimer<T> implements HttpResponse.BodyHandler<T> {
+    private final String endpoint;
+    private final ApiMetrics metrics;
+    private final HttpResponse.BodyHandler<T> delegate;
+    private final ApiExchangeEvent event;
+    private final long created = System.nanoTime();
+    private long sent;
+    private volatile long headers;
+
+    ExchangeTimer(String endpoint, ApiMetrics metrics, HttpResponse.BodyHandler<T> delegate) {
+        this.endpoint = endpoint;
+        this.metrics = metrics;
+        this.delegate = delegate;
+        this.event = ApiExchangeEvent.isRecording() ? new ApiExchangeEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        if (metrics != null) {
+            metrics.exchangeStarted(endpoint);
+        }
+    }
+
+    // The limiter has let the exchange through and it is being sent
+    void sending() {
+        sent = System.nanoTime();
+    }
+
+    @Override
+    public HttpResponse.BodySubscriber<T> apply(HttpResponse.ResponseInfo responseInfo) {
+        headers = System.nanoTime();
+        return delegate.apply(responseInfo);
+    }
+
+    void finished(HttpRequest request, HttpResponse<T> response, Throwable error) {
+        long end = System.nanoTime();
+        long sentAt = sent == 0 ? created : sent;
+        long headersAt = headers == 0 ? end : headers;
+        long queueNanos = sentAt - created;
+        long responseNanos = headersAt - sentAt;
+        long bodyNanos = end - headersAt;
+        int status = response == null ? 0 : response.statusCode();
+        long bytesSent = bytesSent(request);
+        long bytesReceived = bytesReceived(response);
+        if (metrics != null) {
+            metrics.exchangeFinished(endpoint, status, queueNanos, responseNanos, bodyNanos,
+                bytesSent, bytesReceived, error);
+        }
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.endpoint = endpoint;
+                event.statusCode = status;
+                event.queueTime = queueNanos;
+                event.responseTime = responseNanos;
+                event.bodyTime = bodyNanos;
+                event.bytesSent = bytesSent;
+                event.bytesReceived = bytesReceived;
+                event.error = error == null ? null : error.toString();
+                event.commit();
+            }
+        }
+    }
+
+    // HttpRequest hands out its publisher in an Optional, which is the one
+    // allocation here; mapping it would add a second and box the length
+    private static long bytesSent(HttpRequest request) {
+        Optional<HttpRequest.BodyPublisher> publisher = request.bodyPublisher();
+        return publisher.isPresent() ? publisher.get().contentLength() : 0;
+    }
+
+    // Bodies read as byte[] (all but streamed history pages) are measured
+    // directly; only a streamed body costs a Content-Length lookup
+    private static long bytesReceived(HttpResponse<?> response) {
+        if (response == null) {
+            return -1;
+        }
+        if (response.body() instanceof byte[]) {
+            return ((byte[]) response.body()).length;
+        }
+        return response.headers().firstValueAsLong("Content-Length").orElse(-1);
+    }
+}
+
+@Name("icici.ApiExchange")
+@Label("ICICI API Exchange")
+@Category("ICICI Banking API")
+@Description("One HTTP exchange with the bank, from limiter wait to complete response body")
+class ApiExchangeEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(ApiExchangeEvent.class);
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Status Code")
+    int statusCode;
+
+    @Label("Queue Time")
+    @Description("Waiting for the endpoint's client-side limiter")
+    @Timespan(Timespan.NANOSECONDS)
+    long queueTime;
+
+    @Label("Response Time")
+    @Description("Send to response headers: connection, TLS, upload and server time")
+    @Timespan(Timespan.NANOSECONDS)
+    long responseTime;
+
+    @Label("Body Time")
+    @Description("Response headers to complete body")
+    @Timespan(Timespan.NANOSECONDS)
+    long bodyTime;
+
+    @Label("Bytes Sent")
+    @DataAmount
+    long bytesSent;
+
+    @Label("Bytes Received")
+    @DataAmount
+    long bytesReceived;
+
+    @Label("Error")
+    String error;
+
+    static boolean isRecording() {
+        return TYPE.isEnabled();
+    }
+}
+
+@Name("icici.JsonDecode")
+@Label("ICICI JSON Decode")
+@Category("ICICI Banking API")
+@Description("Binding one response body to its DTO")
+class JsonDecodeEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(JsonDecodeEvent.class);
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Type")
+    String type;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    // Checked before creating an event, so decoding allocates nothing for it
+    // unless a recording has the event enabled
+    static boolean isRecording() {
+        return TYPE.isEnabled();
+    }
+}
@@ -0,0 +1,97 @@
+// ICICI Banking API - Content Encoding
+// gzip/deflate for bodies on the wire: java.net.http neither asks for nor
+// undoes compression, so ICICIBankingAPI sends Accept-Encoding itself and
+// inflates responses here, as a stream feeding the JSON parser.
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+// The decoding streams inflate as the parser reads, so a compressed body is
+// never expanded into a second buffer; only its compressed bytes are held
+// (or, for streamed pages, not even those). Closing the stream releases the
+// Inflater's native memory at once instead of at finalization.
+final class ContentEncoding {
+    static final String ACCEPT = "gzip, deflate";
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private ContentEncoding() {
+    }
+
+    static boolean isEncoded(HttpHeaders headers) {
+        String encoding = headers.firstValue("Content-Encoding").orElse("identity").trim();
+        return !encoding.isEmpty() && !encoding.equalsIgnoreCase("identity");
+    }
+
+    // The body as sent before encoding; the stream itself when it is not encoded
+    static InputStream decoding(HttpHeaders headers, InputStream body) throws IOException {
+        String encoding = headers.firstValue("Content-Encoding").orElse("identity").trim();
+        if (encoding.isEmpty() || encoding.equalsIgnoreCase("identity")) {
+            return body;
+        }
+        if (encoding.equalsIgnoreCase("gzip") || encoding.equalsIgnoreCase("x-gzip")) {
+            return new GZIPInputStream(body, BUFFER_SIZE);
+        }
+        if (encoding.equalsIgnoreCase("deflate")) {
+            return inflating(body);
+        }
+        body.close();
+        throw new IOException("Unsupported Content-Encoding: " + encoding);
+    }
+
+    static InputStream decoding(HttpHeaders headers, byte[] body) throws IOException {
+        return decoding(headers, new ByteArrayInputStream(body));
+    }
+
+    // A response body as text, e.g. for an error message
+    static String text(HttpHeaders headers, byte[] body) {
+        if (body.length == 0 || !isEncoded(headers)) {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+        try (InputStream in = decoding(headers, body)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // "deflate" is meant to be zlib-wrapped (RFC 9110), but some servers send
+    // a raw deflate stream; the zlib header check tells them apart
+    private static InputStream inflating(InputStream body) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(body, 2);
+        byte[] header = in.readNBytes(2);
+        in.unread(header);
+        boolean zlib = header.length == 2 && (header[0] & 0x0f) == 8
+            && (((header[0] & 0xff) << 8) | (header[1] & 0xff)) % 31 == 0;
+        Inflater inflater = new Inflater(!zlib);
+        return new InflaterInputStream(in, inflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+}
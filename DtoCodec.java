@@ -0,0 +1,233 @@
+// ICICI Banking API - DTO Codec
+// Contracts for the reflection-free codecs DtoCodecProcessor generates, and
+// the streaming read/write helpers the generated code calls.
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+
+// Writes one DTO type straight to Jackson's streaming API. Types without a
+// no-arg constructor only get this write side.
+interface DtoCodec<T> {
+    Class<T> type();
+
+    void write(JsonGenerator generator, T value) throws IOException;
+}
+
+// read() is called with the parser on the value's first token (START_OBJECT
+// or VALUE_NULL) and returns with it on the matching END_OBJECT, the same
+// contract as ObjectReader.readValue(JsonParser).
+interface ReadableDtoCodec<T> extends DtoCodec<T> {
+    T read(JsonParser parser) throws IOException;
+}
+
+// Coercions mirror a default ObjectMapper: scalars read into a String field
+// as their text, numeric strings into number fields, and JSON null into a
+// primitive leaves it at its default.
+final class DtoCodecSupport {
+    interface ValueReader<T> {
+        T read(JsonParser parser) throws IOException;
+    }
+
+    interface ValueWriter<T> {
+        void write(JsonGenerator generator, T value) throws IOException;
+    }
+
+    private DtoCodecSupport() {}
+
+    static boolean isNull(JsonParser parser, Class<?> type) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return true;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected an object for " + type.getSimpleName() + " but got " + token);
+        }
+        return false;
+    }
+
+    static JsonParseException unknownProperty(JsonParser parser, Class<?> type, String name) {
+        return new JsonParseException(parser, "Unrecognized field \"" + name + "\" for " + type.getSimpleName());
+    }
+
+    static String readString(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isScalarValue()) {
+            return parser.getValueAsString();
+        }
+        throw new JsonParseException(parser, "Expected a string but got " + token);
+    }
+
+    static BigDecimal readDecimal(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token.isNumeric()) {
+            return parser.getDecimalValue();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            String text = parser.getText().trim();
+            try {
+                return text.isEmpty() ? null : new BigDecimal(text);
+            } catch (NumberFormatException e) {
+                throw new JsonParseException(parser, "Not a decimal: \"" + text + "\"", e);
+            }
+        }
+        throw new JsonParseException(parser, "Expected a number but got " + token);
+    }
+
+    // As databind: floats are truncated, numeric strings parsed, null and ""
+    // read as 0; out-of-range numbers and any other token fail
+    static int readInt(JsonParser parser) throws IOException {
+        long value = readLong(parser, int.class);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw InvalidFormatException.from(parser, "Numeric value out of range of int", value, int.class);
+        }
+        return (int) value;
+    }
+
+    static long readLong(JsonParser parser) throws IOException {
+        return readLong(parser, long.class);
+    }
+
+    private static long readLong(JsonParser parser, Class<?> type) throws IOException {
+        JsonToken token = parser.currentToken();
+        switch (token) {
+            case VALUE_NUMBER_INT:
+                return type == int.class ? parser.getIntValue() : parser.getLongValue();
+            case VALUE_NUMBER_FLOAT:
+                double number = parser.getDoubleValue();
+                if (Double.isNaN(number) || number < Long.MIN_VALUE || number > Long.MAX_VALUE) {
+                    throw InvalidFormatException.from(parser, "Numeric value out of range of " + type, number, type);
+                }
+                return (long) number;
+            case VALUE_NULL:
+                return 0;
+            case VALUE_STRING:
+                String text = parser.getText().trim();
+                if (text.isEmpty()) {
+                    return 0;
+                }
+                try {
+                    return Long.parseLong(text);
+                } catch (NumberFormatException e) {
+                    throw InvalidFormatException.from(parser, "Not a valid " + type + " value", text, type);
+                }
+            default:
+                throw MismatchedInputException.from(parser, type, "Cannot read " + type + " from " + token);
+        }
+    }
+
+    static double readDouble(JsonParser parser) throws IOException {
+        return parser.currentToken().isNumeric() ? parser.getDoubleValue() : parser.getValueAsDouble();
+    }
+
+    static boolean readBoolean(JsonParser parser) throws IOException {
+        return parser.getValueAsBoolean();
+    }
+
+    static Integer readIntOrNull(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : readInt(parser);
+    }
+
+    static Long readLongOrNull(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : readLong(parser);
+    }
+
+    static Double readDoubleOrNull(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : readDouble(parser);
+    }
+
+    static Boolean readBooleanOrNull(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : readBoolean(parser);
+    }
+
+    static <T> List<T> readList(JsonParser parser, ValueReader<T> elements) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Expected an array but got " + token);
+        }
+        List<T> list = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            list.add(elements.read(parser));
+        }
+        return list;
+    }
+
+    static void writeString(JsonGenerator generator, String value) throws IOException {
+        generator.writeString(value);
+    }
+
+    static void writeDecimal(JsonGenerator generator, BigDecimal value) throws IOException {
+        generator.writeNumber(value);
+    }
+
+    static void writeIntOrNull(JsonGenerator generator, Integer value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    static void writeLongOrNull(JsonGenerator generator, Long value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    static void writeDoubleOrNull(JsonGenerator generator, Double value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    static void writeBooleanOrNull(JsonGenerator generator, Boolean value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeBoolean(value);
+        }
+    }
+
+    static <T> void writeObject(JsonGenerator generator, T value, DtoCodec<T> codec) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            codec.write(generator, value);
+        }
+    }
+
+    static <T> void writeList(JsonGenerator generator, List<T> list, ValueWriter<T> elements) throws IOException {
+        if (list == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartArray();
+        for (T element : list) {
+            elements.write(generator, element);
+        }
+        generator.writeEndArray();
+    }
+}
@@ -0,0 +1,405 @@
+// ICICI Banking API - DTO Codec Annotation Processor
+// Generates a reflection-free DtoCodec for every class with @JsonProperty
+// fields and lists them in META-INF/services/DtoCodec. Build it first and put
+// it on the processor path of the main compilation:
+//   javac -d proc DtoCodecProcessor.java
+//   javac -cp <jackson jars> -processorpath proc -processor DtoCodecProcessor *.java
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+// The generated codecs call the DTO's getters and setters and drive Jackson's
+// streaming JsonParser/JsonGenerator directly, so binding a DTO needs neither
+// ObjectMapper introspection nor reflection metadata in a native image. Field
+// order, null handling and the rejection of unknown properties follow what a
+// default ObjectMapper does for the same class. A class without a non-private
+// no-arg constructor gets a write-only DtoCodec, as Jackson cannot read it
+// either; the others get a ReadableDtoCodec.
+// The codecs are found at run time with ServiceLoader, which native images
+// support from the services file alone.
+//
+// Supported property types: String, BigDecimal, int/long/double/boolean and
+// their boxes, other @JsonProperty DTOs, and Lists of any of these.
+public class DtoCodecProcessor extends AbstractProcessor {
+    private static final String JSON_PROPERTY = "com.fasterxml.jackson.annotation.JsonProperty";
+    private static final String SUPPORT = "DtoCodecSupport";
+
+    private final Set<String> generated = new HashSet<>();
+    // Generated codec class names per package, written out as one services
+    // file per package once the last round is over
+    private final Map<String, List<String>> services = new LinkedHashMap<>();
+
+    private static final class Property {
+        final String jsonName;
+        final TypeMirror type;
+        final String getter;
+        final String setter;
+
+        Property(String jsonName, TypeMirror type, String getter, String setter) {
+            this.jsonName = jsonName;
+            this.type = type;
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of(JSON_PROPERTY);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            for (Map.Entry<String, List<String>> codecs : services.entrySet()) {
+                writeServices(codecs.getKey(), codecs.getValue());
+            }
+            return false;
+        }
+        TypeElement jsonProperty = processingEnv.getElementUtils().getTypeElement(JSON_PROPERTY);
+        if (jsonProperty == null || annotations.isEmpty()) {
+            return false;
+        }
+        Map<TypeElement, List<VariableElement>> dtos = new LinkedHashMap<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(jsonProperty)) {
+            if (element.getKind() == ElementKind.FIELD) {
+                dtos.computeIfAbsent((TypeElement) element.getEnclosingElement(), t -> new ArrayList<>())
+                    .add((VariableElement) element);
+            }
+        }
+
+        for (Map.Entry<TypeElement, List<VariableElement>> dto : dtos.entrySet()) {
+            TypeElement type = dto.getKey();
+            String codecName = codecName(type);
+            String packageName = packageOf(type);
+            if (!generated.add(qualify(packageName, codecName))) {
+                continue;
+            }
+            List<Property> properties = properties(type, dto.getValue(), jsonProperty);
+            if (properties == null) {
+                continue;
+            }
+            writeSource(packageName, codecName, codecSource(type, packageName, codecName, properties));
+            services.computeIfAbsent(packageName, p -> new ArrayList<>()).add(qualify(packageName, codecName));
+        }
+        return false;
+    }
+
+    private List<Property> properties(TypeElement type, List<VariableElement> fields, TypeElement jsonProperty) {
+        List<Property> properties = new ArrayList<>();
+        boolean valid = true;
+        for (VariableElement field : fields) {
+            String fieldName = field.getSimpleName().toString();
+            String capitalized = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+            String getter = findAccessor(type, field.asType(), 0,
+                "get" + capitalized, field.asType().getKind() == TypeKind.BOOLEAN ? "is" + capitalized : null);
+            String setter = findAccessor(type, field.asType(), 1, "set" + capitalized, null);
+            if (getter == null) {
+                error(field, "no accessible getter for @JsonProperty field " + fieldName);
+                valid = false;
+            } else if (setter == null && isReadable(type)) {
+                error(field, "no accessible setter for @JsonProperty field " + fieldName);
+                valid = false;
+            } else if (!isSupported(field.asType())) {
+                error(field, "unsupported @JsonProperty type " + field.asType());
+                valid = false;
+            } else if (isReadable(type) && !isReadable(field.asType())) {
+                error(field, "@JsonProperty field " + fieldName + " has a type without a no-arg constructor");
+                valid = false;
+            }
+            properties.add(new Property(jsonName(field, jsonProperty), field.asType(), getter, setter));
+        }
+        return valid ? properties : null;
+    }
+
+    private String findAccessor(TypeElement type, TypeMirror fieldType, int arity, String name, String altName) {
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            String methodName = method.getSimpleName().toString();
+            if ((!methodName.equals(name) && !methodName.equals(altName))
+                    || method.getModifiers().contains(Modifier.PRIVATE)
+                    || method.getModifiers().contains(Modifier.STATIC)
+                    || method.getParameters().size() != arity) {
+                continue;
+            }
+            TypeMirror accessorType = arity == 0 ? method.getReturnType() : method.getParameters().get(0).asType();
+            if (processingEnv.getTypeUtils().isSameType(accessorType, fieldType)) {
+                return methodName;
+            }
+        }
+        return null;
+    }
+
+    // Whether a property of this type can be read: scalars always, DTOs (also
+    // as List elements) only if they are readable themselves
+    private static boolean isReadable(TypeMirror type) {
+        if (scalarName(type) != null) {
+            return true;
+        }
+        DeclaredType declared = (DeclaredType) type;
+        TypeElement element = (TypeElement) declared.asElement();
+        if (element.getQualifiedName().contentEquals("java.util.List")) {
+            return isReadable(declared.getTypeArguments().get(0));
+        }
+        return isReadable(element);
+    }
+
+    private static boolean isReadable(TypeElement type) {
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String jsonName(VariableElement field, TypeElement jsonProperty) {
+        for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+            if (!mirror.getAnnotationType().asElement().equals(jsonProperty)) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value
+                    : mirror.getElementValues().entrySet()) {
+                if (value.getKey().getSimpleName().contentEquals("value")) {
+                    String name = (String) value.getValue().getValue();
+                    if (!name.isEmpty()) {
+                        return name;
+                    }
+                }
+            }
+        }
+        return field.getSimpleName().toString();
+    }
+
+    // Source generation
+
+    private static String codecSource(TypeElement type, String packageName, String codecName,
+            List<Property> properties) {
+        String dto = type.getQualifiedName().toString();
+        if (!packageName.isEmpty()) {
+            dto = dto.substring(packageName.length() + 1);
+        }
+        boolean readable = isReadable(type);
+        StringBuilder src = new StringBuilder();
+        src.append("// Generated by DtoCodecProcessor from ").append(dto).append(". Do not edit.\n");
+        if (!packageName.isEmpty()) {
+            src.append("package ").append(packageName).append(";\n");
+        }
+        src.append("\nimport java.io.IOException;\n")
+            .append("import com.fasterxml.jackson.core.JsonGenerator;\n")
+            .append(readable ? "import com.fasterxml.jackson.core.JsonParser;\n" : "")
+            .append("import com.fasterxml.jackson.core.io.SerializedString;\n\n")
+            .append("public final class ").append(codecName)
+            .append(readable ? " implements ReadableDtoCodec<" : " implements DtoCodec<").append(dto).append("> {\n")
+            .append("    static final ").append(codecName).append(" INSTANCE = new ").append(codecName).append("();\n");
+        for (int i = 0; i < properties.size(); i++) {
+            src.append("    private static final SerializedString NAME_").append(i)
+                .append(" = new SerializedString(\"").append(escape(properties.get(i).jsonName)).append("\");\n");
+        }
+
+        src.append("\n    @Override\n    public Class<").append(dto).append("> type() {\n")
+            .append("        return ").append(dto).append(".class;\n    }\n");
+
+        src.append("\n    @Override\n    public void write(JsonGenerator generator, ").append(dto)
+            .append(" value) throws IOException {\n")
+            .append("        generator.writeStartObject();\n");
+        for (int i = 0; i < properties.size(); i++) {
+            Property property = properties.get(i);
+            src.append("        generator.writeFieldName(NAME_").append(i).append(");\n")
+                .append("        ").append(writeStatement(property.type, "generator", "value." + property.getter + "()", 0))
+                .append(";\n");
+        }
+        src.append("        generator.writeEndObject();\n    }\n");
+        if (!readable) {
+            return src.append("}\n").toString();
+        }
+
+        src.append("\n    @Override\n    public ").append(dto).append(" read(JsonParser parser) throws IOException {\n");
+        src.append("        if (").append(SUPPORT).append(".isNull(parser, ").append(dto).append(".class)) {\n")
+            .append("            return null;\n        }\n")
+            .append("        ").append(dto).append(" value = new ").append(dto).append("();\n")
+            .append("        String name;\n")
+            .append("        while ((name = parser.nextFieldName()) != null) {\n")
+            .append("            parser.nextToken();\n")
+            .append("            switch (name) {\n");
+        for (Property property : properties) {
+            src.append("                case \"").append(escape(property.jsonName)).append("\":\n")
+                .append("                    value.").append(property.setter).append('(')
+                .append(readExpression(property.type, "parser", 0)).append(");\n")
+                .append("                    break;\n");
+        }
+        src.append("                default:\n")
+            .append("                    throw ").append(SUPPORT).append(".unknownProperty(parser, ")
+            .append(dto).append(".class, name);\n")
+            .append("            }\n        }\n        return value;\n    }\n}\n");
+        return src.toString();
+    }
+
+    private boolean isSupported(TypeMirror type) {
+        if (scalarName(type) != null) {
+            return true;
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        DeclaredType declared = (DeclaredType) type;
+        TypeElement element = (TypeElement) declared.asElement();
+        if (element.getQualifiedName().contentEquals("java.util.List")) {
+            return declared.getTypeArguments().size() == 1 && isSupported(declared.getTypeArguments().get(0));
+        }
+        return hasJsonProperties(element);
+    }
+
+    private boolean hasJsonProperties(TypeElement element) {
+        for (VariableElement field : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+            for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+                if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(JSON_PROPERTY)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Name of the DtoCodecSupport read/write pair for a scalar type, e.g.
+    // "Int" for readInt/writeInt, or null if the type is not a scalar
+    private static String scalarName(TypeMirror type) {
+        switch (type.getKind()) {
+            case INT: return "Int";
+            case LONG: return "Long";
+            case DOUBLE: return "Double";
+            case BOOLEAN: return "Boolean";
+            case DECLARED: break;
+            default: return null;
+        }
+        String name = ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+        switch (name) {
+            case "java.lang.String": return "String";
+            case "java.math.BigDecimal": return "Decimal";
+            case "java.lang.Integer": return "IntOrNull";
+            case "java.lang.Long": return "LongOrNull";
+            case "java.lang.Double": return "DoubleOrNull";
+            case "java.lang.Boolean": return "BooleanOrNull";
+            default: return null;
+        }
+    }
+
+    private static String readExpression(TypeMirror type, String parser, int depth) {
+        String scalar = scalarName(type);
+        if (scalar != null) {
+            return SUPPORT + ".read" + scalar + "(" + parser + ")";
+        }
+        DeclaredType declared = (DeclaredType) type;
+        TypeElement element = (TypeElement) declared.asElement();
+        if (element.getQualifiedName().contentEquals("java.util.List")) {
+            String p = "p" + depth;
+            return SUPPORT + ".readList(" + parser + ", " + p + " -> "
+                + readExpression(declared.getTypeArguments().get(0), p, depth + 1) + ")";
+        }
+        return codecName(element) + ".INSTANCE.read(" + parser + ")";
+    }
+
+    private static String writeStatement(TypeMirror type, String generator, String value, int depth) {
+        String scalar = scalarName(type);
+        if (scalar != null) {
+            return type.getKind().isPrimitive()
+                ? generator + "." + (type.getKind() == TypeKind.BOOLEAN ? "writeBoolean" : "writeNumber") + "(" + value + ")"
+                : SUPPORT + ".write" + scalar + "(" + generator + ", " + value + ")";
+        }
+        DeclaredType declared = (DeclaredType) type;
+        TypeElement element = (TypeElement) declared.asElement();
+        if (element.getQualifiedName().contentEquals("java.util.List")) {
+            String g = "g" + depth;
+            String v = "v" + depth;
+            return SUPPORT + ".writeList(" + generator + ", " + value + ", (" + g + ", " + v + ") -> "
+                + writeStatement(declared.getTypeArguments().get(0), g, v, depth + 1) + ")";
+        }
+        return SUPPORT + ".writeObject(" + generator + ", " + value + ", " + codecName(element) + ".INSTANCE)";
+    }
+
+    // Helpers
+
+    private static String codecName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element outer = type.getEnclosingElement(); outer instanceof TypeElement; outer = outer.getEnclosingElement()) {
+            name.insert(0, outer.getSimpleName() + "_");
+        }
+        return name.append("DtoCodec").toString();
+    }
+
+    private String packageOf(TypeElement type) {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        return pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+    }
+
+    private static String qualify(String packageName, String simpleName) {
+        return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private void writeSource(String packageName, String simpleName, String source) {
+        try (Writer out = processingEnv.getFiler().createSourceFile(qualify(packageName, simpleName)).openWriter()) {
+            out.write(source);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                "failed to write " + simpleName + ": " + e.getMessage());
+        }
+    }
+
+    // ServiceLoader instantiates the listed classes through their public
+    // no-arg constructor
+    private void writeServices(String packageName, List<String> codecNames) {
+        String name = "META-INF/services/" + qualify(packageName, "DtoCodec");
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", name);
+            try (Writer out = file.openWriter()) {
+                for (String codecName : codecNames) {
+                    out.write(codecName);
+                    out.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                "failed to write " + name + ": " + e.getMessage());
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,215 @@
+// ICICI Banking API - Adaptive Endpoint Limiter
+// Client-side throttling for one bank endpoint: an optional token-bucket rate
+// limit plus a concurrency limit that adapts to what the bank can take.
+
+import java.net.http.HttpTimeoutException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// The concurrency limit follows AIMD: every successful call raises it by
+// 1/limit (about +1 per round trip's worth of calls), while a 429, a 503, a
+// timeout or a response much slower than the recent best (over twice as slow
+// and at least 10 ms slower) cuts it
+// multiplicatively, at most once per cooldown so one burst of rejections
+// counts as a single congestion signal.
+//
+// Acquiring is lock-free: a CAS on the in-flight counter when below the limit,
+// otherwise the caller parks a future on a ConcurrentLinkedQueue and a
+// releasing call hands its slot over. Waiting for the rate limit is done with
+// a delayed completion, so no thread is blocked either way.
+class EndpointLimiter {
+    private static final double BACKOFF_RATIO = 0.5;
+    private static final double LATENCY_BACKOFF_RATIO = 0.9;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final long LATENCY_SLACK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long DECREASE_COOLDOWN_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long BASELINE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final CompletableFuture<Void> ACQUIRED = CompletableFuture.completedFuture(null);
+
+    private final String endpoint;
+    private final TokenBucket rateLimit;
+    private final int minLimit;
+    private final int maxLimit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong limitBits;
+    private final Queue<CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicLong lastDecrease = new AtomicLong(System.nanoTime() - DECREASE_COOLDOWN_NANOS);
+    private final AtomicLong baselineLatency = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong baselineWindowStart = new AtomicLong(System.nanoTime());
+    private final LongAdder throttled = new LongAdder();
+
+    // permitsPerSecond <= 0 disables the rate limit and leaves only the
+    // adaptive concurrency limit
+    EndpointLimiter(String endpoint, double permitsPerSecond, int burst, int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.endpoint = endpoint;
+        this.rateLimit = permitsPerSecond > 0 ? new TokenBucket(permitsPerSecond, burst) : null;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limitBits = new AtomicLong(Double.doubleToRawLongBits(initialLimit));
+    }
+
+    // Completes when the caller may send; every completed acquire must be
+    // followed by exactly one release
+    CompletableFuture<Void> acquire() {
+        CompletableFuture<Void> slot;
+        if (tryAcquireSlot()) {
+            slot = ACQUIRED;
+        } else {
+            slot = new CompletableFuture<>();
+            waiters.add(slot);
+            // A release may have happened between the failed CAS and enqueueing
+            handOffFreeSlots();
+        }
+        if (rateLimit == null) {
+            return slot;
+        }
+        return slot.thenCompose(ignored -> {
+            long wait = rateLimit.reserve();
+            if (wait == 0) {
+                return ACQUIRED;
+            }
+            return CompletableFuture.runAsync(() -> { },
+                CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    // Reports how the call went and frees its slot. statusCode is 0 when the
+    // call failed without a response.
+    void release(long latencyNanos, int statusCode, Throwable error) {
+        if (statusCode == 429 || statusCode == 503 || error instanceof HttpTimeoutException) {
+            throttled.increment();
+            decrease(BACKOFF_RATIO);
+        } else if (statusCode > 0 && statusCode < 500) {
+            if (isLatencyInflated(latencyNanos)) {
+                decrease(LATENCY_BACKOFF_RATIO);
+            } else {
+                increase();
+            }
+        }
+
+        // Hand the slot straight to a waiter unless the limit has just been cut
+        // below the current in-flight count
+        if (inFlight.get() <= limit() && handOffTo(waiters.poll())) {
+            return;
+        }
+        inFlight.decrementAndGet();
+        handOffFreeSlots();
+    }
+
+    EndpointLimitStats stats() {
+        return new EndpointLimitStats(endpoint, limit(), inFlight.get(), waiters.size(), throttled.sum());
+    }
+
+    private boolean tryAcquireSlot() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void handOffFreeSlots() {
+        while (!waiters.isEmpty() && tryAcquireSlot()) {
+            if (!handOffTo(waiters.poll())) {
+                inFlight.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    // Passes an acquired slot to the next live waiter; false if there is none
+    private boolean handOffTo(CompletableFuture<Void> waiter) {
+        while (waiter != null) {
+            if (waiter.complete(null)) {
+                return true;
+            }
+            waiter = waiters.poll();
+        }
+        return false;
+    }
+
+    private double limit() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+
+    private void increase() {
+        while (true) {
+            long bits = limitBits.get();
+            double current = Double.longBitsToDouble(bits);
+            double next = Math.min(maxLimit, current + 1.0 / current);
+            if (next == current || limitBits.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    private void decrease(double ratio) {
+        long now = System.nanoTime();
+        long last = lastDecrease.get();
+        if (now - last < DECREASE_COOLDOWN_NANOS || !lastDecrease.compareAndSet(last, now)) {
+            return;
+        }
+        while (true) {
+            long bits = limitBits.get();
+            double next = Math.max(minLimit, Double.longBitsToDouble(bits) * ratio);
+            if (limitBits.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    // Compares against the fastest call seen in the current window; the
+    // window restarts periodically so the baseline can follow a slower bank
+    private boolean isLatencyInflated(long latencyNanos) {
+        long now = System.nanoTime();
+        long windowStart = baselineWindowStart.get();
+        if (now - windowStart > BASELINE_WINDOW_NANOS && baselineWindowStart.compareAndSet(windowStart, now)) {
+            baselineLatency.set(latencyNanos);
+            return false;
+        }
+        long baseline = baselineLatency.accumulateAndGet(latencyNanos, Math::min);
+        return latencyNanos > baseline * LATENCY_TOLERANCE && latencyNanos - baseline > LATENCY_SLACK_NANOS;
+    }
+}
+
+class EndpointLimitStats {
+    private final String endpoint;
+    private final double concurrencyLimit;
+    private final int inFlight;
+    private final int waiting;
+    private final long throttled;
+
+    public EndpointLimitStats(String endpoint, double concurrencyLimit, int inFlight, int waiting, long throttled) {
+        this.endpoint = endpoint;
+        this.concurrencyLimit = concurrencyLimit;
+        this.inFlight = inFlight;
+        this.waiting = waiting;
+        this.throttled = throttled;
+    }
+
+    public String getEndpoint() { return endpoint; }
+    public double getConcurrencyLimit() { return concurrencyLimit; }
+    public int getInFlight() { return inFlight; }
+    public int getWaiting() { return waiting; }
+    // Calls answered with 429/503 or timed out
+    public long getThrottled() { return throttled; }
+
+    @Override
+    public String toString() {
+        return String.format("EndpointLimitStats{endpoint=%s, limit=%.1f, inFlight=%d, waiting=%d, throttled=%d}",
+            endpoint, concurrencyLimit, inFlight, waiting, throttled);
+    }
+}
@@ -0,0 +1,468 @@
+// ICICI Banking API - HTTP Transport
+// The one interface ICICIBankingAPI sends requests through, its shared
+// configuration (pool size, keep-alive, HTTP/2, timeouts, TLS session
+// resumption), and the java.net.http implementation.
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+
+// java.net.http's HttpRequest, HttpResponse and BodyHandler are the request
+// and response model for every transport: they are plain values, the client
+// already builds them, and BodyHandler is how a body is consumed (as bytes, a
+// stream, or through ExchangeTimer for metrics). Transports over other stacks
+// translate the request and feed the response body to the handler's
+// BodySubscriber, so the client, its metrics and its retries are unchanged
+// whichever stack carries the bytes.
+//
+// Implementations: JdkHttpTransport (java.net.http, HTTP/2 multiplexing),
+// UrlConnectionTransport (HttpURLConnection/HttpsURLConnection, HTTP/1.1) and
+// OkHttpTransport (OkHttp, HTTP/2 multiplexing).
+public interface HttpTransport extends AutoCloseable {
+    <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler);
+
+    // "jdk", "urlconnection" or "okhttp"
+    String name();
+
+    // Timeout for the client to set on each request it builds, for stacks
+    // that take it from the request; null when the transport applies its own
+    default Duration readTimeout() {
+        return null;
+    }
+
+    @Override
+    default void close() {
+    }
+
+    // Builds the named transport. OkHttpTransport is loaded by name so that
+    // only deployments that choose it need OkHttp on the classpath.
+    static HttpTransport create(String name, TransportConfig config) {
+        switch (name) {
+            case "jdk":
+                return new JdkHttpTransport(config);
+            case "urlconnection":
+                return new UrlConnectionTransport(config);
+            case "okhttp":
+                try {
+                    return (HttpTransport) Class.forName("OkHttpTransport")
+                        .getDeclaredConstructor(TransportConfig.class)
+                        .newInstance(config);
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    throw new IllegalStateException("OkHttpTransport needs OkHttp on the classpath", e);
+                }
+            default:
+                throw new IllegalArgumentException("Unknown transport: " + name);
+        }
+    }
+}
+
+// Connection and protocol settings, applied by each transport as far as its
+// stack allows (see each transport's notes). Immutable; build with
+// TransportConfig.builder() or start from defaults().
+class TransportConfig {
+    private final int maxConnectionsPerHost;
+    private final Duration keepAlive;
+    private final boolean http2;
+    private final int maxConcurrentStreams;
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+    private final int tlsSessionCacheSize;
+    private final Duration tlsSessionTimeout;
+    private final Executor executor;
+
+    private TransportConfig(Builder builder) {
+        this.maxConnectionsPerHost = builder.maxConnectionsPerHost;
+        this.keepAlive = builder.keepAlive;
+        this.http2 = builder.http2;
+        this.maxConcurrentStreams = builder.maxConcurrentStreams;
+        this.connectTimeout = builder.connectTimeout;
+        this.readTimeout = builder.readTimeout;
+        this.tlsSessionCacheSize = builder.tlsSessionCacheSize;
+        this.tlsSessionTimeout = builder.tlsSessionTimeout;
+        this.executor = builder.executor;
+    }
+
+    // 32 connections per host kept alive for 5 minutes, HTTP/2 with up to
+    // 100 streams per connection, 10 s connect and 30 s read timeouts, and
+    // 1000 resumable TLS sessions for 24 hours
+    static TransportConfig defaults() {
+        return builder().build();
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    int getMaxConnectionsPerHost() { return maxConnectionsPerHost; }
+    Duration getKeepAlive() { return keepAlive; }
+    boolean isHttp2() { return http2; }
+    int getMaxConcurrentStreams() { return maxConcurrentStreams; }
+    Duration getConnectTimeout() { return connectTimeout; }
+    Duration getReadTimeout() { return readTimeout; }
+    Executor getExecutor() { return executor; }
+
+    // A TLS context whose client session cache is sized for this config, so
+    // reconnects to the bank resume the previous session (an abbreviated
+    // handshake) instead of a full one. Shared by every connection of a
+    // transport: session resumption only works within one context.
+    SSLContext newSslContext() {
+        try {
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, null, null);
+            SSLSessionContext sessions = context.getClientSessionContext();
+            sessions.setSessionCacheSize(tlsSessionCacheSize);
+            sessions.setSessionTimeout((int) Math.min(Integer.MAX_VALUE, tlsSessionTimeout.getSeconds()));
+            return context;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("TLS is not available", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TransportConfig{maxConnectionsPerHost=%d, keepAlive=%s, http2=%s, "
+                + "maxConcurrentStreams=%d, connectTimeout=%s, readTimeout=%s, tlsSessionCacheSize=%d, tlsSessionTimeout=%s}",
+            maxConnectionsPerHost, keepAlive, http2, maxConcurrentStreams, connectTimeout, readTimeout,
+            tlsSessionCacheSize, tlsSessionTimeout);
+    }
+
+    static final class Builder {
+        private int maxConnectionsPerHost = 32;
+        private Duration keepAlive = Duration.ofMinutes(5);
+        private boolean http2 = true;
+        private int maxConcurrentStreams = 100;
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Duration readTimeout = Duration.ofSeconds(30);
+        private int tlsSessionCacheSize = 1000;
+        private Duration tlsSessionTimeout = Duration.ofHours(24);
+        private Executor executor;
+
+        private Builder() {
+        }
+
+        Builder maxConnectionsPerHost(int maxConnectionsPerHost) {
+            if (maxConnectionsPerHost < 1) {
+                throw new IllegalArgumentException("maxConnectionsPerHost must be at least 1");
+            }
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+            return this;
+        }
+
+        Builder keepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        Builder http2(boolean http2) {
+            this.http2 = http2;
+            return this;
+        }
+
+        Builder maxConcurrentStreams(int maxConcurrentStreams) {
+            if (maxConcurrentStreams < 1) {
+                throw new IllegalArgumentException("maxConcurrentStreams must be at least 1");
+            }
+            this.maxConcurrentStreams = maxConcurrentStreams;
+            return this;
+        }
+
+        Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        // Per request, when the request does not set its own timeout
+        Builder readTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+            return this;
+        }
+
+        Builder tlsSessionCache(int size, Duration timeout) {
+            this.tlsSessionCacheSize = size;
+            this.tlsSessionTimeout = timeout;
+            return this;
+        }
+
+        // Runs response handling (and, for UrlConnectionTransport, the
+        // blocking exchanges themselves); null for the transport's default
+        Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        TransportConfig build() {
+            return new TransportConfig(this);
+        }
+    }
+}
+
+// java.net.http. Over TLS, HTTP/2 is negotiated with ALPN and every request to
+// the bank is multiplexed as a stream on one connection; cleartext URLs use
+// HTTP/1.1 pooling. The client's pool size, keep-alive and stream limit exist
+// only as jdk.httpclient.* system properties, read once when the first
+// HttpClient is created: they are set here from the config unless already
+// set, and so take effect only for the first transport built in the JVM.
+class JdkHttpTransport implements HttpTransport {
+    private final HttpClient client;
+    private final Duration readTimeout;
+
+    JdkHttpTransport(TransportConfig config) {
+        applyClientProperties(config);
+        HttpClient.Builder builder = HttpClient.newBuilder()
+            .version(config.isHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+            .connectTimeout(config.getConnectTimeout())
+            .sslContext(config.newSslContext());
+        if (config.getExecutor() != null) {
+            builder.executor(config.getExecutor());
+        }
+        this.client = builder.build();
+        this.readTimeout = config.getReadTimeout();
+    }
+
+    // Wraps an existing client as is, e.g. one shared by a tenant pool
+    JdkHttpTransport(HttpClient client) {
+        this.client = client;
+        this.readTimeout = null;
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+            HttpResponse.BodyHandler<T> bodyHandler) {
+        return client.sendAsync(request, bodyHandler);
+    }
+
+    @Override
+    public String name() {
+        return "jdk";
+    }
+
+    // java.net.http has no client-wide read timeout, only the per-request one
+    @Override
+    public Duration readTimeout() {
+        return readTimeout;
+    }
+
+    HttpClient client() {
+        return client;
+    }
+
+    private static void applyClientProperties(TransportConfig config) {
+        setIfAbsent("jdk.httpclient.connectionPoolSize", config.getMaxConnectionsPerHost());
+        setIfAbsent("jdk.httpclient.keepalive.timeout", config.getKeepAlive().getSeconds());
+        setIfAbsent("jdk.httpclient.keepalive.timeout.h2", config.getKeepAlive().getSeconds());
+        setIfAbsent("jdk.httpclient.maxstreams", config.getMaxConcurrentStreams());
+    }
+
+    static void setIfAbsent(String property, long value) {
+        if (System.getProperty(property) == null) {
+            System.setProperty(property, Long.toString(value));
+        }
+    }
+}
+
+// Pieces shared by the transports that adapt a blocking stack to the
+// BodyHandler model
+class TransportSupport {
+    private TransportSupport() {
+    }
+
+    // The request body as bytes, or null for a request without one. The
+    // client's publishers (ofByteArray, noBody) publish synchronously on
+    // subscribe, so this returns without waiting.
+    static byte[] requestBody(HttpRequest request) {
+        Optional<HttpRequest.BodyPublisher> publisher = request.bodyPublisher();
+        if (publisher.isEmpty()) {
+            return null;
+        }
+        HttpResponse.BodySubscriber<byte[]> bytes = HttpResponse.BodySubscribers.ofByteArray();
+        publisher.get().subscribe(new Flow.Subscriber<ByteBuffer>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                bytes.onSubscribe(subscription);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                bytes.onNext(List.of(item));
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                bytes.onError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                bytes.onComplete();
+            }
+        });
+        return bytes.getBody().toCompletableFuture().join();
+    }
+
+    // Hands a response body to the handler's subscriber and completes with
+    // the response once the subscriber has produced its body (immediately
+    // for a streamed body, after the last byte for a buffered one)
+    static <T> CompletableFuture<HttpResponse<T>> deliver(HttpRequest request, int status, HttpHeaders headers,
+            HttpClient.Version version, InputStream body, HttpResponse.BodyHandler<T> bodyHandler) {
+        HttpResponse.BodySubscriber<T> subscriber = bodyHandler.apply(new Info(status, headers, version));
+        subscriber.onSubscribe(new StreamSubscription(body, subscriber));
+        return subscriber.getBody().toCompletableFuture()
+            .thenApply(value -> new Response<>(request, status, headers, version, value));
+    }
+
+    // Reads the body in chunks only as the subscriber requests them, on the
+    // requesting thread. Requests made from inside onNext are added to the
+    // demand served by the loop already running, so the stack does not grow
+    // with the body. The stream is closed at the end, on error or on cancel,
+    // which is what returns the connection to its pool.
+    private static final class StreamSubscription implements Flow.Subscription {
+        private static final int CHUNK_SIZE = 16 * 1024;
+
+        private final InputStream in;
+        private final Flow.Subscriber<? super List<ByteBuffer>> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger draining = new AtomicInteger();
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        StreamSubscription(InputStream in, Flow.Subscriber<? super List<ByteBuffer>> subscriber) {
+            this.in = in;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                finish(new IllegalArgumentException("non-positive request: " + n));
+                return;
+            }
+            demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            if (draining.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (demand.get() > 0 && !done.get()) {
+                    try {
+                        byte[] chunk = new byte[CHUNK_SIZE];
+                        int read = in.read(chunk);
+                        if (read < 0) {
+                            finish(null);
+                        } else if (read > 0) {
+                            demand.decrementAndGet();
+                            subscriber.onNext(List.of(ByteBuffer.wrap(chunk, 0, read)));
+                        }
+                    } catch (IOException e) {
+                        finish(new UncheckedIOException(e));
+                    }
+                }
+                missed = draining.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        @Override
+        public void cancel() {
+            if (done.compareAndSet(false, true)) {
+                close();
+            }
+        }
+
+        private void finish(Throwable error) {
+            if (done.compareAndSet(false, true)) {
+                close();
+                if (error == null) {
+                    subscriber.onComplete();
+                } else {
+                    subscriber.onError(error);
+                }
+            }
+        }
+
+        private void close() {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // the connection is simply not reused
+            }
+        }
+    }
+
+    private static final class Info implements HttpResponse.ResponseInfo {
+        private final int status;
+        private final HttpHeaders headers;
+        private final HttpClient.Version version;
+
+        Info(int status, HttpHeaders headers, HttpClient.Version version) {
+            this.status = status;
+            this.headers = headers;
+            this.version = version;
+        }
+
+        @Override
+        public int statusCode() { return status; }
+
+        @Override
+        public HttpHeaders headers() { return headers; }
+
+        @Override
+        public HttpClient.Version version() { return version; }
+    }
+
+    private static final class Response<T> implements HttpResponse<T> {
+        private final HttpRequest request;
+        private final int status;
+        private final HttpHeaders headers;
+        private final HttpClient.Version version;
+        private final T body;
+
+        Response(HttpRequest request, int status, HttpHeaders headers, HttpClient.Version version, T body) {
+            this.request = request;
+            this.status = status;
+            this.headers = headers;
+            this.version = version;
+            this.body = body;
+        }
+
+        @Override
+        public int statusCode() { return status; }
+
+        @Override
+        public HttpRequest request() { return request; }
+
+        @Override
+        public Optional<HttpResponse<T>> previousResponse() { return Optional.empty(); }
+
+        @Override
+        public HttpHeaders headers() { return headers; }
+
+        @Override
+        public T body() { return body; }
+
+        @Override
+        public Optional<SSLSession> sslSession() { return Optional.empty(); }
+
+        @Override
+        public URI uri() { return request.uri(); }
+
+        @Override
+        public HttpClient.Version version() { return version; }
+    }
+}
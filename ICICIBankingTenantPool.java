@@ -0,0 +1,138 @@
+// ICICI Banking API - Multi-tenant Session Pool
+// Serves many corporate customers from one JVM: every tenant gets its own
+// credentials and token, but all of them share a single HttpTransport (and with
+// it one connection pool) and a single JSON codec.
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ICICIBankingTenantPool {
+    private final HttpTransport transport;
+    private final JsonCodec codec;
+    private final String baseUrl;
+    private final Map<String, TenantCredentials> credentials = new ConcurrentHashMap<>();
+    private final Map<String, TenantSession> sessions = new ConcurrentHashMap<>();
+
+    public ICICIBankingTenantPool() {
+        this((Executor) null);
+    }
+
+    // See ICICIBankingAPI(String, Executor) for the executor
+    public ICICIBankingTenantPool(Executor executor) {
+        this(new JdkHttpTransport(ICICIBankingAPI.newHttpClient(executor)));
+    }
+
+    // Every tenant's session sends through this transport, e.g.
+    // HttpTransport.create("okhttp", config) sized for all tenants together
+    public ICICIBankingTenantPool(HttpTransport transport) {
+        this(transport, JsonCodec.withGeneratedCodecs(new ObjectMapper()), ICICIBankingAPI.BASE_URL);
+    }
+
+    // Talks to a different base URL, e.g. StubBankServer
+    ICICIBankingTenantPool(HttpTransport transport, JsonCodec codec, String baseUrl) {
+        this.transport = transport;
+        this.codec = codec;
+        this.baseUrl = baseUrl;
+    }
+
+    // Registering only stores credentials; a session is created and logged in
+    // on the tenant's first call
+    public void registerTenant(String tenantId, String apiKey, String username, String password) {
+        credentials.put(tenantId, new TenantCredentials(apiKey, username, password));
+        sessions.remove(tenantId);
+    }
+
+    public void removeTenant(String tenantId) {
+        credentials.remove(tenantId);
+        sessions.remove(tenantId);
+    }
+
+    // Runs call against the tenant's authenticated session. Concurrent first
+    // calls for the same tenant share one login.
+    public <T> CompletableFuture<T> callAsync(String tenantId,
+            Function<ICICIBankingAPI, CompletableFuture<T>> call) {
+        return sessionAsync(tenantId).thenCompose(call);
+    }
+
+    public <T> T call(String tenantId, Function<ICICIBankingAPI, CompletableFuture<T>> call) throws Exception {
+        try {
+            return callAsync(tenantId, call).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<ICICIBankingAPI> sessionAsync(String tenantId) {
+        TenantSession session = sessions.get(tenantId);
+        if (session == null) {
+            TenantCredentials tenant = credentials.get(tenantId);
+            if (tenant == null) {
+                return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("Unknown tenant: " + tenantId));
+            }
+            TenantSession created = new TenantSession();
+            session = sessions.putIfAbsent(tenantId, created);
+            if (session == null) {
+                session = created;
+                login(tenantId, tenant, created);
+            }
+        }
+        session.lastUsed = System.nanoTime();
+        return session.api.copy();
+    }
+
+    // Drops sessions not used for at least idleTime. Their tokens are simply
+    // forgotten; the next call for the tenant logs in again.
+    public int evictIdleSessions(Duration idleTime) {
+        long cutoff = System.nanoTime() - idleTime.toNanos();
+        int evicted = 0;
+        for (Map.Entry<String, TenantSession> entry : sessions.entrySet()) {
+            if (entry.getValue().lastUsed - cutoff < 0 && sessions.remove(entry.getKey(), entry.getValue())) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    public int getTenantCount() { return credentials.size(); }
+    public int getActiveSessionCount() { return sessions.size(); }
+
+    private void login(String tenantId, TenantCredentials tenant, TenantSession session) {
+        ICICIBankingAPI api = new ICICIBankingAPI(tenant.apiKey, transport, codec, baseUrl);
+        api.authenticateAsync(tenant.username, tenant.password).whenComplete((authResponse, error) -> {
+            if (error == null) {
+                session.api.complete(api);
+            } else {
+                // A failed login is not cached, so the tenant's next call tries again
+                sessions.remove(tenantId, session);
+                session.api.completeExceptionally(error);
+            }
+        });
+    }
+
+    private static final class TenantCredentials {
+        final String apiKey;
+        final String username;
+        final String password;
+
+        TenantCredentials(String apiKey, String username, String password) {
+            this.apiKey = apiKey;
+            this.username = username;
+            this.password = password;
+        }
+    }
+
+    private static final class TenantSession {
+        final CompletableFuture<ICICIBankingAPI> api = new CompletableFuture<>();
+        volatile long lastUsed = System.nanoTime();
+    }
+}
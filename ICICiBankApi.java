@@ -2,242 +2,1868 @@
 // Note: This is a sample implementation for educational purposes
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 // Main ICICI Banking API Client
 public class ICICIBankingAPI {
-    private static final String BASE_URL = "https://api.icicibank.com/v1";
-    private final HttpClient httpClient;
-    private final ObjectMapper objectMapper;
-    private String authToken;
+    static final String BASE_URL = "https://api.icicibank.com/v1";
+    private static final int DEFAULT_BULK_CONCURRENCY = 32;
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String ACCOUNTS_CACHE_KEY = "accounts";
+    private static final String BENEFICIARIES_CACHE_KEY = "beneficiaries";
+    private static final int INDEX_PAGE_SIZE = 500;
+    private final String baseUrl;
+    private final String basePath;
+    private final EndpointNames endpointNames = new EndpointNames();
+    private final HttpTransport transport;
+    private final Duration requestTimeout;
+    private final JsonCodec codec;
+    private final TokenManager tokenManager;
+    // The credentials of the last successful login, for renewing a token the
+    // bank issued without a refresh_token; cleared again on logout
+    private volatile AuthRequest login;
+    private volatile int bulkConcurrency = DEFAULT_BULK_CONCURRENCY;
+    private volatile TtlCache responseCache;
+    private volatile TransactionRangeIndex transactionIndex;
+    private volatile IdempotencyJournal journal;
+    private final Map<String, EndpointLimiter> endpointLimiters = new ConcurrentHashMap<>();
+    private volatile RetryPolicy defaultRetryPolicy = RetryPolicy.defaults();
+    private final Map<String, RetryPolicy> retryPolicies = new ConcurrentHashMap<>();
+    private volatile int circuitBreakerThreshold;
+    private volatile Duration circuitBreakerOpenDuration;
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private volatile long minimumHedgeDelayNanos = -1;
+    private final Map<String, LatencyTracker> latencyTrackers = new ConcurrentHashMap<>();
+    private volatile ApiMetrics metrics;
+    private volatile boolean requestCoalescing = true;
+    private final Map<String, InFlightGet> inFlightGets = new ConcurrentHashMap<>();
+    private final AtomicLong writeGeneration = new AtomicLong();
+    private final LongAdder coalescedGets = new LongAdder();
+    private volatile boolean conditionalRequests = true;
+    private final Map<String, Validated> validators = new ConcurrentHashMap<>();
+    private final LongAdder notModifiedResponses = new LongAdder();
+    private volatile boolean responseCompression = true;
+    private volatile int requestCompressionThreshold = -1;
     private String apiKey;
     
     public ICICIBankingAPI(String apiKey) {
+        this(apiKey, (Executor) null);
+    }
+    
+    // The executor runs response parsing and any dependent stages of the
+    // async methods. On JDK 21+ pass Executors.newVirtualThreadPerTaskExecutor()
+    // so thousands of in-flight calls cost virtual rather than platform threads.
+    // A null executor keeps the HttpClient default.
+    public ICICIBankingAPI(String apiKey, Executor executor) {
+        this(apiKey, newHttpClient(executor), JsonCodec.withGeneratedCodecs(new ObjectMapper()));
+    }
+    
+    // Shares an existing connection pool and JSON codec, e.g. across the
+    // tenants of an ICICIBankingTenantPool
+    ICICIBankingAPI(String apiKey, HttpClient httpClient, JsonCodec codec) {
+        this(apiKey, httpClient, codec, BASE_URL);
+    }
+    
+    // Talks to a different base URL, e.g. a local stand-in server for
+    // benchmarks and load tests
+    ICICIBankingAPI(String apiKey, HttpClient httpClient, JsonCodec codec, String baseUrl) {
+        this(apiKey, new JdkHttpTransport(httpClient), codec, baseUrl);
+    }
+    
+    // Sends every request through the given transport, e.g.
+    // HttpTransport.create("okhttp", TransportConfig.defaults()), so the same
+    // workload can be compared across HTTP stacks and connection settings
+    public ICICIBankingAPI(String apiKey, HttpTransport transport) {
+        this(apiKey, transport, JsonCodec.withGeneratedCodecs(new ObjectMapper()), BASE_URL);
+    }
+    
+    ICICIBankingAPI(String apiKey, HttpTransport transport, JsonCodec codec, String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.basePath = URI.create(baseUrl).getPath();
         this.apiKey = apiKey;
-        this.httpClient = HttpClient.newHttpClient();
-        this.objectMapper = new ObjectMapper();
+        this.transport = transport;
+        this.requestTimeout = transport.readTimeout();
+        this.codec = codec;
+        this.tokenManager = new TokenManager(this::renewAuthenticationAsync);
+    }
+    
+    static HttpClient newHttpClient(Executor executor) {
+        HttpClient.Builder builder = HttpClient.newBuilder();
+        if (executor != null) {
+            builder.executor(executor);
+        }
+        return builder.build();
     }
     
     // Authentication
     public AuthResponse authenticate(String username, String password) throws Exception {
+        return await(authenticateAsync(username, password));
+    }
+    
+    public CompletableFuture<AuthResponse> authenticateAsync(String username, String password) {
         AuthRequest authRequest = new AuthRequest(username, password, apiKey);
-        
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(BASE_URL + "/auth/login"))
-            .header("Content-Type", "application/json")
-            .header("X-API-Key", apiKey)
-            .POST(HttpRequest.BodyPublishers.ofString(
-                objectMapper.writeValueAsString(authRequest)))
-            .build();
-            
-        HttpResponse<String> response = httpClient.send(request, 
-            HttpResponse.BodyHandlers.ofString());
+        return loginAsync(authRequest)
+            .thenApply(authResponse -> {
+                login = authRequest;
+                tokenManager.update(authResponse);
+                return authResponse;
+            });
+    }
+    
+    // Tokens are refreshed with the refresh_token from the last AuthResponse
+    // (or, when the bank sent none, by logging in again with the same
+    // credentials) this long before they expire (capped at half the token
+    // lifetime); calls keep using the current token while the refresh is in
+    // flight
+    public void setTokenRefreshAhead(Duration refreshAhead) {
+        tokenManager.setRefreshAhead(refreshAhead);
+    }
+    
+    private CompletableFuture<AuthResponse> loginAsync(AuthRequest authRequest) {
+        HttpRequest.Builder request = requestTo("/auth/login")
+            .header("X-API-Key", apiKey);
             
-        if (response.statusCode() == 200) {
-            AuthResponse authResponse = objectMapper.readValue(
-                response.body(), AuthResponse.class);
-            this.authToken = authResponse.getAccessToken();
-            return authResponse;
-        } else {
-            throw new RuntimeException("Authentication failed: " + response.body());
+        return sendJsonAsync(request, authRequest, 200, AuthResponse.class, "Authentication failed");
+    }
+    
+    private CompletableFuture<AuthResponse> renewAuthenticationAsync(String refreshToken) {
+        if (refreshToken != null) {
+            return refreshAuthenticationAsync(refreshToken);
+        }
+        AuthRequest credentials = login;
+        if (credentials == null) {
+            return CompletableFuture.failedFuture(
+                new IllegalStateException("Access token expired and there is no refresh_token or login to renew it"));
         }
+        return loginAsync(credentials);
+    }
+    
+    private CompletableFuture<AuthResponse> refreshAuthenticationAsync(String refreshToken) {
+        RefreshTokenRequest refreshRequest = new RefreshTokenRequest(refreshToken, apiKey);
+        
+        HttpRequest.Builder request = requestTo("/auth/refresh")
+            .header("X-API-Key", apiKey);
+            
+        return sendJsonAsync(request, refreshRequest, 200, AuthResponse.class, "Token refresh failed");
     }
     
     // Account Operations
     public AccountDetailsResponse getAccountDetails(String accountNumber) throws Exception {
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(BASE_URL + "/accounts/" + accountNumber))
-            .header("Authorization", "Bearer " + authToken)
-            .header("X-API-Key", apiKey)
-            .GET()
-            .build();
-            
-        HttpResponse<String> response = httpClient.send(request,
-            HttpResponse.BodyHandlers.ofString());
-            
-        if (response.statusCode() == 200) {
-            return objectMapper.readValue(response.body(), AccountDetailsResponse.class);
-        } else {
-            throw new RuntimeException("Failed to get account details: " + response.body());
-        }
+        return await(getAccountDetailsAsync(accountNumber));
+    }
+    
+    public CompletableFuture<AccountDetailsResponse> getAccountDetailsAsync(String accountNumber) {
+        return getAsync("/accounts/" + accountNumber,
+            AccountDetailsResponse.class, "Failed to get account details");
     }
     
     public List<Account> getAllAccounts() throws Exception {
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(BASE_URL + "/accounts"))
-            .header("Authorization", "Bearer " + authToken)
-            .header("X-API-Key", apiKey)
-            .GET()
-            .build();
-            
-        HttpResponse<String> response = httpClient.send(request,
-            HttpResponse.BodyHandlers.ofString());
-            
-        if (response.statusCode() == 200) {
-            AccountListResponse accountListResponse = objectMapper.readValue(
-                response.body(), AccountListResponse.class);
-            return accountListResponse.getAccounts();
-        } else {
-            throw new RuntimeException("Failed to get accounts: " + response.body());
-        }
+        return await(getAllAccountsAsync());
+    }
+    
+    public CompletableFuture<List<Account>> getAllAccountsAsync() {
+        return cachedAsync(ACCOUNTS_CACHE_KEY, () ->
+            getAsync("/accounts", ACCOUNTS_CACHE_KEY, AccountListResponse.class, "Failed to get accounts")
+                .thenApply(AccountListResponse::getAccounts));
     }
     
     // Balance Inquiry
     public BalanceResponse getBalance(String accountNumber) throws Exception {
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(BASE_URL + "/accounts/" + accountNumber + "/balance"))
-            .header("Authorization", "Bearer " + authToken)
-            .header("X-API-Key", apiKey)
-            .GET()
-            .build();
-            
-        HttpResponse<String> response = httpClient.send(request,
-            HttpResponse.BodyHandlers.ofString());
-            
-        if (response.statusCode() == 200) {
-            return objectMapper.readValue(response.body(), BalanceResponse.class);
-        } else {
-            throw new RuntimeException("Failed to get balance: " + response.body());
-        }
+        return await(getBalanceAsync(accountNumber));
+    }
+    
+    public CompletableFuture<BalanceResponse> getBalanceAsync(String accountNumber) {
+        return cachedAsync(balanceCacheKey(accountNumber), () ->
+            getAsync("/accounts/" + accountNumber + "/balance",
+                BalanceResponse.class, "Failed to get balance"));
     }
     
     // Transaction Operations
     public List<Transaction> getTransactionHistory(String accountNumber, 
             int limit, String fromDate, String toDate) throws Exception {
+        return await(getTransactionHistoryAsync(accountNumber, limit, fromDate, toDate));
+    }
+    
+    public CompletableFuture<List<Transaction>> getTransactionHistoryAsync(String accountNumber,
+            int limit, String fromDate, String toDate) {
+        TransactionRangeIndex index = transactionIndex;
+        if (index != null && accountNumber != null && fromDate != null && toDate != null) {
+            try {
+                LocalDate from = LocalDate.parse(fromDate);
+                LocalDate to = LocalDate.parse(toDate);
+                // a reversed range is left to the bank, as without the index
+                if (!from.isAfter(to)) {
+                    return index.queryAsync(accountNumber, from, to, limit, this::fetchTransactionRangeAsync);
+                }
+            } catch (DateTimeParseException e) {
+                // not an ISO date range the index can serve; ask the bank
+            }
+        }
         
-        String url = String.format("%s/accounts/%s/transactions?limit=%d&from=%s&to=%s",
-            BASE_URL, accountNumber, limit, fromDate, toDate);
-            
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(url))
-            .header("Authorization", "Bearer " + authToken)
-            .header("X-API-Key", apiKey)
-            .GET()
-            .build();
-            
-        HttpResponse<String> response = httpClient.send(request,
-            HttpResponse.BodyHandlers.ofString());
+        String path = String.format("/accounts/%s/transactions?limit=%d&from=%s&to=%s",
+            accountNumber, limit, fromDate, toDate);
             
-        if (response.statusCode() == 200) {
-            TransactionHistoryResponse transactionResponse = objectMapper.readValue(
-                response.body(), TransactionHistoryResponse.class);
-            return transactionResponse.getTransactions();
-        } else {
-            throw new RuntimeException("Failed to get transaction history: " + response.body());
+        return getAsync(path, TransactionHistoryResponse.class, "Failed to get transaction history")
+            .thenApply(TransactionHistoryResponse::getTransactions);
+    }
+    
+    // Every row of [from, to], following limit/offset pages until the bank
+    // has returned total_count rows (or a short page when it sends none)
+    private CompletableFuture<List<Transaction>> fetchTransactionRangeAsync(String accountNumber,
+            LocalDate from, LocalDate to) {
+        return fetchTransactionPagesAsync(accountNumber, from.toString(), to.toString(), 0, new ArrayList<>());
+    }
+    
+    private CompletableFuture<List<Transaction>> fetchTransactionPagesAsync(String accountNumber,
+            String fromDate, String toDate, int offset, List<Transaction> rows) {
+        String path = String.format("/accounts/%s/transactions?limit=%d&offset=%d&from=%s&to=%s",
+            accountNumber, INDEX_PAGE_SIZE, offset, fromDate, toDate);
+        return getAsync(path, TransactionHistoryResponse.class, "Failed to get transaction history")
+            .thenCompose(page -> {
+                List<Transaction> pageRows = page.getTransactions() == null ? List.of() : page.getTransactions();
+                rows.addAll(pageRows);
+                int next = offset + pageRows.size();
+                boolean more = page.getTotalCount() > 0
+                    ? !pageRows.isEmpty() && next < page.getTotalCount()
+                    : pageRows.size() == INDEX_PAGE_SIZE;
+                return more
+                    ? fetchTransactionPagesAsync(accountNumber, fromDate, toDate, next, rows)
+                    : CompletableFuture.completedFuture(rows);
+            });
+    }
+    
+    // Streams the whole range page by page. Each page is requested with
+    // limit/offset and parsed row by row from the response InputStream, and the
+    // next page is prefetched while the current one is consumed, so memory stays
+    // at roughly one page regardless of how long the statement is.
+    // Close the stream (try-with-resources) if it is not fully consumed.
+    public Stream<Transaction> streamTransactionHistory(String accountNumber,
+            int pageSize, String fromDate, String toDate) {
+        TransactionPageIterator iterator = iterateTransactionHistory(accountNumber, pageSize, fromDate, toDate);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(iterator::close);
+    }
+    
+    // Fetches the whole range page by page into a columnar TransactionBlock,
+    // parsing rows directly into its columns; for large sets that are
+    // aggregated or reconciled rather than handled row by row
+    public TransactionBlock fetchTransactionBlock(String accountNumber,
+            int pageSize, String fromDate, String toDate) {
+        TransactionBlock.Builder block = TransactionBlock.builder();
+        try (TransactionPageIterator iterator = iterateTransactionHistory(accountNumber, pageSize, fromDate, toDate)) {
+            iterator.drainTo(block);
+        }
+        return block.build();
+    }
+    
+    public TransactionPageIterator iterateTransactionHistory(String accountNumber,
+            int pageSize, String fromDate, String toDate) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be at least 1");
         }
+        return new TransactionPageIterator(codec, offset ->
+            getTransactionPageAsync(accountNumber, pageSize, offset, fromDate, toDate), pageSize);
+    }
+    
+    CompletableFuture<HttpResponse<InputStream>> getTransactionPageAsync(String accountNumber,
+            int limit, int offset, String fromDate, String toDate) {
+        String path = String.format("/accounts/%s/transactions?limit=%d&offset=%d&from=%s&to=%s",
+            accountNumber, limit, offset, fromDate, toDate);
+            
+        return authorizedRequest(path)
+            .thenCompose(request -> exchangeAsync(request.GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream()))
+            .thenApply(response -> {
+                if (response.statusCode() != 200) {
+                    String body;
+                    try (InputStream in = ContentEncoding.decoding(response.headers(), response.body())) {
+                        body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    throw new ICICIBankingException("Failed to get transaction history",
+                        response.statusCode(), body);
+                }
+                return response;
+            });
     }
     
     // Fund Transfer
     public TransferResponse transferFunds(TransferRequest transferRequest) throws Exception {
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(BASE_URL + "/transfers"))
-            .header("Content-Type", "application/json")
-            .header("Authorization", "Bearer " + authToken)
-            .header("X-API-Key", apiKey)
-            .POST(HttpRequest.BodyPublishers.ofString(
-                objectMapper.writeValueAsString(transferRequest)))
-            .build();
-            
-        HttpResponse<String> response = httpClient.send(request,
-            HttpResponse.BodyHandlers.ofString());
-            
-        if (response.statusCode() == 200) {
-            return objectMapper.readValue(response.body(), TransferResponse.class);
-        } else {
-            throw new RuntimeException("Fund transfer failed: " + response.body());
-        }
+        return await(transferFundsAsync(transferRequest));
+    }
+    
+    public CompletableFuture<TransferResponse> transferFundsAsync(TransferRequest transferRequest) {
+        return transferFundsAsync(transferRequest, null);
+    }
+    
+    // The idempotency key is sent as the Idempotency-Key header; the bank
+    // returns the original result for a repeated key instead of paying twice
+    public TransferResponse transferFunds(TransferRequest transferRequest, String idempotencyKey) throws Exception {
+        return await(transferFundsAsync(transferRequest, idempotencyKey));
+    }
+    
+    public CompletableFuture<TransferResponse> transferFundsAsync(TransferRequest transferRequest,
+            String idempotencyKey) {
+        return journaledAsync(IdempotencyJournal.TRANSFER, transferRequest, idempotencyKey,
+            key -> sendTransferAsync(transferRequest, key));
+    }
+    
+    private CompletableFuture<TransferResponse> sendTransferAsync(TransferRequest transferRequest,
+            String idempotencyKey) {
+        return postAsync("/transfers", transferRequest, idempotencyKey, 200,
+            TransferResponse.class, "Fund transfer failed")
+            .thenApply(response -> invalidate(response,
+                balanceCacheKey(transferRequest.getFromAccount()),
+                balanceCacheKey(transferRequest.getToAccount())));
     }
     
     // Bill Payment
     public PaymentResponse payBill(BillPaymentRequest billPaymentRequest) throws Exception {
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(BASE_URL + "/payments/bills"))
-            .header("Content-Type", "application/json")
-            .header("Authorization", "Bearer " + authToken)
-            .header("X-API-Key", apiKey)
-            .POST(HttpRequest.BodyPublishers.ofString(
-                objectMapper.writeValueAsString(billPaymentRequest)))
-            .build();
-            
-        HttpResponse<String> response = httpClient.send(request,
-            HttpResponse.BodyHandlers.ofString());
-            
-        if (response.statusCode() == 200) {
-            return objectMapper.readValue(response.body(), PaymentResponse.class);
-        } else {
-            throw new RuntimeException("Bill payment failed: " + response.body());
+        return await(payBillAsync(billPaymentRequest));
+    }
+    
+    public CompletableFuture<PaymentResponse> payBillAsync(BillPaymentRequest billPaymentRequest) {
+        return payBillAsync(billPaymentRequest, null);
+    }
+    
+    public PaymentResponse payBill(BillPaymentRequest billPaymentRequest, String idempotencyKey) throws Exception {
+        return await(payBillAsync(billPaymentRequest, idempotencyKey));
+    }
+    
+    public CompletableFuture<PaymentResponse> payBillAsync(BillPaymentRequest billPaymentRequest,
+            String idempotencyKey) {
+        return journaledAsync(IdempotencyJournal.BILL_PAYMENT, billPaymentRequest, idempotencyKey,
+            key -> sendBillPaymentAsync(billPaymentRequest, key));
+    }
+    
+    private CompletableFuture<PaymentResponse> sendBillPaymentAsync(BillPaymentRequest billPaymentRequest,
+            String idempotencyKey) {
+        return postAsync("/payments/bills", billPaymentRequest, idempotencyKey, 200,
+            PaymentResponse.class, "Bill payment failed")
+            .thenApply(response -> invalidate(response,
+                balanceCacheKey(billPaymentRequest.getAccountNumber())));
+    }
+    
+    // Payment Journal
+    // With a journal enabled every transfer and bill payment gets an
+    // idempotency key (generated unless the caller passes one), and its intent
+    // is fsynced to the journal before the request is sent. A response or a
+    // definitive 4xx rejection resolves the intent; anything else (timeout,
+    // connection loss, 5xx) leaves it pending for recoverPendingPayments.
+    public void enableIdempotencyJournal(IdempotencyJournal journal) {
+        this.journal = journal;
+    }
+    
+    public BulkResult<Object> recoverPendingPayments() throws Exception {
+        return await(recoverPendingPaymentsAsync());
+    }
+    
+    // Resolves every pending intent by asking the bank for the outcome under
+    // its idempotency key (GET /transfers/{key}, GET /payments/bills/{key}); if
+    // the bank has never seen the key the original request is sent again with
+    // the same key. Results and failures are keyed by idempotency key.
+    public CompletableFuture<BulkResult<Object>> recoverPendingPaymentsAsync() {
+        IdempotencyJournal current = journal;
+        if (current == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("No idempotency journal enabled"));
+        }
+        Map<String, JournalIntent> intents = new LinkedHashMap<>();
+        for (JournalIntent intent : current.getPendingIntents()) {
+            intents.put(intent.getIdempotencyKey(), intent);
         }
+        return BulkFanOut.run(intents.keySet(), bulkConcurrency,
+            key -> recoverAsync(current, intents.get(key)));
+    }
+    
+    private <T> CompletableFuture<T> journaledAsync(String operation, Object request, String idempotencyKey,
+            Function<String, CompletableFuture<T>> send) {
+        IdempotencyJournal current = journal;
+        if (current == null) {
+            return send.apply(idempotencyKey);
+        }
+        String key = idempotencyKey != null ? idempotencyKey : UUID.randomUUID().toString();
+        return current.recordIntent(key, operation, request)
+            .thenCompose(durable -> resolveIntent(current, key, send.apply(key)));
+    }
+    
+    private CompletableFuture<Object> recoverAsync(IdempotencyJournal current, JournalIntent intent) {
+        boolean transfer = IdempotencyJournal.TRANSFER.equals(intent.getOperation());
+        String path = (transfer ? "/transfers/" : "/payments/bills/") + intent.getIdempotencyKey();
+        Class<?> responseType = transfer ? TransferResponse.class : PaymentResponse.class;
+        
+        return getAsync(path, responseType, "Failed to get payment status")
+            .<Object>thenApply(response -> {
+                current.recordCompleted(intent.getIdempotencyKey(), response);
+                return response;
+            })
+            .exceptionally(error -> {
+                Throwable cause = unwrap(error);
+                if (cause instanceof ICICIBankingException
+                        && ((ICICIBankingException) cause).getStatusCode() == 404) {
+                    return null;
+                }
+                throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(cause);
+            })
+            .thenCompose(found -> {
+                if (found != null) {
+                    return CompletableFuture.completedFuture(found);
+                }
+                // The bank never received it; resending under the same key is safe
+                String key = intent.getIdempotencyKey();
+                try {
+                    CompletableFuture<?> resend = transfer
+                        ? sendTransferAsync(codec.objectMapper().treeToValue(intent.getRequest(), TransferRequest.class), key)
+                        : sendBillPaymentAsync(codec.objectMapper().treeToValue(intent.getRequest(), BillPaymentRequest.class), key);
+                    return resolveIntent(current, key, resend.thenApply(response -> (Object) response));
+                } catch (JsonProcessingException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            });
+    }
+    
+    // Records the outcome of a journaled call. The completion record is not
+    // waited for: if it is lost in a crash, recovery finds the payment at the bank.
+    private <T> CompletableFuture<T> resolveIntent(IdempotencyJournal current, String key, CompletableFuture<T> call) {
+        return call.whenComplete((response, error) -> {
+            if (error == null) {
+                current.recordCompleted(key, response);
+                return;
+            }
+            Throwable cause = unwrap(error);
+            if (cause instanceof ICICIBankingException) {
+                int status = ((ICICIBankingException) cause).getStatusCode();
+                if (status >= 400 && status < 500 && status != 408 && status != 409 && status != 429) {
+                    current.recordRejected(key, cause.getMessage());
+                }
+            }
+        });
     }
     
     // Beneficiary Management
     public BeneficiaryResponse addBeneficiary(BeneficiaryRequest beneficiaryRequest) throws Exception {
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(BASE_URL + "/beneficiaries"))
-            .header("Content-Type", "application/json")
-            .header("Authorization", "Bearer " + authToken)
-            .header("X-API-Key", apiKey)
-            .POST(HttpRequest.BodyPublishers.ofString(
-                objectMapper.writeValueAsString(beneficiaryRequest)))
-            .build();
-            
-        HttpResponse<String> response = httpClient.send(request,
-            HttpResponse.BodyHandlers.ofString());
-            
-        if (response.statusCode() == 201) {
-            return objectMapper.readValue(response.body(), BeneficiaryResponse.class);
-        } else {
-            throw new RuntimeException("Failed to add beneficiary: " + response.body());
-        }
+        return await(addBeneficiaryAsync(beneficiaryRequest));
+    }
+    
+    public CompletableFuture<BeneficiaryResponse> addBeneficiaryAsync(BeneficiaryRequest beneficiaryRequest) {
+        return postAsync("/beneficiaries", beneficiaryRequest, 201,
+            BeneficiaryResponse.class, "Failed to add beneficiary")
+            .thenApply(response -> invalidate(response, BENEFICIARIES_CACHE_KEY));
     }
     
     public List<Beneficiary> getBeneficiaries() throws Exception {
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(BASE_URL + "/beneficiaries"))
-            .header("Authorization", "Bearer " + authToken)
-            .header("X-API-Key", apiKey)
-            .GET()
-            .build();
-            
-        HttpResponse<String> response = httpClient.send(request,
-            HttpResponse.BodyHandlers.ofString());
-            
-        if (response.statusCode() == 200) {
-            BeneficiaryListResponse beneficiaryListResponse = objectMapper.readValue(
-                response.body(), BeneficiaryListResponse.class);
-            return beneficiaryListResponse.getBeneficiaries();
-        } else {
-            throw new RuntimeException("Failed to get beneficiaries: " + response.body());
+        return await(getBeneficiariesAsync());
+    }
+    
+    public CompletableFuture<List<Beneficiary>> getBeneficiariesAsync() {
+        return cachedAsync(BENEFICIARIES_CACHE_KEY, () ->
+            getAsync("/beneficiaries", BENEFICIARIES_CACHE_KEY, BeneficiaryListResponse.class,
+                "Failed to get beneficiaries")
+                .thenApply(BeneficiaryListResponse::getBeneficiaries));
+    }
+    
+    // Bulk Operations
+    // Each account is fetched independently over the shared HttpClient with at
+    // most bulkConcurrency requests in flight; a failing account is recorded in
+    // BulkResult.getFailures() and does not abort the rest of the batch.
+    public void setBulkConcurrency(int bulkConcurrency) {
+        if (bulkConcurrency < 1) {
+            throw new IllegalArgumentException("bulkConcurrency must be at least 1");
         }
+        this.bulkConcurrency = bulkConcurrency;
+    }
+    
+    public int getBulkConcurrency() { return bulkConcurrency; }
+    
+    public BulkResult<BalanceResponse> getBalances(Collection<String> accountNumbers) throws Exception {
+        return await(getBalancesAsync(accountNumbers));
+    }
+    
+    public CompletableFuture<BulkResult<BalanceResponse>> getBalancesAsync(Collection<String> accountNumbers) {
+        return BulkFanOut.run(accountNumbers, bulkConcurrency, this::getBalanceAsync);
+    }
+    
+    public BulkResult<AccountDetailsResponse> getAccountDetails(Collection<String> accountNumbers) throws Exception {
+        return await(getAccountDetailsAsync(accountNumbers));
+    }
+    
+    public CompletableFuture<BulkResult<AccountDetailsResponse>> getAccountDetailsAsync(
+            Collection<String> accountNumbers) {
+        return BulkFanOut.run(accountNumbers, bulkConcurrency, this::getAccountDetailsAsync);
     }
     
     // Utility method to logout
     public void logout() throws Exception {
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(BASE_URL + "/auth/logout"))
-            .header("Authorization", "Bearer " + authToken)
-            .header("X-API-Key", apiKey)
-            .POST(HttpRequest.BodyPublishers.noBody())
-            .build();
+        await(logoutAsync());
+    }
+    
+    public CompletableFuture<Void> logoutAsync() {
+        return authorizedRequest("/auth/logout")
+            .thenCompose(request -> exchangeAsync(
+                request.POST(HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.ofByteArray()))
+            .thenAccept(response -> {
+                if (response.statusCode() != 200) {
+                    throw new ICICIBankingException("Logout failed", response.statusCode(),
+                        ContentEncoding.text(response.headers(), response.body()));
+                }
+                login = null;
+                tokenManager.clear();
+            });
+    }
+    
+    // Response Caching
+    // Optional read-through cache for getBalance, getAllAccounts and
+    // getBeneficiaries. Entries expire after ttl, the least recently used entry
+    // is evicted beyond maxEntries, and a successful transferFunds, payBill or
+    // addBeneficiary drops the entries it affects.
+    public void enableCache(Duration ttl, int maxEntries) {
+        this.responseCache = new TtlCache(ttl, maxEntries);
+    }
+    
+    public void disableCache() {
+        this.responseCache = null;
+    }
+    
+    public CacheStats getCacheStats() {
+        TtlCache cache = responseCache;
+        return cache == null ? new CacheStats(0, 0, 0, 0) : cache.stats();
+    }
+    
+    public void invalidateCache() {
+        TtlCache cache = responseCache;
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> cachedAsync(String key, Supplier<CompletableFuture<T>> loader) {
+        TtlCache cache = responseCache;
+        if (cache == null) {
+            return loader.get();
+        }
+        // A write that invalidates while this load is in flight bumps the
+        // version, so the possibly stale result is returned but not cached
+        long version = cache.version();
+        Object cached = cache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture((T) cached);
+        }
+        return loader.get().thenApply(value -> {
+            cache.putIfVersion(key, value, version);
+            return value;
+        });
+    }
+    
+    private <T> T invalidate(T response, String... keys) {
+        writeGeneration.incrementAndGet();
+        for (String key : keys) {
+            validators.remove(key);
+        }
+        TtlCache cache = responseCache;
+        if (cache != null) {
+            for (String key : keys) {
+                cache.invalidate(key);
+            }
+        }
+        return response;
+    }
+    
+    // Request Coalescing
+    // On by default: a GET issued while an identical one (same path and query)
+    // is still in flight on this instance - i.e. for this tenant, since every
+    // tenant of an ICICIBankingTenantPool has its own - waits for that
+    // exchange instead of sending its own, and gets the same parsed response
+    // object (treat it as read-only). Nothing outlives the exchange, and a GET
+    // that starts after a transfer, bill payment or new beneficiary has
+    // completed never joins an exchange sent before it. Streamed transaction
+    // pages are not coalesced.
+    public void setRequestCoalescing(boolean enabled) {
+        this.requestCoalescing = enabled;
+    }
+    
+    public boolean isRequestCoalescing() { return requestCoalescing; }
+    
+    // GETs answered by another caller's exchange
+    public long getCoalescedRequestCount() {
+        return coalescedGets.sum();
+    }
+    
+    // Conditional Requests
+    // On by default: getAllAccounts and getBeneficiaries keep the ETag and
+    // Last-Modified of their last response together with its parsed object,
+    // send them back as If-None-Match/If-Modified-Since, and on a 304 return
+    // that same object without downloading or parsing anything. A write that
+    // changes a list (addBeneficiary) drops its validators. Unlike enableCache
+    // every call still asks the bank, so nothing is served stale.
+    public void setConditionalRequests(boolean enabled) {
+        this.conditionalRequests = enabled;
+        if (!enabled) {
+            validators.clear();
+        }
+    }
+    
+    public boolean isConditionalRequests() { return conditionalRequests; }
+    
+    // Calls answered with 304 Not Modified from the remembered response
+    public long getNotModifiedCount() {
+        return notModifiedResponses.sum();
+    }
+    
+    // Compression
+    // On by default, requests ask for gzip or deflate and compressed responses
+    // are inflated as a stream straight into the JSON parser (row by row for
+    // streamed statements), never into an intermediate buffer or String.
+    // Request bodies are sent as they are unless enableRequestCompression is
+    // called: then POST bodies of at least minimumBytes are gzipped with
+    // Content-Encoding: gzip, which the bank must accept.
+    public void setResponseCompression(boolean enabled) {
+        this.responseCompression = enabled;
+    }
+    
+    public boolean isResponseCompression() { return responseCompression; }
+    
+    public void enableRequestCompression(int minimumBytes) {
+        if (minimumBytes < 0) {
+            throw new IllegalArgumentException("minimumBytes must not be negative");
+        }
+        this.requestCompressionThreshold = minimumBytes;
+    }
+    
+    public void disableRequestCompression() {
+        this.requestCompressionThreshold = -1;
+    }
+    
+    // Transaction Index
+    // With an index enabled, getTransactionHistory answers from memory for
+    // date ranges it has already fetched and only requests the uncovered days
+    // (each fetched in full), returning rows oldest first. Ranges that are not
+    // ISO yyyy-MM-dd dates still go straight to the bank.
+    public void enableTransactionIndex(TransactionRangeIndex index) {
+        this.transactionIndex = index;
+    }
+    
+    public void disableTransactionIndex() {
+        this.transactionIndex = null;
+    }
+    
+    public TransactionRangeIndex getTransactionIndex() { return transactionIndex; }
+    
+    private static String balanceCacheKey(String accountNumber) {
+        return "balance:" + accountNumber;
+    }
+    
+    // Client-side Throttling
+    // Limits calls to one endpoint ("POST /transfers", "POST /payments/bills",
+    // "GET /accounts/*/balance", ...) to permitsPerSecond with the given burst
+    // (<= 0 for no rate limit) and at most maxConcurrency calls in flight. The
+    // concurrency limit starts at maxConcurrency and adapts: it is cut when the
+    // bank answers 429/503, times out or slows down, and grows back on success.
+    // Limits are shared by every caller of this instance.
+    public void setEndpointLimit(String endpoint, double permitsPerSecond, int burst, int maxConcurrency) {
+        endpointLimiters.put(endpoint,
+            new EndpointLimiter(endpoint, permitsPerSecond, burst, maxConcurrency, 1, maxConcurrency));
+    }
+    
+    public void removeEndpointLimit(String endpoint) {
+        endpointLimiters.remove(endpoint);
+    }
+    
+    public List<EndpointLimitStats> getEndpointLimitStats() {
+        List<EndpointLimitStats> stats = new ArrayList<>();
+        for (EndpointLimiter limiter : endpointLimiters.values()) {
+            stats.add(limiter.stats());
+        }
+        return stats;
+    }
+    
+    // Resilience
+    // GETs are retried with the default policy (3 attempts, jittered
+    // exponential backoff) unless an endpoint has its own; POSTs are retried
+    // only when they carry an idempotency key. Pass RetryPolicy.NONE to turn
+    // retries off.
+    public void setDefaultRetryPolicy(RetryPolicy retryPolicy) {
+        this.defaultRetryPolicy = retryPolicy;
+    }
+    
+    public void setRetryPolicy(String endpoint, RetryPolicy retryPolicy) {
+        retryPolicies.put(endpoint, retryPolicy);
+    }
+    
+    // Opens an endpoint's breaker after failureThreshold consecutive failures
+    // (IO errors, 5xx, 429) and fails its calls fast for openDuration
+    public void enableCircuitBreakers(int failureThreshold, Duration openDuration) {
+        circuitBreakers.clear();
+        this.circuitBreakerOpenDuration = openDuration;
+        this.circuitBreakerThreshold = failureThreshold;
+    }
+    
+    public void disableCircuitBreakers() {
+        this.circuitBreakerThreshold = 0;
+        circuitBreakers.clear();
+    }
+    
+    // Sends a second copy of a GET that has not answered within the endpoint's
+    // observed p95 latency (but never sooner than minimumDelay) and uses
+    // whichever response arrives first
+    public void enableHedging(Duration minimumDelay) {
+        this.minimumHedgeDelayNanos = minimumDelay.toNanos();
+    }
+    
+    public void disableHedging() {
+        this.minimumHedgeDelayNanos = -1;
+        latencyTrackers.clear();
+    }
+    
+    // Instrumentation
+    // Records every exchange (phase timings, status, bytes) and every decoded
+    // body per endpoint. Independently of this, the icici.ApiExchange and
+    // icici.JsonDecode Flight Recorder events are emitted whenever a JFR
+    // recording enables them. With neither on, calls are not timed at all.
+    public void enableMetrics() {
+        this.metrics = new EndpointMetrics();
+    }
+    
+    public void setMetrics(ApiMetrics metrics) {
+        this.metrics = metrics;
+    }
+    
+    public void disableMetrics() {
+        this.metrics = null;
+    }
+    
+    public ApiMetrics getMetrics() { return metrics; }
+    
+    // Per-endpoint snapshot when the built-in metrics are enabled
+    public List<EndpointCallStats> getEndpointCallStats() {
+        ApiMetrics current = metrics;
+        return current instanceof EndpointMetrics ? ((EndpointMetrics) current).snapshot() : List.of();
+    }
+    
+    // Request plumbing shared by the sync and async methods
+    
+    // Completes immediately with the current token unless it has already
+    // expired, in which case the request waits on the shared refresh
+    private CompletableFuture<HttpRequest.Builder> authorizedRequest(String path) {
+        return tokenManager.accessTokenAsync().thenApply(token -> newRequest(path, token));
+    }
+    
+    HttpRequest.Builder newRequest(String path, String accessToken) {
+        HttpRequest.Builder builder = requestTo(path)
+            .header("Authorization", "Bearer " + accessToken)
+            .header("X-API-Key", apiKey);
+        if (responseCompression) {
+            builder.header("Accept-Encoding", ContentEncoding.ACCEPT);
+        }
+        return builder;
+    }
+    
+    // Carries the transport's read timeout on the request itself, so the
+    // transport sends it as built
+    private HttpRequest.Builder requestTo(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().uri(URI.create(baseUrl + path));
+        if (requestTimeout != null) {
+            builder.timeout(requestTimeout);
+        }
+        return builder;
+    }
+    
+    private <T> CompletableFuture<T> getAsync(String path, Class<T> responseType, String failureMessage) {
+        return getAsync(path, null, responseType, failureMessage);
+    }
+    
+    // With a validatorKey the GET is conditional on the validators stored
+    // under it (see setConditionalRequests)
+    private <T> CompletableFuture<T> getAsync(String path, String validatorKey, Class<T> responseType,
+            String failureMessage) {
+        if (!requestCoalescing) {
+            return fetchAsync(path, validatorKey, responseType, failureMessage);
+        }
+        // Join the in-flight exchange for path unless a write has completed
+        // since it was sent; each caller gets its own dependent future, so
+        // one caller cancelling does not cancel the others
+        long generation = writeGeneration.get();
+        InFlightGet candidate = new InFlightGet(generation);
+        InFlightGet call = inFlightGets.compute(path, (key, current) ->
+            current != null && current.generation == generation ? current : candidate);
+        if (call != candidate) {
+            coalescedGets.increment();
+            return call.result.thenApply(responseType::cast);
+        }
+        fetchAsync(path, validatorKey, responseType, failureMessage).whenComplete((value, error) -> {
+            // later callers start a fresh exchange
+            inFlightGets.remove(path, candidate);
+            if (error != null) {
+                candidate.result.completeExceptionally(error);
+            } else {
+                candidate.result.complete(value);
+            }
+        });
+        return candidate.result.thenApply(responseType::cast);
+    }
+    
+    private <T> CompletableFuture<T> fetchAsync(String path, String validatorKey, Class<T> responseType,
+            String failureMessage) {
+        if (validatorKey == null || !conditionalRequests) {
+            return authorizedRequest(path)
+                .thenCompose(request -> sendAsync(request.GET().build(), 200, responseType, failureMessage));
+        }
+        Validated previous = validators.get(validatorKey);
+        long generation = writeGeneration.get();
+        return authorizedRequest(path).thenCompose(builder -> {
+            if (previous != null) {
+                previous.addConditions(builder);
+            }
+            HttpRequest request = builder.GET().build();
+            String endpoint = endpointOf(request);
+            return exchangeAsync(request, endpoint, HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+                if (response.statusCode() == 304 && previous != null) {
+                    notModifiedResponses.increment();
+                    return responseType.cast(previous.value);
+                }
+                T value = readResponse(endpoint, response, 200, responseType, failureMessage);
+                Validated current = Validated.of(response.headers(), value);
+                if (current == null) {
+                    validators.remove(validatorKey);
+                } else if (writeGeneration.get() == generation) {
+                    // a write that completed meanwhile may have changed the list
+                    validators.put(validatorKey, current);
+                }
+                return value;
+            });
+        });
+    }
+    
+    // The validators of a cacheable response and the object it was parsed to
+    private static final class Validated {
+        final String entityTag;
+        final String lastModified;
+        final Object value;
+        
+        private Validated(String entityTag, String lastModified, Object value) {
+            this.entityTag = entityTag;
+            this.lastModified = lastModified;
+            this.value = value;
+        }
+        
+        static Validated of(HttpHeaders headers, Object value) {
+            String entityTag = headers.firstValue("ETag").orElse(null);
+            String lastModified = headers.firstValue("Last-Modified").orElse(null);
+            return entityTag == null && lastModified == null ? null : new Validated(entityTag, lastModified, value);
+        }
+        
+        void addConditions(HttpRequest.Builder request) {
+            if (entityTag != null) {
+                request.header("If-None-Match", entityTag);
+            }
+            if (lastModified != null) {
+                request.header("If-Modified-Since", lastModified);
+            }
+        }
+    }
+    
+    private static final class InFlightGet {
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        final long generation;
+        
+        InFlightGet(long generation) {
+            this.generation = generation;
+        }
+    }
+    
+    private <T> CompletableFuture<T> postAsync(String path, Object body, int expectedStatus,
+            Class<T> responseType, String failureMessage) {
+        return postAsync(path, body, null, expectedStatus, responseType, failureMessage);
+    }
+    
+    private <T> CompletableFuture<T> postAsync(String path, Object body, String idempotencyKey,
+            int expectedStatus, Class<T> responseType, String failureMessage) {
+        return authorizedRequest(path)
+            .thenCompose(request -> {
+                if (idempotencyKey != null) {
+                    request.header(IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+                }
+                return sendJsonAsync(request, body, expectedStatus, responseType, failureMessage);
+            });
+    }
+    
+    private <T> CompletableFuture<T> sendJsonAsync(HttpRequest.Builder builder, Object body,
+            int expectedStatus, Class<T> responseType, String failureMessage) {
+        HttpRequest request;
+        try {
+            byte[] json = codec.encode(body);
+            int threshold = requestCompressionThreshold;
+            if (threshold >= 0 && json.length >= threshold) {
+                json = ContentEncoding.gzip(json);
+                builder.header("Content-Encoding", "gzip");
+            }
+            request = builder
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(json))
+                .build();
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return sendAsync(request, expectedStatus, responseType, failureMessage);
+    }
+    
+    private <T> CompletableFuture<T> sendAsync(HttpRequest request, int expectedStatus,
+            Class<T> responseType, String failureMessage) {
+        String endpoint = endpointOf(request);
+        return exchangeAsync(request, endpoint, HttpResponse.BodyHandlers.ofByteArray())
+            .thenApply(response -> readResponse(endpoint, response, expectedStatus, responseType, failureMessage));
+    }
+    
+    private <T> T readResponse(String endpoint, HttpResponse<byte[]> response, int expectedStatus,
+            Class<T> responseType, String failureMessage) {
+        if (response.statusCode() != expectedStatus) {
+            throw new ICICIBankingException(failureMessage, response.statusCode(),
+                ContentEncoding.text(response.headers(), response.body()));
+        }
+        try {
+            return decode(endpoint, response, responseType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    // Decode time includes inflating a compressed body; the byte counts
+    // reported are the bytes as received
+    private <T> T decode(String endpoint, HttpResponse<byte[]> response, Class<T> responseType)
+            throws IOException {
+        byte[] body = response.body();
+        ApiMetrics current = metrics;
+        JsonDecodeEvent event = JsonDecodeEvent.isRecording() ? new JsonDecodeEvent() : null;
+        if (current == null && event == null) {
+            return decodeBody(response, responseType);
+        }
+        if (event != null) {
+            event.begin();
+        }
+        long start = System.nanoTime();
+        T value = decodeBody(response, responseType);
+        long decodeNanos = System.nanoTime() - start;
+        if (current != null) {
+            current.bodyDecoded(endpoint, decodeNanos, body.length);
+        }
+        if (event != null) {
+            event.end();
+        }
+        if (event != null && event.shouldCommit()) {
+            event.endpoint = endpoint;
+            event.type = responseType.getSimpleName();
+            event.bytes = body.length;
+            event.commit();
+        }
+        return value;
+    }
+    
+    private <T> T decodeBody(HttpResponse<byte[]> response, Class<T> responseType) throws IOException {
+        if (!ContentEncoding.isEncoded(response.headers())) {
+            return codec.decode(response.body(), responseType);
+        }
+        try (InputStream body = ContentEncoding.decoding(response.headers(), response.body())) {
+            return codec.decode(body, responseType);
+        }
+    }
+    
+    // Every request goes out through here. GETs, and POSTs that carry an
+    // idempotency key, are retried per the endpoint's RetryPolicy on IO errors
+    // and 429/502/503/504; each attempt passes the circuit breaker, may be
+    // hedged, and waits for the endpoint's limiter.
+    private <T> CompletableFuture<HttpResponse<T>> exchangeAsync(HttpRequest request,
+            HttpResponse.BodyHandler<T> bodyHandler) {
+        return exchangeAsync(request, endpointOf(request), bodyHandler);
+    }
+    
+    // endpoint is endpointOf(request), for callers that also need it to
+    // decode the response
+    private <T> CompletableFuture<HttpResponse<T>> exchangeAsync(HttpRequest request, String endpoint,
+            HttpResponse.BodyHandler<T> bodyHandler) {
+        boolean idempotent = request.method().equals("GET")
+            || request.headers().firstValue(IDEMPOTENCY_KEY_HEADER).isPresent();
+        RetryPolicy policy = idempotent ? retryPolicies.getOrDefault(endpoint, defaultRetryPolicy) : RetryPolicy.NONE;
+        return attemptAsync(request, bodyHandler, endpoint, policy, 0);
+    }
+    
+    private <T> CompletableFuture<HttpResponse<T>> attemptAsync(HttpRequest request,
+            HttpResponse.BodyHandler<T> bodyHandler, String endpoint, RetryPolicy policy, int attempt) {
+        CircuitBreaker breaker = circuitBreakerFor(endpoint);
+        long permit = breaker == null ? CircuitBreaker.ADMITTED : breaker.allowRequest();
+        if (permit == CircuitBreaker.REJECTED) {
+            return CompletableFuture.failedFuture(breaker.rejection());
+        }
+        long hedgeDelay = hedgeDelayNanos(request, endpoint);
+        CompletableFuture<HttpResponse<T>> call = hedgeDelay > 0
+            ? hedgedSendAsync(request, bodyHandler, endpoint, hedgeDelay)
+            : limitedSendAsync(request, bodyHandler, endpoint);
             
-        HttpResponse<String> response = httpClient.send(request,
-            HttpResponse.BodyHandlers.ofString());
+        return call.handle((response, error) -> {
+            Throwable cause = unwrap(error);
+            int status = response == null ? 0 : response.statusCode();
+            boolean failed = cause != null || status >= 500 || status == 429;
+            if (breaker != null) {
+                if (failed) {
+                    breaker.onFailure(permit);
+                } else {
+                    breaker.onSuccess(permit);
+                }
+            }
+            boolean retry = attempt + 1 < policy.getMaxAttempts()
+                && (cause == null ? RetryPolicy.isRetryableStatus(status) : cause instanceof IOException);
+            if (!retry) {
+                return cause == null
+                    ? CompletableFuture.completedFuture(response)
+                    : CompletableFuture.<HttpResponse<T>>failedFuture(cause);
+            }
+            discardBody(response);
+            Executor delay = CompletableFuture.delayedExecutor(
+                policy.delayNanos(attempt, response), TimeUnit.NANOSECONDS);
+            return CompletableFuture.runAsync(() -> { }, delay)
+                .thenCompose(ignored -> attemptAsync(request, bodyHandler, endpoint, policy, attempt + 1));
+        }).thenCompose(Function.identity());
+    }
+    
+    // Sends the request and, if no response has arrived after hedgeDelayNanos,
+    // a second copy; the first response wins and the other one is discarded
+    private <T> CompletableFuture<HttpResponse<T>> hedgedSendAsync(HttpRequest request,
+            HttpResponse.BodyHandler<T> bodyHandler, String endpoint, long hedgeDelayNanos) {
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        BiConsumer<HttpResponse<T>, Throwable> settle = (response, error) -> {
+            if (error == null) {
+                if (!result.complete(response)) {
+                    discardBody(response);
+                }
+            } else if (outstanding.decrementAndGet() == 0) {
+                result.completeExceptionally(error);
+            }
+        };
+        limitedSendAsync(request, bodyHandler, endpoint).whenComplete(settle);
+        CompletableFuture.delayedExecutor(hedgeDelayNanos, TimeUnit.NANOSECONDS).execute(() -> {
+            if (!result.isDone()) {
+                outstanding.incrementAndGet();
+                limitedSendAsync(request, bodyHandler, endpoint).whenComplete(settle);
+            }
+        });
+        return result;
+    }
+    
+    private <T> CompletableFuture<HttpResponse<T>> limitedSendAsync(HttpRequest request,
+            HttpResponse.BodyHandler<T> bodyHandler, String endpoint) {
+        EndpointLimiter limiter = endpointLimiters.isEmpty() ? null : endpointLimiters.get(endpoint);
+        LatencyTracker tracker = minimumHedgeDelayNanos < 0 ? null
+            : latencyTrackers.computeIfAbsent(endpoint, key -> new LatencyTracker());
+        ApiMetrics currentMetrics = metrics;
+        ExchangeTimer<T> timer = currentMetrics == null && !ApiExchangeEvent.isRecording() ? null
+            : new ExchangeTimer<>(endpoint, currentMetrics, bodyHandler);
+        if (limiter == null && tracker == null && timer == null) {
+            return transport.sendAsync(request, bodyHandler);
+        }
+        CompletableFuture<Void> permit = limiter == null ? CompletableFuture.completedFuture(null) : limiter.acquire();
+        return permit.thenCompose(ignored -> {
+            long start = System.nanoTime();
+            if (timer != null) {
+                timer.sending();
+            }
+            return transport.sendAsync(request, timer == null ? bodyHandler : timer).whenComplete((response, error) -> {
+                long latency = System.nanoTime() - start;
+                if (tracker != null && response != null) {
+                    tracker.record(latency);
+                }
+                if (limiter != null) {
+                    limiter.release(latency, response == null ? 0 : response.statusCode(), unwrap(error));
+                }
+                if (timer != null) {
+                    timer.finished(request, response, unwrap(error));
+                }
+            });
+        });
+    }
+    
+    private CircuitBreaker circuitBreakerFor(String endpoint) {
+        int threshold = circuitBreakerThreshold;
+        if (threshold <= 0) {
+            return null;
+        }
+        return circuitBreakers.computeIfAbsent(endpoint,
+            key -> new CircuitBreaker(key, threshold, circuitBreakerOpenDuration));
+    }
+    
+    private long hedgeDelayNanos(HttpRequest request, String endpoint) {
+        long minimum = minimumHedgeDelayNanos;
+        if (minimum < 0 || !request.method().equals("GET")) {
+            return -1;
+        }
+        LatencyTracker tracker = latencyTrackers.get(endpoint);
+        long p95 = tracker == null ? -1 : tracker.p95Nanos();
+        return p95 < 0 ? -1 : Math.max(p95, minimum);
+    }
+    
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+    
+    private static void discardBody(HttpResponse<?> response) {
+        if (response != null && response.body() instanceof InputStream) {
+            try {
+                ((InputStream) response.body()).close();
+            } catch (IOException ignored) {
+                // the connection is released either way
+            }
+        }
+    }
+    
+    // "METHOD /path" relative to the base URL, with account numbers and other
+    // ids replaced by *, e.g. "GET /accounts/*/balance"
+    String endpointOf(HttpRequest request) {
+        String path = request.uri().getPath();
+        return endpointNames.of(request.method(), path, path.startsWith(basePath) ? basePath.length() : 0);
+    }
+    
+    // Blocks for an async result and rethrows the original failure, so the
+    // sync methods surface the same exceptions they did with httpClient.send
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
+
+// Owns the access token of one ICICIBankingAPI. The token is published as an
+// immutable snapshot through a volatile field, so the request path reads it
+// without locking. Once a token is inside its refresh window the first caller
+// starts a refresh and keeps using the current token (the refresher gets the
+// refresh token, or null when the bank issued none and it must log in again);
+// every other caller that arrives meanwhile joins the same in-flight refresh
+// instead of starting its own. Only a token that has actually expired makes a
+// caller wait, and then it waits on that shared future rather than a lock.
+class TokenManager {
+    private static final Duration DEFAULT_REFRESH_AHEAD = Duration.ofSeconds(60);
+    private static final long REFRESH_RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+    
+    private final Function<String, CompletableFuture<AuthResponse>> refresher;
+    private final AtomicReference<CompletableFuture<TokenState>> refreshInFlight = new AtomicReference<>();
+    private volatile TokenState state = TokenState.NONE;
+    private volatile long refreshAheadNanos = DEFAULT_REFRESH_AHEAD.toNanos();
+    private volatile long nextRefreshAttempt = System.nanoTime();
+    
+    TokenManager(Function<String, CompletableFuture<AuthResponse>> refresher) {
+        this.refresher = refresher;
+    }
+    
+    void setRefreshAhead(Duration refreshAhead) {
+        if (refreshAhead.isNegative()) {
+            throw new IllegalArgumentException("refreshAhead must not be negative");
+        }
+        this.refreshAheadNanos = refreshAhead.toNanos();
+    }
+    
+    void update(AuthResponse authResponse) {
+        state = TokenState.from(authResponse, null, refreshAheadNanos);
+    }
+    
+    void clear() {
+        state = TokenState.NONE;
+    }
+    
+    CompletableFuture<String> accessTokenAsync() {
+        TokenState current = state;
+        if (!current.expires) {
+            return CompletableFuture.completedFuture(current.accessToken);
+        }
+        long now = System.nanoTime();
+        if (current.isExpired(now)) {
+            return refresh(current).thenApply(refreshed -> refreshed.accessToken);
+        }
+        if (current.isRefreshDue(now) && now - nextRefreshAttempt >= 0) {
+            // Background refresh; a failure is retried by a later call
+            refresh(current);
+        }
+        return CompletableFuture.completedFuture(current.accessToken);
+    }
+    
+    private CompletableFuture<TokenState> refresh(TokenState stale) {
+        while (true) {
+            CompletableFuture<TokenState> inFlight = refreshInFlight.get();
+            if (inFlight != null) {
+                return inFlight;
+            }
+            CompletableFuture<TokenState> refresh = new CompletableFuture<>();
+            if (!refreshInFlight.compareAndSet(null, refresh)) {
+                continue;
+            }
+            TokenState current = state;
+            if (current != stale) {
+                // Another refresh finished between reading the state and winning the CAS
+                refreshInFlight.set(null);
+                refresh.complete(current);
+                return refresh;
+            }
+            startRefresh(stale, refresh);
+            return refresh;
+        }
+    }
+    
+    private void startRefresh(TokenState stale, CompletableFuture<TokenState> refresh) {
+        CompletableFuture<AuthResponse> call;
+        try {
+            call = refresher.apply(stale.refreshToken);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        call.whenComplete((authResponse, error) -> {
+            if (error == null) {
+                state = TokenState.from(authResponse, stale.refreshToken, refreshAheadNanos);
+            } else {
+                nextRefreshAttempt = System.nanoTime() + REFRESH_RETRY_NANOS;
+            }
+            refreshInFlight.set(null);
+            if (error == null) {
+                refresh.complete(state);
+            } else {
+                refresh.completeExceptionally(error);
+            }
+        });
+    }
+    
+    private static final class TokenState {
+        static final TokenState NONE = new TokenState(null, null, false, 0, 0);
+        
+        final String accessToken;
+        final String refreshToken;
+        final boolean expires;
+        final long refreshAt;
+        final long expiresAt;
+        
+        private TokenState(String accessToken, String refreshToken, boolean expires,
+                long refreshAt, long expiresAt) {
+            this.accessToken = accessToken;
+            this.refreshToken = refreshToken;
+            this.expires = expires;
+            this.refreshAt = refreshAt;
+            this.expiresAt = expiresAt;
+        }
+        
+        // A response without expires_in never expires; one without a new
+        // refresh_token keeps using the previous one
+        static TokenState from(AuthResponse authResponse, String previousRefreshToken, long refreshAheadNanos) {
+            String refreshToken = authResponse.getRefreshToken() != null
+                ? authResponse.getRefreshToken() : previousRefreshToken;
+            if (authResponse.getExpiresIn() <= 0) {
+                return new TokenState(authResponse.getAccessToken(), refreshToken, false, 0, 0);
+            }
+            long now = System.nanoTime();
+            long lifetime = TimeUnit.SECONDS.toNanos(authResponse.getExpiresIn());
+            long ahead = Math.min(refreshAheadNanos, lifetime / 2);
+            return new TokenState(authResponse.getAccessToken(), refreshToken, true,
+                now + lifetime - ahead, now + lifetime);
+        }
+        
+        boolean isRefreshDue(long now) {
+            return expires && now - refreshAt >= 0;
+        }
+        
+        boolean isExpired(long now) {
+            return expires && now - expiresAt >= 0;
+        }
+    }
+}
+
+// Endpoint names by path template. A request's path is matched against the
+// names already seen segment by segment, * matching any segment, so naming
+// a request allocates nothing once its template is known; only a new
+// template builds its name. Names are kept copy-on-write, up to MAX_NAMES.
+class EndpointNames {
+    private static final int MAX_NAMES = 256;
+    
+    private volatile String[] names = new String[0];
+    
+    // The name of method on path[start..]
+    String of(String method, String path, int start) {
+        for (String name : names) {
+            if (matches(name, method, path, start)) {
+                return name;
+            }
+        }
+        String name = build(method, path.substring(start));
+        synchronized (this) {
+            String[] current = names;
+            for (String known : current) {
+                if (known.equals(name)) {
+                    // a path the matcher leaves to build(), e.g. with a trailing /
+                    return known;
+                }
+            }
+            if (current.length < MAX_NAMES) {
+                String[] grown = Arrays.copyOf(current, current.length + 1);
+                grown[current.length] = name;
+                names = grown;
+            }
+        }
+        return name;
+    }
+    
+    static String build(String method, String path) {
+        StringBuilder endpoint = new StringBuilder(method).append(' ');
+        String[] segments = path.split("/");
+        for (int i = 1; i < segments.length; i++) {
+            boolean id = (i == 2 && (segments[1].equals("accounts") || segments[1].equals("beneficiaries")
+                    || segments[1].equals("transfers")))
+                || (i == 3 && segments[1].equals("payments"));
+            endpoint.append('/').append(id ? "*" : segments[i]);
+        }
+        return endpoint.toString();
+    }
+    
+    private static boolean matches(String name, String method, String path, int start) {
+        int methodLength = method.length();
+        // split drops trailing empty segments, which the walk below would keep
+        if (path.endsWith("/")) {
+            return false;
+        }
+        if (!name.startsWith(method) || name.length() <= methodLength || name.charAt(methodLength) != ' ') {
+            return false;
+        }
+        int n = methodLength + 1;
+        int p = start;
+        while (n < name.length()) {
+            if (p >= path.length() || path.charAt(p) != '/') {
+                return false;
+            }
+            int nameEnd = segmentEnd(name, n);
+            int pathEnd = segmentEnd(path, p);
+            boolean wildcard = nameEnd - n == 2 && name.charAt(n + 1) == '*';
+            if (!wildcard && (nameEnd - n != pathEnd - p || !name.regionMatches(n, path, p, nameEnd - n))) {
+                return false;
+            }
+            n = nameEnd;
+            p = pathEnd;
+        }
+        return p == path.length();
+    }
+    
+    // Index of the '/' after the segment starting with the '/' at from, or the length
+    private static int segmentEnd(String s, int from) {
+        int end = s.indexOf('/', from + 1);
+        return end < 0 ? s.length() : end;
+    }
+}
+
+// Lock-free rate limiter using the generic cell rate algorithm: a single
+// AtomicLong holds the theoretical arrival time of the next permit, and each
+// reservation advances it by one interval with a CAS. Up to burst permits
+// may be taken back to back after an idle period.
+class TokenBucket {
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrival;
+    
+    TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be at least 1");
+        }
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+    
+    // Takes one permit and returns how many nanoseconds the caller has to wait
+    // before using it (0 when it may proceed immediately)
+    long reserve() {
+        while (true) {
+            long now = System.nanoTime();
+            long arrival = theoreticalArrival.get();
+            long start = arrival - now > 0 ? arrival : now;
+            if (theoreticalArrival.compareAndSet(arrival, start + intervalNanos)) {
+                return Math.max(0, start - toleranceNanos - now);
+            }
+        }
+    }
+}
+
+// Runs one async call per key with a bounded number of calls in flight.
+// Each of the maxConcurrency lanes pulls the next key from a shared queue
+// when its previous call completes, so no thread is parked while waiting.
+class BulkFanOut {
+    static <T> CompletableFuture<BulkResult<T>> run(Collection<String> keys, int maxConcurrency,
+            Function<String, CompletableFuture<T>> call) {
+        Queue<String> queue = new ConcurrentLinkedQueue<>(new LinkedHashSet<>(keys));
+        BulkResult<T> result = new BulkResult<>();
+        int lanes = Math.min(maxConcurrency, queue.size());
+        
+        CompletableFuture<?>[] laneFutures = new CompletableFuture<?>[lanes];
+        for (int i = 0; i < lanes; i++) {
+            CompletableFuture<Void> lane = new CompletableFuture<>();
+            laneFutures[i] = lane;
+            drain(queue, call, result, lane);
+        }
+        return CompletableFuture.allOf(laneFutures).thenApply(ignored -> result);
+    }
+    
+    private static <T> void drain(Queue<String> queue, Function<String, CompletableFuture<T>> call,
+            BulkResult<T> result, CompletableFuture<Void> lane) {
+        String key;
+        while ((key = queue.poll()) != null) {
+            CompletableFuture<T> future;
+            try {
+                future = call.apply(key);
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
             
-        if (response.statusCode() != 200) {
-            throw new RuntimeException("Logout failed: " + response.body());
+            // Already-completed calls are recorded inline instead of through a
+            // callback so a run of fast failures cannot grow the stack
+            if (future.isDone()) {
+                record(result, key, future);
+                continue;
+            }
+            String pendingKey = key;
+            future.whenComplete((value, error) -> {
+                result.record(pendingKey, value, error);
+                drain(queue, call, result, lane);
+            });
+            return;
+        }
+        lane.complete(null);
+    }
+    
+    private static <T> void record(BulkResult<T> result, String key, CompletableFuture<T> future) {
+        try {
+            result.record(key, future.join(), null);
+        } catch (CompletionException | CancellationException e) {
+            result.record(key, null, e);
+        }
+    }
+}
+
+// Pull-based iterator over a paginated transaction history. The body of each
+// page is walked with a JsonParser: rows are bound one at a time as the caller
+// asks for them, and total_count (wherever it appears in the object) decides
+// whether another page is needed. While a page is being consumed the next one
+// is requested, as soon as total_count says there is more or the current page
+// turns out to be full, so the network overlaps with the caller's processing.
+class TransactionPageIterator implements Iterator<Transaction>, AutoCloseable {
+    private final JsonCodec codec;
+    private final IntFunction<CompletableFuture<HttpResponse<InputStream>>> pageFetcher;
+    private final int pageSize;
+    
+    private JsonParser parser;
+    private boolean inArray;
+    private int offset;
+    private int rowsInPage;
+    private int totalCount = -1;
+    private boolean exhausted;
+    private Transaction next;
+    
+    private CompletableFuture<HttpResponse<InputStream>> prefetch;
+    private int prefetchOffset = -1;
+    
+    TransactionPageIterator(JsonCodec codec,
+            IntFunction<CompletableFuture<HttpResponse<InputStream>>> pageFetcher, int pageSize) {
+        this.codec = codec;
+        this.pageFetcher = pageFetcher;
+        this.pageSize = pageSize;
+    }
+    
+    @Override
+    public boolean hasNext() {
+        if (next == null && !exhausted) {
+            next = advance();
+        }
+        return next != null;
+    }
+    
+    @Override
+    public Transaction next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Transaction transaction = next;
+        next = null;
+        return transaction;
+    }
+    
+    // Total rows reported by the bank, or -1 until a page carrying total_count has been read
+    public int getTotalCount() { return totalCount; }
+    
+    @Override
+    public void close() {
+        exhausted = true;
+        closeParser();
+        discardPrefetch();
+    }
+    
+    // Parses the rest of the range straight into the block's columns, without
+    // materialising Transaction objects, and closes the iterator
+    public void drainTo(TransactionBlock.Builder block) {
+        if (next != null) {
+            block.append(next);
+            next = null;
+        }
+        while (!exhausted && advance(block::append) != null) {
+            // each row was appended as it was parsed
+        }
+    }
+    
+    private Transaction advance() {
+        return advance(parser -> codec.decode(parser, Transaction.class));
+    }
+    
+    private interface RowReader<R> {
+        R read(JsonParser parser) throws IOException;
+    }
+    
+    private <R> R advance(RowReader<R> rowReader) {
+        try {
+            while (true) {
+                if (parser == null) {
+                    openPage();
+                }
+                if (nextRowInPage()) {
+                    R row = rowReader.read(parser);
+                    rowsInPage++;
+                    maybePrefetch();
+                    return row;
+                }
+                closeParser();
+                offset += rowsInPage;
+                boolean more = totalCount >= 0
+                    ? rowsInPage > 0 && offset < totalCount
+                    : rowsInPage == pageSize;
+                if (!more) {
+                    close();
+                    return null;
+                }
+            }
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+    
+    private void openPage() throws IOException {
+        CompletableFuture<HttpResponse<InputStream>> page;
+        if (prefetch != null && prefetchOffset == offset) {
+            page = prefetch;
+            prefetch = null;
+        } else {
+            discardPrefetch();
+            page = pageFetcher.apply(offset);
+        }
+        HttpResponse<InputStream> response = join(page);
+        try {
+            parser = codec.createParser(ContentEncoding.decoding(response.headers(), response.body()));
+        } catch (IOException e) {
+            response.body().close();
+            throw e;
+        }
+        inArray = false;
+        rowsInPage = 0;
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object for transaction page at offset " + offset);
+        }
+    }
+    
+    // Moves the parser onto the START_OBJECT of the page's next row; false
+    // once the page object has ended
+    private boolean nextRowInPage() throws IOException {
+        while (true) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return false;
+            }
+            if (inArray) {
+                if (token == JsonToken.START_OBJECT) {
+                    return true;
+                }
+                if (token == JsonToken.END_ARRAY) {
+                    inArray = false;
+                }
+                continue;
+            }
+            if (token == JsonToken.END_OBJECT) {
+                return false;
+            }
+            if (token == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("transactions".equals(field) && value == JsonToken.START_ARRAY) {
+                    inArray = true;
+                } else if ("total_count".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                    totalCount = parser.getIntValue();
+                    maybePrefetch();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+    
+    private void maybePrefetch() {
+        if (prefetch != null) {
+            return;
+        }
+        int nextOffset = offset + pageSize;
+        boolean likelyMore = totalCount >= 0 ? nextOffset < totalCount : rowsInPage == pageSize;
+        if (likelyMore) {
+            prefetchOffset = nextOffset;
+            prefetch = pageFetcher.apply(nextOffset);
+        }
+    }
+    
+    private void discardPrefetch() {
+        if (prefetch != null) {
+            prefetch.thenAccept(response -> {
+                try {
+                    response.body().close();
+                } catch (IOException ignored) {
+                    // nothing left to release
+                }
+            });
+            prefetch = null;
+        }
+    }
+    
+    private void closeParser() {
+        if (parser != null) {
+            try {
+                parser.close();
+            } catch (IOException ignored) {
+                // the page is finished either way
+            }
+            parser = null;
+        }
+    }
+    
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+            throw e;
+        }
+    }
+}
+
+// Size-bounded LRU map whose entries expire a fixed time after being written.
+// Access order is kept by a LinkedHashMap, so reads and writes share one lock;
+// the critical sections are a hash lookup and a pointer move.
+class TtlCache {
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LinkedHashMap<String, CachedValue> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long version;
+    
+    TtlCache(Duration ttl, int maxEntries) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, CachedValue>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedValue> eldest) {
+                if (size() > TtlCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    Object get(String key) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            CachedValue entry = entries.get(key);
+            if (entry != null && now - entry.expiresAt < 0) {
+                hits.increment();
+                return entry.value;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+    
+    synchronized long version() {
+        return version;
+    }
+    
+    synchronized void putIfVersion(String key, Object value, long expectedVersion) {
+        if (value != null && version == expectedVersion) {
+            entries.put(key, new CachedValue(value, System.nanoTime() + ttlNanos));
+        }
+    }
+    
+    synchronized void invalidate(String key) {
+        version++;
+        entries.remove(key);
+    }
+    
+    synchronized void invalidateAll() {
+        version++;
+        entries.clear();
+    }
+    
+    CacheStats stats() {
+        int size;
+        synchronized (this) {
+            size = entries.size();
         }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+    
+    private static final class CachedValue {
+        final Object value;
+        final long expiresAt;
         
-        this.authToken = null;
+        CachedValue(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
     }
 }
 
+// Cache DTOs
+class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+    
+    public CacheStats(long hits, long misses, long evictions, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+    
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getEvictions() { return evictions; }
+    public int getSize() { return size; }
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("CacheStats{hits=%d, misses=%d, evictions=%d, size=%d, hitRate=%.3f}",
+            hits, misses, evictions, size, getHitRate());
+    }
+}
+
+// Bulk DTOs
+class BulkResult<T> {
+    private final Map<String, T> results = new ConcurrentHashMap<>();
+    private final Map<String, Throwable> failures = new ConcurrentHashMap<>();
+    
+    void record(String key, T value, Throwable error) {
+        if (error == null && value != null) {
+            results.put(key, value);
+        } else if (error == null) {
+            failures.put(key, new IllegalStateException("Empty response for " + key));
+        } else {
+            failures.put(key, error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error);
+        }
+    }
+    
+    public Map<String, T> getResults() { return results; }
+    public Map<String, Throwable> getFailures() { return failures; }
+    public boolean hasFailures() { return !failures.isEmpty(); }
+}
+
+// Thrown when the bank answers with an unexpected status. Carries the status
+// code so callers and the throttling layer can tell 429/503 from other errors.
+class ICICIBankingException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+    private final String responseBody;
+    
+    public ICICIBankingException(String message, int statusCode, String responseBody) {
+        super(message + ": " + responseBody);
+        this.statusCode = statusCode;
+        this.responseBody = responseBody;
+    }
+    
+    public int getStatusCode() { return statusCode; }
+    public String getResponseBody() { return responseBody; }
+}
+
 // Data Transfer Objects (DTOs)
 
 // Authentication DTOs
@@ -264,6 +1890,24 @@ class AuthRequest {
     public void setApiKey(String apiKey) { this.apiKey = apiKey; }
 }
 
+class RefreshTokenRequest {
+    @JsonProperty("refresh_token")
+    private String refreshToken;
+    @JsonProperty("api_key")
+    private String apiKey;
+    
+    public RefreshTokenRequest(String refreshToken, String apiKey) {
+        this.refreshToken = refreshToken;
+        this.apiKey = apiKey;
+    }
+    
+    // Getters and setters
+    public String getRefreshToken() { return refreshToken; }
+    public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
+    public String getApiKey() { return apiKey; }
+    public void setApiKey(String apiKey) { this.apiKey = apiKey; }
+}
+
 class AuthResponse {
     @JsonProperty("access_token")
     private String accessToken;
@@ -430,6 +2074,8 @@ class TransferRequest {
     @JsonProperty("transfer_type")
     private String transferType; // IMPS, NEFT, RTGS
     
+    public TransferRequest() {}
+    
     public TransferRequest(String fromAccount, String toAccount, BigDecimal amount, 
                           String currency, String description, String transferType) {
         this.fromAccount = fromAccount;
@@ -497,6 +2143,8 @@ class BillPaymentRequest {
     @JsonProperty("bill_type")
     private String billType; // ELECTRICITY, MOBILE, DTH, etc.
     
+    public BillPaymentRequest() {}
+    
     public BillPaymentRequest(String accountNumber, String billerId, 
                              String consumerNumber, BigDecimal amount, String billType) {
         this.accountNumber = accountNumber;
@@ -655,6 +2303,13 @@ class ICICIBankingAPIExample {
                 "1234567890", 10, "2024-01-01", "2024-08-12");
             System.out.println("Found " + transactions.size() + " transactions");
             
+            // Non-blocking calls: both requests are in flight at the same time
+            CompletableFuture<BalanceResponse> savings = api.getBalanceAsync("1234567890");
+            CompletableFuture<BalanceResponse> current = api.getBalanceAsync("1122334455");
+            savings.thenCombine(current, (a, b) -> a.getBalance().add(b.getBalance()))
+                .thenAccept(total -> System.out.println("Combined balance: " + total))
+                .join();
+            
             // Transfer funds
             TransferRequest transferRequest = new TransferRequest(
                 "1234567890", "0987654321", new BigDecimal("1000.00"), 
@@ -0,0 +1,342 @@
+// ICICI Banking API - Idempotency Journal
+// Client-side write-ahead log for money-moving calls (transferFunds, payBill),
+// so a crash or timeout after the bank accepted a payment can be resolved by
+// asking the bank instead of paying again.
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+// The journal is a file of JSON lines:
+//   {"type":"INTENT","key":...,"operation":"transfer"|"bill_payment","request":{...},"at":...}
+//   {"type":"COMPLETED","key":...,"response":{...},"at":...}
+//   {"type":"REJECTED","key":...,"error":"...","at":...}
+// An intent is written and fsynced before the request leaves, keyed by the
+// same idempotency key that is sent in the Idempotency-Key header. An intent
+// with no later COMPLETED/REJECTED line has an unknown outcome and is handed
+// back by getPendingIntents() after a restart.
+//
+// Appends are group-committed: callers enqueue records and get a future; a
+// single writer thread takes everything queued, writes it in one call and
+// forces the file once, then completes the whole batch. Under load thousands
+// of payments share a handful of fsyncs instead of paying one each.
+public class IdempotencyJournal implements Closeable {
+    static final String TRANSFER = "transfer";
+    static final String BILL_PAYMENT = "bill_payment";
+
+    private static final int MAX_BATCH = 4096;
+
+    private final Path file;
+    private final Object channelLock = new Object();
+    private FileChannel channel;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final Map<String, JournalIntent> pending = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Thread writer;
+    private final PendingWrite shutdown = new PendingWrite(new byte[0], null);
+    // guards closed together with enqueueing, so nothing is queued behind shutdown
+    private final Object lifecycleLock = new Object();
+    private volatile boolean closed;
+
+    private IdempotencyJournal(Path file, FileChannel channel, ObjectMapper objectMapper) {
+        this.file = file;
+        this.channel = channel;
+        this.objectMapper = objectMapper;
+        this.writer = new Thread(this::writeLoop, "idempotency-journal");
+        this.writer.setDaemon(true);
+    }
+
+    // Opens (or creates) the journal and replays it to find unresolved intents.
+    // A torn final line left by a crash mid-write is cut off first, so the
+    // next record does not get appended onto the fragment.
+    public static IdempotencyJournal open(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, JournalIntent> replayed = replay(file, objectMapper);
+        FileChannel channel = FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        try {
+            long complete = completeLength(file);
+            if (channel.size() > complete) {
+                channel.truncate(complete);
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        IdempotencyJournal journal = new IdempotencyJournal(file, channel, objectMapper);
+        journal.pending.putAll(replayed);
+        journal.writer.start();
+        return journal;
+    }
+
+    // Completes once the intent is on disk; only then may the request be sent.
+    // The intent is pending from now on (so a compaction running meanwhile
+    // keeps it), but if the write fails it is dropped again before the
+    // failure is reported: that request is never sent, so recovery must not
+    // send it either.
+    CompletableFuture<Void> recordIntent(String idempotencyKey, String operation, Object request) {
+        ObjectNode record = record("INTENT", idempotencyKey);
+        record.put("operation", operation);
+        JsonNode requestJson = objectMapper.valueToTree(request);
+        record.set("request", requestJson);
+        JournalIntent intent = new JournalIntent(idempotencyKey, operation, requestJson);
+        pending.put(idempotencyKey, intent);
+        return append(record, intent);
+    }
+
+    CompletableFuture<Void> recordCompleted(String idempotencyKey, Object response) {
+        ObjectNode record = record("COMPLETED", idempotencyKey);
+        record.set("response", objectMapper.valueToTree(response));
+        pending.remove(idempotencyKey);
+        return append(record, null);
+    }
+
+    // The bank definitively refused the request, so it is safe to forget
+    CompletableFuture<Void> recordRejected(String idempotencyKey, String error) {
+        ObjectNode record = record("REJECTED", idempotencyKey);
+        record.put("error", error);
+        pending.remove(idempotencyKey);
+        return append(record, null);
+    }
+
+    // Intents whose outcome is not known, oldest first
+    public List<JournalIntent> getPendingIntents() {
+        synchronized (pending) {
+            return new ArrayList<>(pending.values());
+        }
+    }
+
+    // Rewrites the journal with only the unresolved intents. The writer is
+    // held back meanwhile; records queued during compaction land in the new
+    // file, where a repeated INTENT or a COMPLETED for a dropped intent is
+    // harmless on replay.
+    public void compact() throws IOException {
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        synchronized (channelLock) {
+            try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (JournalIntent intent : getPendingIntents()) {
+                    ObjectNode record = record("INTENT", intent.getIdempotencyKey());
+                    record.put("operation", intent.getOperation());
+                    record.set("request", intent.getRequest());
+                    out.write(ByteBuffer.wrap(line(record)));
+                }
+                out.force(true);
+            }
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel.close();
+            channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lifecycleLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(shutdown);
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // only reachable if the writer was interrupted; nobody else will complete these
+        List<PendingWrite> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        for (PendingWrite write : abandoned) {
+            write.fail(new IOException("Idempotency journal is closed"));
+        }
+        synchronized (channelLock) {
+            channel.close();
+        }
+    }
+
+    // Group commit
+
+    private CompletableFuture<Void> append(ObjectNode record, JournalIntent intent) {
+        PendingWrite write;
+        try {
+            write = new PendingWrite(line(record), intent);
+        } catch (IOException e) {
+            write = new PendingWrite(new byte[0], intent);
+            write.fail(e);
+            return write.durable;
+        }
+        synchronized (lifecycleLock) {
+            if (closed) {
+                write.fail(new IOException("Idempotency journal is closed"));
+            } else {
+                queue.add(write);
+            }
+        }
+        return write.durable;
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            running = !batch.remove(shutdown);
+            if (batch.isEmpty()) {
+                continue;
+            }
+            try {
+                ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+                for (int i = 0; i < buffers.length; i++) {
+                    buffers[i] = ByteBuffer.wrap(batch.get(i).line);
+                }
+                synchronized (channelLock) {
+                    while (buffers[buffers.length - 1].hasRemaining()) {
+                        channel.write(buffers);
+                    }
+                    channel.force(false);
+                }
+                for (PendingWrite write : batch) {
+                    write.durable.complete(null);
+                }
+            } catch (IOException | RuntimeException e) {
+                for (PendingWrite write : batch) {
+                    write.fail(e);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    // Replay
+
+    private static Map<String, JournalIntent> replay(Path file, ObjectMapper objectMapper) throws IOException {
+        Map<String, JournalIntent> intents = new LinkedHashMap<>();
+        if (!Files.exists(file)) {
+            return intents;
+        }
+        byte[] data = Files.readAllBytes(file);
+        String complete = new String(data, 0, completeLength(data), StandardCharsets.UTF_8);
+        for (String line : complete.split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode record;
+            try {
+                record = objectMapper.readTree(line);
+            } catch (IOException e) {
+                // not a record; a torn final line never gets here (see completeLength)
+                continue;
+            }
+            String key = record.path("key").asText();
+            switch (record.path("type").asText()) {
+                case "INTENT":
+                    intents.put(key, new JournalIntent(key, record.path("operation").asText(), record.get("request")));
+                    break;
+                case "COMPLETED":
+                case "REJECTED":
+                    intents.remove(key);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return intents;
+    }
+
+    // Length up to and including the last '\n'. Anything after it is a torn
+    // line from a crash mid-write; its caller never got the durability ack,
+    // so that request was never sent.
+    private static int completeLength(byte[] data) {
+        int end = data.length;
+        while (end > 0 && data[end - 1] != '\n') {
+            end--;
+        }
+        return end;
+    }
+
+    private static long completeLength(Path file) throws IOException {
+        return Files.exists(file) ? completeLength(Files.readAllBytes(file)) : 0;
+    }
+
+    private ObjectNode record(String type, String idempotencyKey) {
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("type", type);
+        record.put("key", idempotencyKey);
+        record.put("at", Instant.now().toString());
+        return record;
+    }
+
+    private byte[] line(ObjectNode record) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(record);
+        byte[] line = new byte[json.length + 1];
+        System.arraycopy(json, 0, line, 0, json.length);
+        line[json.length] = '\n';
+        return line;
+    }
+
+    private final class PendingWrite {
+        final byte[] line;
+        // the intent this write records, if any
+        final JournalIntent intent;
+        final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        PendingWrite(byte[] line, JournalIntent intent) {
+            this.line = line;
+            this.intent = intent;
+        }
+
+        void fail(Throwable error) {
+            if (intent != null) {
+                pending.remove(intent.getIdempotencyKey(), intent);
+            }
+            durable.completeExceptionally(error);
+        }
+    }
+}
+
+// An intent read back from the journal; request holds the original
+// TransferRequest or BillPaymentRequest as JSON
+class JournalIntent {
+    private final String idempotencyKey;
+    private final String operation;
+    private final JsonNode request;
+
+    public JournalIntent(String idempotencyKey, String operation, JsonNode request) {
+        this.idempotencyKey = idempotencyKey;
+        this.operation = operation;
+        this.request = request;
+    }
+
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public String getOperation() { return operation; }
+    public JsonNode getRequest() { return request; }
+}
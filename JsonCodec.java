@@ -0,0 +1,176 @@
+// ICICI Banking API - JSON Codec
+// Byte-level JSON binding for the DTOs: cached ObjectReaders/ObjectWriters
+// that encode straight to byte[] and decode from byte[], InputStreams or an
+// open JsonParser, so no request or response is ever held as a String.
+// Types with a DtoCodec generated by DtoCodecProcessor bypass databind.
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.System.Logger.Level;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+// ObjectReader and ObjectWriter are immutable and thread-safe, and building
+// one resolves the type's (de)serializer once; later calls skip the
+// per-call lookup that ObjectMapper.readValue/writeValueAsString perform.
+// The DTOs used on the wire are pre-built in the constructor so the first
+// request does not pay for introspection.
+//
+// A generated DtoCodec replaces both for its type: it drives the streaming
+// parser and generator directly, so there is nothing to introspect and
+// nothing to warm up, and such types are not pre-built at all.
+class JsonCodec {
+    static final List<Class<?>> DTO_TYPES = List.of(
+        AuthRequest.class, RefreshTokenRequest.class, AuthResponse.class,
+        Account.class, AccountDetailsResponse.class, AccountListResponse.class, BalanceResponse.class,
+        Transaction.class, TransactionHistoryResponse.class,
+        TransferRequest.class, TransferResponse.class,
+        BillPaymentRequest.class, PaymentResponse.class,
+        Beneficiary.class, BeneficiaryRequest.class, BeneficiaryResponse.class, BeneficiaryListResponse.class);
+
+    private final ObjectMapper objectMapper;
+    private final JsonFactory factory;
+    private final Map<Class<?>, DtoCodec<?>> generatedWriters = new HashMap<>();
+    private final Map<Class<?>, ReadableDtoCodec<?>> generatedReaders = new HashMap<>();
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    JsonCodec(ObjectMapper objectMapper) {
+        this(objectMapper, List.of());
+    }
+
+    // Uses the generated codecs (normally generatedCodecs()) for their types
+    // and the ObjectMapper for everything else
+    JsonCodec(ObjectMapper objectMapper, List<DtoCodec<?>> generatedCodecs) {
+        this.objectMapper = objectMapper;
+        this.factory = objectMapper.getFactory();
+        for (DtoCodec<?> codec : generatedCodecs) {
+            generatedWriters.put(codec.type(), codec);
+            if (codec instanceof ReadableDtoCodec) {
+                generatedReaders.put(codec.type(), (ReadableDtoCodec<?>) codec);
+            }
+        }
+        for (Class<?> type : DTO_TYPES) {
+            if (!generatedWriters.containsKey(type)) {
+                readerFor(type);
+                writerFor(type);
+            }
+        }
+    }
+
+    // The codec used by default: generated codecs where the build ran
+    // DtoCodecProcessor, the ObjectMapper for everything (with a warning
+    // logged once) when it did not
+    static JsonCodec withGeneratedCodecs(ObjectMapper objectMapper) {
+        return new JsonCodec(objectMapper, generatedCodecs());
+    }
+
+    // The codecs DtoCodecProcessor listed in META-INF/services/DtoCodec
+    static List<DtoCodec<?>> generatedCodecs() {
+        return GeneratedRegistry.CODECS;
+    }
+
+    byte[] encode(Object value) throws JsonProcessingException {
+        @SuppressWarnings("unchecked")
+        DtoCodec<Object> codec = (DtoCodec<Object>) generatedWriters.get(value.getClass());
+        if (codec == null) {
+            return writerFor(value.getClass()).writeValueAsBytes(value);
+        }
+        ByteArrayBuilder bytes = new ByteArrayBuilder();
+        try (JsonGenerator generator = factory.createGenerator(bytes)) {
+            codec.write(generator, value);
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            throw JsonMappingException.fromUnexpectedIOE(e);
+        }
+        byte[] result = bytes.toByteArray();
+        bytes.release();
+        return result;
+    }
+
+    <T> T decode(byte[] body, Class<T> type) throws IOException {
+        ReadableDtoCodec<T> codec = generatedReader(type);
+        if (codec == null) {
+            return readerFor(type).readValue(body);
+        }
+        try (JsonParser parser = factory.createParser(body)) {
+            parser.nextToken();
+            return codec.read(parser);
+        }
+    }
+
+    <T> T decode(InputStream body, Class<T> type) throws IOException {
+        ReadableDtoCodec<T> codec = generatedReader(type);
+        if (codec == null) {
+            return readerFor(type).readValue(body);
+        }
+        try (JsonParser parser = factory.createParser(body)) {
+            parser.nextToken();
+            return codec.read(parser);
+        }
+    }
+
+    // Binds the value at the parser's current token (used for row-by-row parsing)
+    <T> T decode(JsonParser parser, Class<T> type) throws IOException {
+        ReadableDtoCodec<T> codec = generatedReader(type);
+        return codec == null ? readerFor(type).readValue(parser) : codec.read(parser);
+    }
+
+    JsonParser createParser(InputStream body) throws IOException {
+        return factory.createParser(body);
+    }
+
+    ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ReadableDtoCodec<T> generatedReader(Class<T> type) {
+        return (ReadableDtoCodec<T>) generatedReaders.get(type);
+    }
+
+    ObjectReader readerFor(Class<?> type) {
+        return readers.computeIfAbsent(type, objectMapper::readerFor);
+    }
+
+    ObjectWriter writerFor(Class<?> type) {
+        return writers.computeIfAbsent(type, objectMapper::writerFor);
+    }
+}
+
+// Loaded on first use of JsonCodec.generatedCodecs(). ServiceLoader needs no
+// reflection config in a native image, and an empty result means the build
+// skipped DtoCodecProcessor, which is worth a warning: every DTO then goes
+// through databind and the first calls pay for introspection.
+final class GeneratedRegistry {
+    static final List<DtoCodec<?>> CODECS = load();
+
+    private GeneratedRegistry() {}
+
+    private static List<DtoCodec<?>> load() {
+        List<DtoCodec<?>> codecs = new ArrayList<>();
+        for (DtoCodec<?> codec : ServiceLoader.load(DtoCodec.class, JsonCodec.class.getClassLoader())) {
+            codecs.add(codec);
+        }
+        if (codecs.isEmpty()) {
+            System.getLogger(JsonCodec.class.getName()).log(Level.WARNING,
+                "No generated DtoCodecs found (META-INF/services/DtoCodec); the build did not run "
+                    + "DtoCodecProcessor, so all DTOs are bound through Jackson databind");
+        }
+        return List.copyOf(codecs);
+    }
+}
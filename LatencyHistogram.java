@@ -0,0 +1,121 @@
+// ICICI Banking API - Latency Histogram
+// Fixed-memory, lock-free histogram of nanosecond latencies with percentile
+// queries, in the manner of HdrHistogram.
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Log-linear buckets: values below 128 get a bucket each, and every power of
+// two above that is split into 64 equal sub-buckets, so any recorded value is
+// reported within 1/64 (about 1.6%) of itself from 1 ns up to Long.MAX_VALUE
+// in 3712 counters (~29 KB). Recording is one array increment plus a max
+// update, with no allocation, so it is safe on every call's completion path;
+// readers see a slightly torn but never corrupt view while writers run.
+class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        total.incrementAndGet();
+        sum.addAndGet(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // lost a race with another writer; re-read
+        }
+    }
+
+    long count() {
+        return total.get();
+    }
+
+    long maxNanos() {
+        return max.get();
+    }
+
+    long meanNanos() {
+        long n = total.get();
+        return n == 0 ? 0 : sum.get() / n;
+    }
+
+    // Smallest bucket upper bound covering the given percentile (0-100) of
+    // the recorded values; 0 if nothing has been recorded
+    long percentileNanos(double percentile) {
+        long n = total.get();
+        if (n == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(n * Math.min(100.0, percentile) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestValueIn(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    // Adds another histogram's counts into this one
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) {
+                counts.addAndGet(i, c);
+            }
+        }
+        total.addAndGet(other.total.get());
+        sum.addAndGet(other.sum.get());
+        long otherMax = other.max.get();
+        long current;
+        while (otherMax > (current = max.get()) && !max.compareAndSet(current, otherMax)) {
+            // retry
+        }
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    // "p50=1.234 p99=5.678 p999=9.012 max=12.345 ms"
+    String summary() {
+        return String.format("p50=%.3f p99=%.3f p999=%.3f max=%.3f ms",
+            millis(percentileNanos(50)), millis(percentileNanos(99)),
+            millis(percentileNanos(99.9)), millis(maxNanos()));
+    }
+
+    static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    static long highestValueIn(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long lowest = (long) ((index & (SUB_BUCKETS - 1)) + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,254 @@
+// ICICI Banking API - Load Generator
+// Open-model load driver: issues a weighted mix of ICICIBankingAPI calls at a
+// fixed arrival rate and reports per-endpoint latency percentiles, to size
+// pools and limits against a StubBankServer with injected faults:
+//   java LoadGenerator [rps=200] [seconds=30] [baseUrl|-] [transport=jdk]
+// With no baseUrl (or "-") an in-process StubBankServer is started; transport
+// is jdk, urlconnection or okhttp (see HttpTransport).
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiFunction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Calls are started on a fixed schedule (every 1/rps seconds) regardless of
+// how many are still outstanding, as independent customers would arrive, and
+// each latency is measured from the call's scheduled start rather than from
+// when it actually went out. A client or server that stalls therefore shows
+// up in the percentiles instead of silently lowering the offered load (the
+// "coordinated omission" a closed loop of N threads suffers from).
+//
+// The async API is used, so one driver thread can keep thousands of calls in
+// flight. Once maxOutstanding calls are in flight further arrivals are counted
+// as dropped rather than queued without bound.
+public class LoadGenerator {
+    private static final int DEFAULT_MAX_OUTSTANDING = 10_000;
+
+    private final ICICIBankingAPI api;
+    private final List<String> accounts;
+    private final List<Operation> operations = new ArrayList<>();
+    private int totalWeight;
+    private int maxOutstanding = DEFAULT_MAX_OUTSTANDING;
+
+    LoadGenerator(ICICIBankingAPI api, List<String> accounts) {
+        if (accounts.isEmpty()) {
+            throw new IllegalArgumentException("at least one account is needed");
+        }
+        this.api = api;
+        this.accounts = new ArrayList<>(accounts);
+    }
+
+    // A payout-day shaped mix: mostly balance checks and transfers
+    static LoadGenerator withDefaultMix(ICICIBankingAPI api, List<String> accounts) {
+        LoadGenerator generator = new LoadGenerator(api, accounts);
+        generator.add("GET /accounts/*/balance", 35, (client, account) -> client.getBalanceAsync(account));
+        generator.add("GET /accounts/*", 10, (client, account) -> client.getAccountDetailsAsync(account));
+        generator.add("GET /accounts", 5, (client, account) -> client.getAllAccountsAsync());
+        generator.add("GET /accounts/*/transactions", 15, (client, account) ->
+            client.getTransactionHistoryAsync(account, 100, "2024-08-01", "2024-08-31"));
+        generator.add("GET /beneficiaries", 5, (client, account) -> client.getBeneficiariesAsync());
+        generator.add("POST /transfers", 25, (client, account) -> client.transferFundsAsync(
+            new TransferRequest(account, "50100200000", new BigDecimal("1000.00"), "INR", "Load test", "IMPS")));
+        generator.add("POST /payments/bills", 5, (client, account) -> client.payBillAsync(
+            new BillPaymentRequest(account, "BESCOM01", "CN-7781234", new BigDecimal("1250.00"), "ELECTRICITY")));
+        return generator;
+    }
+
+    // Adds an operation drawn with probability weight / (sum of weights)
+    void add(String name, int weight, BiFunction<ICICIBankingAPI, String, CompletableFuture<?>> call) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight must be at least 1");
+        }
+        operations.add(new Operation(name, weight, call));
+        totalWeight += weight;
+    }
+
+    void setMaxOutstanding(int maxOutstanding) {
+        this.maxOutstanding = maxOutstanding;
+    }
+
+    // Offers requestsPerSecond for duration, then waits (up to drainTimeout)
+    // for the calls still in flight before reporting
+    Report run(double requestsPerSecond, Duration duration, Duration drainTimeout) {
+        if (operations.isEmpty()) {
+            throw new IllegalStateException("no operations added");
+        }
+        Report report = new Report(operations);
+        AtomicInteger outstanding = new AtomicInteger();
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        long calls = Math.max(1, duration.toNanos() / intervalNanos);
+        long start = System.nanoTime();
+
+        for (long i = 0; i < calls; i++) {
+            long scheduled = start + i * intervalNanos;
+            long wait;
+            while ((wait = scheduled - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = pick();
+            Report.Endpoint endpoint = report.endpoint(operation.name);
+            if (outstanding.get() >= maxOutstanding) {
+                endpoint.dropped.increment();
+                continue;
+            }
+            outstanding.incrementAndGet();
+            String account = accounts.get(ThreadLocalRandom.current().nextInt(accounts.size()));
+            CompletableFuture<?> call;
+            try {
+                call = operation.call.apply(api, account);
+            } catch (RuntimeException e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+            call.whenComplete((result, error) -> {
+                endpoint.latency.record(System.nanoTime() - scheduled);
+                if (error != null) {
+                    endpoint.failed(error);
+                }
+                outstanding.decrementAndGet();
+            });
+        }
+        long offeredNanos = System.nanoTime() - start;
+        long drainDeadline = System.nanoTime() + drainTimeout.toNanos();
+        while (outstanding.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        report.finish(calls, offeredNanos, outstanding.get());
+        return report;
+    }
+
+    private Operation pick() {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Operation operation : operations) {
+            roll -= operation.weight;
+            if (roll < 0) {
+                return operation;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    public static void main(String[] args) throws Exception {
+        double rps = args.length > 0 ? Double.parseDouble(args[0]) : 200;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        JsonCodec codec = JsonCodec.withGeneratedCodecs(new ObjectMapper());
+        StubBankServer stub = args.length > 2 && !args[2].equals("-") ? null : new StubBankServer(codec);
+        String baseUrl = stub == null ? args[2] : stub.baseUrl();
+        String transportName = args.length > 3 ? args[3] : "jdk";
+        List<String> accounts = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            accounts.add(StubBankServer.accountNumber(i));
+        }
+
+        try (HttpTransport transport = HttpTransport.create(transportName, TransportConfig.defaults())) {
+            ICICIBankingAPI api = new ICICIBankingAPI("load-test-key", transport, codec, baseUrl);
+            api.authenticate("load-test", "load-test");
+            LoadGenerator generator = withDefaultMix(api, accounts);
+
+            System.out.println("Warming up for 5 s at " + rps + " rps against " + baseUrl + " over " + transport.name());
+            generator.run(rps, Duration.ofSeconds(5), Duration.ofSeconds(10));
+            System.out.println("Measuring for " + seconds + " s");
+            System.out.print(generator.run(rps, Duration.ofSeconds(seconds), Duration.ofSeconds(30)));
+        } finally {
+            if (stub != null) {
+                stub.close();
+            }
+        }
+    }
+
+    private static final class Operation {
+        final String name;
+        final int weight;
+        final BiFunction<ICICIBankingAPI, String, CompletableFuture<?>> call;
+
+        Operation(String name, int weight, BiFunction<ICICIBankingAPI, String, CompletableFuture<?>> call) {
+            this.name = name;
+            this.weight = weight;
+            this.call = call;
+        }
+    }
+
+    // Latency per operation, measured from each call's scheduled start, and
+    // failures by HTTP status (0 for failures without a response)
+    static final class Report {
+        private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+        private long offered;
+        private long offeredNanos;
+        private int unfinished;
+
+        Report(List<Operation> operations) {
+            for (Operation operation : operations) {
+                endpoints.putIfAbsent(operation.name, new Endpoint());
+            }
+        }
+
+        Endpoint endpoint(String name) {
+            return endpoints.get(name);
+        }
+
+        LatencyHistogram latency(String name) {
+            return endpoints.get(name).latency;
+        }
+
+        long offered() { return offered; }
+        int unfinished() { return unfinished; }
+
+        double offeredRate() {
+            return offeredNanos == 0 ? 0 : offered * (double) TimeUnit.SECONDS.toNanos(1) / offeredNanos;
+        }
+
+        private void finish(long offered, long offeredNanos, int unfinished) {
+            this.offered = offered;
+            this.offeredNanos = offeredNanos;
+            this.unfinished = unfinished;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder(String.format("%d calls offered at %.1f/s, %d unfinished%n",
+                offered, offeredRate(), unfinished));
+            out.append(String.format("%-30s %8s %7s %7s %9s %9s %9s %9s  %s%n",
+                "endpoint", "calls", "failed", "dropped", "p50 ms", "p99 ms", "p999 ms", "max ms", "failures"));
+            endpoints.forEach((name, endpoint) -> out.append(String.format(
+                "%-30s %8d %7d %7d %9.3f %9.3f %9.3f %9.3f  %s%n",
+                name, endpoint.latency.count(), endpoint.failed.sum(), endpoint.dropped.sum(),
+                LatencyHistogram.millis(endpoint.latency.percentileNanos(50)),
+                LatencyHistogram.millis(endpoint.latency.percentileNanos(99)),
+                LatencyHistogram.millis(endpoint.latency.percentileNanos(99.9)),
+                LatencyHistogram.millis(endpoint.latency.maxNanos()),
+                endpoint.failuresByStatus.isEmpty() ? "" : endpoint.failuresByStatus)));
+            return out.toString();
+        }
+
+        static final class Endpoint {
+            final LatencyHistogram latency = new LatencyHistogram();
+            final LongAdder failed = new LongAdder();
+            final LongAdder dropped = new LongAdder();
+            final Map<Integer, LongAdder> failuresByStatus = new ConcurrentSkipListMap<>();
+
+            void failed(Throwable error) {
+                failed.increment();
+                Throwable cause = error;
+                while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                        && cause.getCause() != null) {
+                    cause = cause.getCause();
+                }
+                int status = cause instanceof ICICIBankingException
+                    ? ((ICICIBankingException) cause).getStatusCode() : 0;
+                failuresByStatus.computeIfAbsent(status, key -> new LongAdder()).increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+// ICICI Banking API - OkHttp Transport
+// HttpTransport over OkHttp, the stack IciciBankingApiClient uses; needs
+// com.squareup.okhttp3:okhttp on the classpath.
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+// Calls are enqueued on OkHttp's dispatcher, which is capped at
+// maxConnectionsPerHost concurrent calls per host. With http2 on, HTTP/2 is
+// negotiated over TLS and concurrent calls share one multiplexed connection
+// (the stream limit is whatever the server advertises; OkHttp has no client
+// side setting). The connection pool keeps up to maxConnectionsPerHost idle
+// connections for the keep-alive time, and the client's single SSL socket
+// factory, from the config's TLS context, lets reconnects resume sessions.
+class OkHttpTransport implements HttpTransport {
+    private final OkHttpClient client;
+
+    OkHttpTransport(TransportConfig config) {
+        this(newClient(config));
+    }
+
+    OkHttpTransport(OkHttpClient client) {
+        this.client = client;
+    }
+
+    // A client configured from config; IciciBankingApiClient builds its own
+    // client with this too
+    static OkHttpClient newClient(TransportConfig config) {
+        Dispatcher dispatcher = config.getExecutor() instanceof ExecutorService
+            ? new Dispatcher((ExecutorService) config.getExecutor())
+            : new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(config.getMaxConnectionsPerHost());
+        dispatcher.setMaxRequests(Math.max(dispatcher.getMaxRequests(), config.getMaxConnectionsPerHost()));
+        SSLContext sslContext = config.newSslContext();
+        return new OkHttpClient.Builder()
+            .dispatcher(dispatcher)
+            .connectionPool(new ConnectionPool(config.getMaxConnectionsPerHost(),
+                config.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS))
+            .protocols(config.isHttp2()
+                ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                : List.of(Protocol.HTTP_1_1))
+            .connectTimeout(config.getConnectTimeout())
+            .readTimeout(config.getReadTimeout())
+            .sslSocketFactory(sslContext.getSocketFactory(), defaultTrustManager())
+            .followRedirects(false)
+            .retryOnConnectionFailure(false)
+            .build();
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+            HttpResponse.BodyHandler<T> bodyHandler) {
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        Call call = client.newCall(toOkHttp(request));
+        if (request.timeout().isPresent()) {
+            call.timeout().timeout(request.timeout().get().toMillis(), TimeUnit.MILLISECONDS);
+        }
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call failed, IOException e) {
+                result.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call completed, Response response) {
+                HttpHeaders headers = HttpHeaders.of(response.headers().toMultimap(), (name, value) -> true);
+                HttpClient.Version version = response.protocol() == Protocol.HTTP_2
+                    ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1;
+                // closing the body stream releases the connection (or stream)
+                InputStream body = response.body() == null ? InputStream.nullInputStream() : response.body().byteStream();
+                TransportSupport.deliver(request, response.code(), headers, version, body, bodyHandler)
+                    .whenComplete((adapted, error) -> {
+                        if (error != null) {
+                            response.close();
+                            result.completeExceptionally(error);
+                        } else {
+                            result.complete(adapted);
+                        }
+                    });
+            }
+        });
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                call.cancel();
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public String name() {
+        return "okhttp";
+    }
+
+    @Override
+    public void close() {
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+    }
+
+    private static Request toOkHttp(HttpRequest request) {
+        Request.Builder builder = new Request.Builder().url(request.uri().toString());
+        request.headers().map().forEach((name, values) -> {
+            for (String value : values) {
+                builder.addHeader(name, value);
+            }
+        });
+        byte[] body = TransportSupport.requestBody(request);
+        if (request.method().equals("GET")) {
+            builder.get();
+        } else {
+            String contentType = request.headers().firstValue("Content-Type").orElse(null);
+            builder.method(request.method(), RequestBody.create(body == null ? new byte[0] : body,
+                contentType == null ? null : MediaType.parse(contentType)));
+        }
+        return builder.build();
+    }
+
+    private static X509TrustManager defaultTrustManager() {
+        try {
+            TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            factory.init((KeyStore) null);
+            return (X509TrustManager) factory.getTrustManagers()[0];
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No default trust manager", e);
+        }
+    }
+}
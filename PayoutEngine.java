@@ -0,0 +1,198 @@
+// ICICI Banking API - Bulk Payout Engine
+// Pushes large batches of TransferRequests (salary or vendor payout files)
+// through transferFundsAsync with bounded concurrency and a rate limit.
+
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+// The calling thread is the producer: it pulls the next request only when a
+// slot among maxInFlight is free and the rate limiter has released a permit, so
+// a slow bank slows down reading of the source instead of queueing rows in
+// memory. Every transfer carries an idempotency key so a batch can be replayed
+// after a failure without paying anyone twice. That only holds if a re-run
+// produces the same keys, so they never come from anything random: either the
+// caller names the batch with an id that is stable across runs (the payout
+// file's name or reference) and row i gets "<batchId>-<i>", or a generator
+// derives the key from the row itself.
+public class PayoutEngine {
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ICICIBankingAPI api;
+    private final int maxInFlight;
+    private final double transfersPerSecond;
+    private BiFunction<Long, TransferRequest, String> idempotencyKeys;
+
+    public PayoutEngine(ICICIBankingAPI api, int maxInFlight, double transfersPerSecond) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1");
+        }
+        if (!(transfersPerSecond > 0)) {
+            throw new IllegalArgumentException("transfersPerSecond must be positive");
+        }
+        this.api = api;
+        this.maxInFlight = maxInFlight;
+        this.transfersPerSecond = transfersPerSecond;
+    }
+
+    // Receives (row index, request) and returns the idempotency key for that
+    // row; used by the runs that are not given a batch id. It must return the
+    // same key for the same row on every run.
+    public void setIdempotencyKeyGenerator(BiFunction<Long, TransferRequest, String> idempotencyKeys) {
+        this.idempotencyKeys = idempotencyKeys;
+    }
+
+    public PayoutStats run(String batchId, Stream<TransferRequest> requests, PayoutSink sink)
+            throws InterruptedException {
+        try (Stream<TransferRequest> source = requests) {
+            return run(batchId, source.iterator(), sink);
+        }
+    }
+
+    // Keys row i "<batchId>-<i>"; replaying the same file under the same
+    // batch id resends the same keys, so rows the bank has already paid are
+    // not paid again
+    public PayoutStats run(String batchId, Iterator<TransferRequest> requests, PayoutSink sink)
+            throws InterruptedException {
+        if (batchId == null || batchId.isBlank()) {
+            throw new IllegalArgumentException("batchId must be a non-blank id that is stable across runs");
+        }
+        return run(requests, sink, (index, request) -> batchId + "-" + index);
+    }
+
+    public PayoutStats run(Stream<TransferRequest> requests, PayoutSink sink) throws InterruptedException {
+        try (Stream<TransferRequest> source = requests) {
+            return run(source.iterator(), sink);
+        }
+    }
+
+    // Keys rows with the idempotency key generator, which must be set
+    public PayoutStats run(Iterator<TransferRequest> requests, PayoutSink sink) throws InterruptedException {
+        BiFunction<Long, TransferRequest, String> keys = idempotencyKeys;
+        if (keys == null) {
+            throw new IllegalStateException("No idempotency key generator set; pass a stable batch id instead");
+        }
+        return run(requests, sink, keys);
+    }
+
+    // Blocks until every request has been submitted and has completed
+    private PayoutStats run(Iterator<TransferRequest> requests, PayoutSink sink,
+            BiFunction<Long, TransferRequest, String> keys) throws InterruptedException {
+        TokenBucket rateLimiter = new TokenBucket(transfersPerSecond, 1);
+        Semaphore slots = new Semaphore(maxInFlight);
+        Progress progress = new Progress();
+        long nextProgress = progress.startedAt + PROGRESS_INTERVAL_NANOS;
+
+        long index = 0;
+        while (requests.hasNext()) {
+            slots.acquire();
+            CompletableFuture<TransferResponse> transfer;
+            TransferRequest request;
+            String key;
+            long row;
+            try {
+                long wait = rateLimiter.reserve();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                request = requests.next();
+                row = index++;
+                key = keys.apply(row, request);
+                transfer = api.transferFundsAsync(request, key);
+            } catch (InterruptedException | RuntimeException e) {
+                // nothing will complete to give the slot back
+                slots.release();
+                throw e;
+            }
+            progress.submitted.increment();
+            transfer.whenComplete((response, error) -> {
+                try {
+                    if (error == null) {
+                        progress.succeeded.increment();
+                        sink.onSuccess(row, request, key, response);
+                    } else {
+                        progress.failed.increment();
+                        sink.onFailure(row, request, key,
+                            error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error);
+                    }
+                } finally {
+                    slots.release();
+                }
+            });
+
+            long now = System.nanoTime();
+            if (now - nextProgress >= 0) {
+                sink.onProgress(progress.snapshot(now));
+                nextProgress = now + PROGRESS_INTERVAL_NANOS;
+            }
+        }
+
+        // Taking every slot back means all submitted transfers have completed
+        slots.acquire(maxInFlight);
+        slots.release(maxInFlight);
+        PayoutStats stats = progress.snapshot(System.nanoTime());
+        sink.onProgress(stats);
+        return stats;
+    }
+
+    private static final class Progress {
+        final long startedAt = System.nanoTime();
+        final LongAdder submitted = new LongAdder();
+        final LongAdder succeeded = new LongAdder();
+        final LongAdder failed = new LongAdder();
+
+        PayoutStats snapshot(long now) {
+            return new PayoutStats(submitted.sum(), succeeded.sum(), failed.sum(), now - startedAt);
+        }
+    }
+}
+
+// Receives results as transfers complete. Callbacks arrive concurrently from
+// the HttpClient's executor threads, so implementations must be thread-safe.
+interface PayoutSink {
+    void onSuccess(long index, TransferRequest request, String idempotencyKey, TransferResponse response);
+
+    void onFailure(long index, TransferRequest request, String idempotencyKey, Throwable error);
+
+    // Called from the producer thread about once a second and once at the end
+    default void onProgress(PayoutStats stats) {
+    }
+}
+
+class PayoutStats {
+    private final long submitted;
+    private final long succeeded;
+    private final long failed;
+    private final long elapsedNanos;
+
+    public PayoutStats(long submitted, long succeeded, long failed, long elapsedNanos) {
+        this.submitted = submitted;
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getSubmitted() { return submitted; }
+    public long getSucceeded() { return succeeded; }
+    public long getFailed() { return failed; }
+    public long getCompleted() { return succeeded + failed; }
+    public long getInFlight() { return submitted - getCompleted(); }
+    public long getElapsedMillis() { return TimeUnit.NANOSECONDS.toMillis(elapsedNanos); }
+
+    // Completed transfers per second since the run started
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0.0 : getCompleted() * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PayoutStats{submitted=%d, succeeded=%d, failed=%d, inFlight=%d, elapsed=%dms, throughput=%.1f/s}",
+            submitted, succeeded, failed, getInFlight(), getElapsedMillis(), getThroughput());
+    }
+}
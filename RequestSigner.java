@@ -0,0 +1,211 @@
+// ICICI Banking API - Request Signer
+// HMAC-SHA256 signatures over a canonical form of each request (method, path,
+// sorted query, timestamp, nonce and the encoded body bytes), computed with
+// pooled, pre-keyed Mac instances, and their verification on the receiving
+// side (see TransactionNotificationReceiver).
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+// Canonical request, each part followed by '\n' except the body:
+//   METHOD
+//   path                 (as sent, already percent-encoded)
+//   query                (as sent, parameters sorted by name then value)
+//   timestamp            (epoch seconds)
+//   nonce
+//   body bytes           (empty for GET)
+//
+// The SecretKeySpec is built once and one Mac is initialised from it; every
+// other Mac is a clone of that prototype, which skips the provider lookup and
+// key schedule of Mac.getInstance + init. Macs are borrowed from a lock-free
+// pool rather than a ThreadLocal so virtual threads do not each grow their
+// own. The ASCII parts are copied into a scratch buffer that travels with the
+// pooled Mac, and the body is fed to the Mac as-is, so signing allocates only
+// the Base64 result.
+//
+// Nonces are a random per-signer prefix plus a counter: unique for the
+// signer's lifetime without a SecureRandom call per request.
+public class RequestSigner {
+    public static final String SIGNATURE_HEADER = "signature";
+    public static final String TIMESTAMP_HEADER = "timestamp";
+    public static final String NONCE_HEADER = "nonce";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MAX_POOLED = 64;
+
+    private final Mac prototype;
+    private final ConcurrentLinkedQueue<PooledMac> pool = new ConcurrentLinkedQueue<>();
+    private final String noncePrefix;
+    private final AtomicLong nonceCounter = new AtomicLong();
+
+    public RequestSigner(byte[] secret) {
+        try {
+            prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(new SecretKeySpec(secret, ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+        byte[] prefix = new byte[8];
+        new SecureRandom().nextBytes(prefix);
+        noncePrefix = Base64.getUrlEncoder().withoutPadding().encodeToString(prefix) + '-';
+    }
+
+    public RequestSigner(String secret) {
+        this(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Signs with the current time and a fresh nonce
+    public SignedRequest sign(String method, URI uri, byte[] body) {
+        long timestamp = System.currentTimeMillis() / 1000;
+        String nonce = noncePrefix + Long.toString(nonceCounter.incrementAndGet(), 36);
+        String signature = sign(method, uri.getRawPath(), uri.getRawQuery(), timestamp, nonce, body);
+        return new SignedRequest(signature, timestamp, nonce);
+    }
+
+    // Base64 HMAC of the canonical request; query and body may be null
+    public String sign(String method, String rawPath, String rawQuery, long timestamp, String nonce, byte[] body) {
+        PooledMac pooled = borrow();
+        try {
+            pooled.update(method);
+            pooled.update(rawPath == null || rawPath.isEmpty() ? "/" : rawPath);
+            pooled.update(canonicalQuery(rawQuery));
+            pooled.update(timestamp);
+            pooled.update(nonce);
+            if (body != null) {
+                pooled.mac.update(body);
+            }
+            pooled.mac.doFinal(pooled.digest, 0);
+            return Base64.getEncoder().encodeToString(pooled.digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Signing failed", e);
+        } finally {
+            release(pooled);
+        }
+    }
+
+    // True if signature is this signer's signature of the request; compared
+    // in constant time so a receiver does not leak how much of a forged
+    // signature matched
+    public boolean verify(String method, String rawPath, String rawQuery, long timestamp, String nonce,
+            byte[] body, String signature) {
+        if (signature == null || nonce == null) {
+            return false;
+        }
+        String expected = sign(method, rawPath, rawQuery, timestamp, nonce, body);
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII),
+            signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private PooledMac borrow() {
+        PooledMac pooled = pool.poll();
+        if (pooled != null) {
+            return pooled;
+        }
+        try {
+            return new PooledMac((Mac) prototype.clone());
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(ALGORITHM + " provider does not support clone", e);
+        }
+    }
+
+    // The pool is capped loosely; a Mac beyond it is simply dropped
+    private void release(PooledMac pooled) {
+        pooled.mac.reset();
+        if (pool.size() < MAX_POOLED) {
+            pool.offer(pooled);
+        }
+    }
+
+    // Query parameters sorted by name then value, so the signature does not
+    // depend on the order the caller built them in
+    static String canonicalQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+        if (rawQuery.indexOf('&') < 0) {
+            return rawQuery;
+        }
+        String[] parameters = rawQuery.split("&");
+        boolean sorted = true;
+        for (int i = 1; i < parameters.length && sorted; i++) {
+            sorted = parameters[i - 1].compareTo(parameters[i]) <= 0;
+        }
+        if (sorted) {
+            return rawQuery;
+        }
+        Arrays.sort(parameters);
+        return String.join("&", parameters);
+    }
+
+    private static final class PooledMac {
+        final Mac mac;
+        final byte[] digest;
+        byte[] scratch = new byte[256];
+
+        PooledMac(Mac mac) {
+            this.mac = mac;
+            this.digest = new byte[mac.getMacLength()];
+        }
+
+        // Feeds an ASCII part and its '\n' terminator; non-ASCII text (which
+        // an encoded path or query never has) goes through UTF-8
+        void update(String part) {
+            int length = part.length();
+            if (scratch.length < length + 1) {
+                scratch = new byte[Math.max(length + 1, scratch.length * 2)];
+            }
+            for (int i = 0; i < length; i++) {
+                char c = part.charAt(i);
+                if (c >= 0x80) {
+                    mac.update(part.getBytes(StandardCharsets.UTF_8));
+                    mac.update((byte) '\n');
+                    return;
+                }
+                scratch[i] = (byte) c;
+            }
+            scratch[length] = '\n';
+            mac.update(scratch, 0, length + 1);
+        }
+
+        void update(long value) {
+            int end = scratch.length;
+            int position = end;
+            scratch[--position] = '\n';
+            boolean negative = value < 0;
+            long remaining = Math.abs(value);
+            do {
+                scratch[--position] = (byte) ('0' + remaining % 10);
+                remaining /= 10;
+            } while (remaining > 0);
+            if (negative) {
+                scratch[--position] = '-';
+            }
+            mac.update(scratch, position, end - position);
+        }
+    }
+
+    // Values to send as the signature, timestamp and nonce headers
+    public static final class SignedRequest {
+        private final String signature;
+        private final long timestamp;
+        private final String nonce;
+
+        SignedRequest(String signature, long timestamp, String nonce) {
+            this.signature = signature;
+            this.timestamp = timestamp;
+            this.nonce = nonce;
+        }
+
+        public String getSignature() { return signature; }
+        public long getTimestamp() { return timestamp; }
+        public String getNonce() { return nonce; }
+    }
+}
@@ -0,0 +1,187 @@
+// ICICI Banking API - Resilience Policies
+// Retry policy, per-endpoint circuit breaker and latency tracking used by
+// ICICIBankingAPI to retry, short-circuit and hedge calls.
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// How often and how patiently a failed call is retried. Delays use "full
+// jitter": a uniformly random wait between zero and an exponentially growing
+// cap, so clients that failed together do not retry together. A Retry-After
+// header on a 429/503 is honoured when it asks for a longer wait.
+public class RetryPolicy {
+    public static final RetryPolicy NONE = new RetryPolicy(1, Duration.ZERO, Duration.ZERO);
+
+    private final int maxAttempts;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+
+    public RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayNanos = baseDelay.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    // 3 attempts, 100 ms base delay, at most 2 s between attempts
+    public static RetryPolicy defaults() {
+        return new RetryPolicy(3, Duration.ofMillis(100), Duration.ofSeconds(2));
+    }
+
+    public int getMaxAttempts() { return maxAttempts; }
+
+    // Statuses worth another attempt: throttling and transient server errors
+    static boolean isRetryableStatus(int statusCode) {
+        return statusCode == 429 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+
+    // Wait before the attempt following failedAttempt (0-based)
+    long delayNanos(int failedAttempt, HttpResponse<?> response) {
+        long cap = baseDelayNanos << Math.min(failedAttempt, 30);
+        if (cap <= 0 || cap > maxDelayNanos) {
+            cap = maxDelayNanos;
+        }
+        long delay = cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+        if (response != null) {
+            long retryAfter = response.headers().firstValue("Retry-After")
+                .map(RetryPolicy::parseRetryAfterSeconds)
+                .orElse(0L);
+            delay = Math.max(delay, Math.min(TimeUnit.SECONDS.toNanos(retryAfter), maxDelayNanos));
+        }
+        return delay;
+    }
+
+    private static long parseRetryAfterSeconds(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0; // HTTP-date form is not worth the parsing here
+        }
+    }
+}
+
+// Per-endpoint breaker: after failureThreshold consecutive failures the
+// endpoint is short-circuited for openDuration, then a single trial call is
+// let through and its outcome closes or re-opens the breaker. All state is
+// in atomics, so checking the breaker never blocks.
+//
+// allowRequest() hands out a permit that the caller passes back with the
+// outcome. The trial's permit is unique, so only the trial's own outcome
+// settles the half-open state; late outcomes of calls admitted before the
+// breaker opened are ignored while it is open.
+class CircuitBreaker {
+    static final long REJECTED = -1;
+    static final long ADMITTED = 0;
+    private static final long CLOSED = Long.MIN_VALUE;
+    private static final long NO_TRIAL = 0;
+
+    private final String endpoint;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openedAt = new AtomicLong(CLOSED);
+    // permit of the trial in flight, or NO_TRIAL
+    private final AtomicLong trial = new AtomicLong(NO_TRIAL);
+    private final AtomicLong trials = new AtomicLong();
+
+    CircuitBreaker(String endpoint, int failureThreshold, Duration openDuration) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be at least 1");
+        }
+        this.endpoint = endpoint;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    // REJECTED, ADMITTED, or a positive permit for the half-open trial
+    long allowRequest() {
+        long opened = openedAt.get();
+        if (opened == CLOSED) {
+            return ADMITTED;
+        }
+        if (System.nanoTime() - opened < openNanos || trial.get() != NO_TRIAL) {
+            return REJECTED;
+        }
+        // Half-open: exactly one caller gets to try
+        long permit = trials.incrementAndGet();
+        return trial.compareAndSet(NO_TRIAL, permit) ? permit : REJECTED;
+    }
+
+    void onSuccess(long permit) {
+        if (permit > 0) {
+            if (trial.get() == permit) {
+                consecutiveFailures.set(0);
+                openedAt.set(CLOSED);
+                trial.set(NO_TRIAL);
+            }
+        } else if (openedAt.get() == CLOSED) {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    void onFailure(long permit) {
+        if (permit > 0) {
+            if (trial.get() == permit) {
+                openedAt.set(System.nanoTime());
+                trial.set(NO_TRIAL);
+            }
+        } else if (openedAt.get() == CLOSED && consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt.compareAndSet(CLOSED, System.nanoTime());
+        }
+    }
+
+    boolean isOpen() {
+        return openedAt.get() != CLOSED;
+    }
+
+    CircuitBreakerOpenException rejection() {
+        return new CircuitBreakerOpenException("Circuit breaker open for " + endpoint);
+    }
+}
+
+class CircuitBreakerOpenException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+}
+
+// Keeps the last SAMPLES latencies of an endpoint in a ring buffer and
+// recomputes the 95th percentile every RECOMPUTE_EVERY samples, so reading the
+// hedge threshold on the request path is a single volatile load.
+class LatencyTracker {
+    private static final int SAMPLES = 256;
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final AtomicLongArray samples = new AtomicLongArray(SAMPLES);
+    private final AtomicLong count = new AtomicLong();
+    private volatile long p95Nanos = -1;
+
+    void record(long latencyNanos) {
+        long n = count.getAndIncrement();
+        samples.set((int) (n % SAMPLES), latencyNanos);
+        if ((n + 1) % RECOMPUTE_EVERY == 0) {
+            int filled = (int) Math.min(n + 1, SAMPLES);
+            long[] copy = new long[filled];
+            for (int i = 0; i < filled; i++) {
+                copy[i] = samples.get(i);
+            }
+            Arrays.sort(copy);
+            p95Nanos = copy[(int) Math.ceil(filled * 0.95) - 1];
+        }
+    }
+
+    // -1 until enough samples have been seen
+    long p95Nanos() {
+        return p95Nanos;
+    }
+}
@@ -0,0 +1,556 @@
+// ICICI Banking API - Stub Bank Server
+// HTTP stand-in for the bank: answers every endpoint ICICIBankingAPI calls with
+// the JSON shapes of its DTOs, with injectable latency, errors and 429s per
+// endpoint. The account and beneficiary lists carry an ETag and
+// Last-Modified and answer matching conditional GETs with 304, and bodies of
+// 1 KB or more are gzipped for clients that accept it. Runs in-process (benchmarks, LoadGenerator) or on its own:
+//   java StubBankServer [port=8080] [accounts=10] [rows=1000]
+//        [latencyMs=0] [jitterMs=0] [errorRate=0] [throttleRate=0]
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Everything is served under /v1 on the given port (0 picks a free one).
+// Fixed responses are encoded once up front; account details, balances and
+// transaction pages are encoded on first request and then reused, so the
+// server's own cost per call is little more than the HTTP exchange.
+//
+// Faults are set per endpoint, keyed the way ICICIBankingAPI names them
+// ("GET /accounts/*/balance", "POST /transfers", ...), with "*" covering every
+// endpoint that has no entry of its own. Injected latency is applied by
+// scheduling the response, not by sleeping, so a slow endpoint does not tie
+// up the server's worker threads and queue unrelated calls behind it.
+class StubBankServer implements AutoCloseable {
+    static final String ALL_ENDPOINTS = "*";
+    private static final int MAX_CACHED_RESPONSES = 4096;
+    private static final int GZIP_MIN_BYTES = 1024;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+    private static final int HISTORY_DAYS = 366;
+
+    static {
+        // The JDK server writes headers and body separately; without
+        // TCP_NODELAY every exchange waits out a delayed ACK (~40 ms)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final JsonCodec codec;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService delayer;
+    private final int historyRows;
+    private final Map<String, Account> accounts = new LinkedHashMap<>();
+    private final Map<String, Faults> faults = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> encoded = new ConcurrentHashMap<>();
+    // keyed by the identity of the (cached) uncompressed body
+    private final Map<byte[], byte[]> gzipped = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final AtomicLong sequence = new AtomicLong();
+    private final byte[] auth;
+    private final byte[] accountList;
+    private final byte[] beneficiaryList;
+    private final byte[] beneficiaryAdded;
+    private final String accountListTag;
+    private final String beneficiaryListTag;
+    // The lists never change, so they were last modified at startup
+    private final ZonedDateTime started = ZonedDateTime.now(ZoneOffset.UTC).withNano(0);
+    private final String lastModified = DateTimeFormatter.RFC_1123_DATE_TIME.format(started);
+
+    StubBankServer(JsonCodec codec) throws IOException {
+        this(codec, 0, 10, 1000);
+    }
+
+    StubBankServer(JsonCodec codec, int port, int accountCount, int historyRows) throws IOException {
+        this.codec = codec;
+        this.historyRows = historyRows;
+
+        AuthResponse authResponse = new AuthResponse();
+        authResponse.setAccessToken("stub-access-token");
+        authResponse.setTokenType("Bearer");
+        authResponse.setExpiresIn(3600);
+        authResponse.setRefreshToken("stub-refresh-token");
+        auth = codec.encode(authResponse);
+
+        for (int i = 0; i < accountCount; i++) {
+            Account account = new Account();
+            account.setAccountNumber(accountNumber(i));
+            account.setAccountType(i % 3 == 0 ? "CURRENT" : "SAVINGS");
+            account.setAccountName("Stub Account " + i);
+            account.setBranchCode("0001");
+            account.setIfscCode("ICIC0000001");
+            account.setStatus("ACTIVE");
+            accounts.put(account.getAccountNumber(), account);
+        }
+        AccountListResponse accountListResponse = new AccountListResponse();
+        accountListResponse.setAccounts(new ArrayList<>(accounts.values()));
+        accountList = codec.encode(accountListResponse);
+        accountListTag = entityTag(accountList);
+
+        List<Beneficiary> beneficiaries = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            beneficiaries.add(beneficiary(i));
+        }
+        BeneficiaryListResponse beneficiaryListResponse = new BeneficiaryListResponse();
+        beneficiaryListResponse.setBeneficiaries(beneficiaries);
+        beneficiaryList = codec.encode(beneficiaryListResponse);
+        beneficiaryListTag = entityTag(beneficiaryList);
+
+        BeneficiaryResponse beneficiaryResponse = new BeneficiaryResponse();
+        beneficiaryResponse.setBeneficiary(beneficiary(25));
+        beneficiaryResponse.setStatus("SUCCESS");
+        beneficiaryResponse.setMessage("Beneficiary added");
+        beneficiaryAdded = codec.encode(beneficiaryResponse);
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        executor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()),
+            daemon("stub-bank-worker"));
+        delayer = Executors.newSingleThreadScheduledExecutor(daemon("stub-bank-delay"));
+        server.setExecutor(executor);
+        server.createContext("/v1/", this::handle);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+    }
+
+    List<String> accountNumbers() {
+        return new ArrayList<>(accounts.keySet());
+    }
+
+    void setFaults(String endpoint, Faults endpointFaults) {
+        faults.put(endpoint, endpointFaults);
+    }
+
+    void clearFaults() {
+        faults.clear();
+    }
+
+    // Requests received per endpoint, including those answered with an
+    // injected failure
+    Map<String, Long> requestCounts() {
+        Map<String, Long> counts = new HashMap<>();
+        requestCounts.forEach((endpoint, count) -> counts.put(endpoint, count.sum()));
+        return Collections.unmodifiableMap(counts);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        delayer.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream request = exchange.getRequestBody()) {
+            request.transferTo(OutputStream.nullOutputStream());
+        }
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getRawPath().substring("/v1".length());
+        String endpoint = endpointOf(method, path);
+        requestCounts.computeIfAbsent(endpoint, key -> new LongAdder()).increment();
+
+        Faults endpointFaults = faults.getOrDefault(endpoint, faults.getOrDefault(ALL_ENDPOINTS, Faults.NONE));
+        int status;
+        byte[] body;
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < endpointFaults.throttleRate) {
+            status = 429;
+            body = error("Too many requests");
+            exchange.getResponseHeaders().set("Retry-After", "1");
+        } else if (roll < endpointFaults.throttleRate + endpointFaults.errorRate) {
+            status = endpointFaults.errorStatus;
+            body = error("Injected failure");
+        } else {
+            Response response = respond(method, path, exchange.getRequestURI().getRawQuery());
+            if (response.entityTag != null) {
+                exchange.getResponseHeaders().set("ETag", response.entityTag);
+                exchange.getResponseHeaders().set("Last-Modified", lastModified);
+                if (notModified(exchange, response.entityTag)) {
+                    response = new Response(304, new byte[0]);
+                }
+            }
+            status = response.status;
+            body = acceptsGzip(exchange) && response.body.length >= GZIP_MIN_BYTES
+                ? gzip(exchange, response.body) : response.body;
+        }
+
+        long delay = endpointFaults.delayNanos();
+        if (delay <= 0) {
+            send(exchange, status, body);
+            return;
+        }
+        delayer.schedule(() -> executor.execute(() -> {
+            try {
+                send(exchange, status, body);
+            } catch (IOException e) {
+                exchange.close();
+            }
+        }), delay, TimeUnit.NANOSECONDS);
+    }
+
+    private Response respond(String method, String path, String query) {
+        String[] segments = path.split("/");
+        String root = segments.length > 1 ? segments[1] : "";
+        boolean get = method.equals("GET");
+        switch (root) {
+            case "auth":
+                if (path.equals("/auth/logout")) {
+                    return new Response(200, new byte[0]);
+                }
+                return new Response(200, auth);
+            case "accounts":
+                if (!get) {
+                    break;
+                }
+                if (segments.length == 2) {
+                    return new Response(200, accountList, accountListTag);
+                }
+                Account account = accounts.get(segments[2]);
+                if (account == null) {
+                    return new Response(404, error("Unknown account " + segments[2]));
+                }
+                if (segments.length == 3) {
+                    return new Response(200, cached(path, () -> accountDetails(account)));
+                }
+                if (segments.length == 4 && segments[3].equals("balance")) {
+                    return new Response(200, cached(path, () -> balance(account)));
+                }
+                if (segments.length == 4 && segments[3].equals("transactions")) {
+                    return new Response(200, cached(path + '?' + query, () -> history(account, query)));
+                }
+                break;
+            case "transfers":
+                if (!get && segments.length == 2) {
+                    return new Response(200, transfer());
+                }
+                break;
+            case "payments":
+                if (!get && path.equals("/payments/bills")) {
+                    return new Response(200, payment());
+                }
+                break;
+            case "beneficiaries":
+                if (segments.length == 2) {
+                    return get ? new Response(200, beneficiaryList, beneficiaryListTag)
+                        : new Response(201, beneficiaryAdded);
+                }
+                break;
+            default:
+                break;
+        }
+        return new Response(404, error("No such endpoint: " + method + " " + path));
+    }
+
+    private byte[] cached(String key, EncodedBody body) {
+        byte[] bytes = encoded.get(key);
+        if (bytes == null) {
+            bytes = body.encode();
+            if (encoded.size() < MAX_CACHED_RESPONSES) {
+                encoded.putIfAbsent(key, bytes);
+            }
+        }
+        return bytes;
+    }
+
+    private byte[] accountDetails(Account account) {
+        AccountDetailsResponse details = new AccountDetailsResponse();
+        details.setAccount(account);
+        details.setBalance(new BigDecimal("152340.75"));
+        details.setAvailableBalance(new BigDecimal("150000.00"));
+        return encode(details);
+    }
+
+    private byte[] balance(Account account) {
+        BalanceResponse balance = new BalanceResponse();
+        balance.setAccountNumber(account.getAccountNumber());
+        balance.setBalance(new BigDecimal("152340.75"));
+        balance.setAvailableBalance(new BigDecimal("150000.00"));
+        balance.setCurrency("INR");
+        balance.setAsOfDate("2024-08-12T10:15:00");
+        return encode(balance);
+    }
+
+    // historyRows transactions spread evenly over 2024, filtered by from/to
+    // and paged with limit/offset; total_count is the filtered row count
+    private byte[] history(Account account, String query) {
+        Map<String, String> parameters = parameters(query);
+        String from = parameters.getOrDefault("from", "0000-00-00");
+        String to = parameters.getOrDefault("to", "9999-99-99");
+        int limit = Integer.parseInt(parameters.getOrDefault("limit", "100"));
+        int offset = Integer.parseInt(parameters.getOrDefault("offset", "0"));
+
+        List<Transaction> page = new ArrayList<>(Math.min(limit, historyRows));
+        int matched = 0;
+        for (int i = 0; i < historyRows; i++) {
+            String date = FIRST_DAY.plusDays((long) i * HISTORY_DAYS / historyRows).toString();
+            if (date.compareTo(from) < 0 || date.compareTo(to) > 0) {
+                continue;
+            }
+            if (matched >= offset && page.size() < limit) {
+                page.add(transaction(account.getAccountNumber(), i, date));
+            }
+            matched++;
+        }
+        TransactionHistoryResponse response = new TransactionHistoryResponse();
+        response.setTransactions(page);
+        response.setTotalCount(matched);
+        return encode(response);
+    }
+
+    private static Transaction transaction(String accountNumber, int row, String date) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId("TXN" + accountNumber + "-" + row);
+        transaction.setAccountNumber(accountNumber);
+        transaction.setAmount(new BigDecimal(row % 2 == 0 ? "2500.00" : "-499.50"));
+        transaction.setTransactionType(row % 2 == 0 ? "CREDIT" : "DEBIT");
+        transaction.setDescription("UPI/" + (400000 + row) + "/Payment");
+        transaction.setDate(date);
+        transaction.setBalance(new BigDecimal("150000.00").add(BigDecimal.valueOf(row)));
+        transaction.setReferenceNumber("REF" + (900000 + row));
+        return transaction;
+    }
+
+    private byte[] transfer() {
+        long id = sequence.incrementAndGet();
+        TransferResponse response = new TransferResponse();
+        response.setTransactionId("TXN" + id);
+        response.setReferenceNumber("REF" + id);
+        response.setStatus("SUCCESS");
+        response.setMessage("Transfer completed");
+        response.setAmount(new BigDecimal("1000.00"));
+        response.setCharges(new BigDecimal("5.00"));
+        return encode(response);
+    }
+
+    private byte[] payment() {
+        long id = sequence.incrementAndGet();
+        PaymentResponse response = new PaymentResponse();
+        response.setPaymentId("PAY" + id);
+        response.setReferenceNumber("REF" + id);
+        response.setStatus("SUCCESS");
+        response.setMessage("Bill paid");
+        response.setAmount(new BigDecimal("1250.00"));
+        response.setTransactionDate("2024-08-12");
+        return encode(response);
+    }
+
+    private static Beneficiary beneficiary(int i) {
+        Beneficiary beneficiary = new Beneficiary();
+        beneficiary.setBeneficiaryId("BEN" + (1000 + i));
+        beneficiary.setName("Beneficiary " + i);
+        beneficiary.setAccountNumber("50100" + (200000 + i));
+        beneficiary.setIfscCode("HDFC0000" + (100 + i));
+        beneficiary.setBankName("HDFC Bank");
+        beneficiary.setNickname("ben-" + i);
+        beneficiary.setStatus("ACTIVE");
+        return beneficiary;
+    }
+
+    private byte[] encode(Object value) {
+        try {
+            return codec.encode(value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    private static byte[] error(String message) {
+        return ("{\"message\":\"" + message.replace("\"", "'") + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    // If-None-Match takes precedence over If-Modified-Since, as in RFC 9110
+    private boolean notModified(HttpExchange exchange, String entityTag) {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                if (candidate.equals("*") || candidate.equals(entityTag) || candidate.equals("W/" + entityTag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        if (ifModifiedSince == null) {
+            return false;
+        }
+        try {
+            return !ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).isBefore(started);
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private static boolean acceptsGzip(HttpExchange exchange) {
+        String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        return accept != null && accept.toLowerCase().contains("gzip");
+    }
+
+    // Bodies this large are the cached lists and history pages, so their
+    // compressed form is cached too
+    private byte[] gzip(HttpExchange exchange, byte[] body) {
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        byte[] compressed = gzipped.get(body);
+        if (compressed == null) {
+            compressed = ContentEncoding.gzip(body);
+            if (gzipped.size() < MAX_CACHED_RESPONSES) {
+                gzipped.put(body, compressed);
+            }
+        }
+        return compressed;
+    }
+
+    private static String entityTag(byte[] body) {
+        return '"' + Integer.toHexString(Arrays.hashCode(body)) + '"';
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream response = exchange.getResponseBody()) {
+            response.write(body);
+        }
+    }
+
+    // Same normalisation as ICICIBankingAPI.endpointOf: account, beneficiary,
+    // transfer and payment ids become "*"
+    static String endpointOf(String method, String path) {
+        StringBuilder endpoint = new StringBuilder(method).append(' ');
+        String[] segments = path.split("/");
+        for (int i = 1; i < segments.length; i++) {
+            boolean id = (i == 2 && (segments[1].equals("accounts") || segments[1].equals("beneficiaries")
+                    || segments[1].equals("transfers")))
+                || (i == 3 && segments[1].equals("payments"));
+            endpoint.append('/').append(id ? "*" : segments[i]);
+        }
+        return endpoint.toString();
+    }
+
+    private static Map<String, String> parameters(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                int equals = parameter.indexOf('=');
+                if (equals > 0) {
+                    parameters.put(parameter.substring(0, equals), parameter.substring(equals + 1));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    static String accountNumber(int i) {
+        return String.valueOf(1000000000L + i);
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicLong count = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int accountCount = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int rows = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        Faults everywhere = new Faults(
+            Duration.ofMillis(args.length > 3 ? Long.parseLong(args[3]) : 0),
+            Duration.ofMillis(args.length > 4 ? Long.parseLong(args[4]) : 0),
+            args.length > 5 ? Double.parseDouble(args[5]) : 0, 503,
+            args.length > 6 ? Double.parseDouble(args[6]) : 0);
+        StubBankServer stub = new StubBankServer(
+            JsonCodec.withGeneratedCodecs(new ObjectMapper()), port, accountCount, rows);
+        stub.setFaults(ALL_ENDPOINTS, everywhere);
+        System.out.println("Stub bank listening on " + stub.baseUrl() + " with accounts " + stub.accountNumbers());
+        Thread.currentThread().join();
+    }
+
+    private interface EncodedBody {
+        byte[] encode();
+    }
+
+    private static final class Response {
+        final int status;
+        final byte[] body;
+        final String entityTag;
+
+        Response(int status, byte[] body) {
+            this(status, body, null);
+        }
+
+        Response(int status, byte[] body, String entityTag) {
+            this.status = status;
+            this.body = body;
+            this.entityTag = entityTag;
+        }
+    }
+
+    // What to do to one endpoint's calls: delay every response by latency
+    // plus a uniform random jitter, and answer a fraction of calls with 429
+    // (throttleRate, with Retry-After: 1) or with errorStatus (errorRate)
+    // instead of the real response
+    static final class Faults {
+        static final Faults NONE = new Faults(Duration.ZERO, Duration.ZERO, 0, 500, 0);
+
+        final long latencyNanos;
+        final long jitterNanos;
+        final double errorRate;
+        final int errorStatus;
+        final double throttleRate;
+
+        Faults(Duration latency, Duration jitter, double errorRate, int errorStatus, double throttleRate) {
+            if (errorRate < 0 || throttleRate < 0 || errorRate + throttleRate > 1) {
+                throw new IllegalArgumentException("errorRate and throttleRate must be in [0, 1] and sum to at most 1");
+            }
+            this.latencyNanos = latency.toNanos();
+            this.jitterNanos = jitter.toNanos();
+            this.errorRate = errorRate;
+            this.errorStatus = errorStatus;
+            this.throttleRate = throttleRate;
+        }
+
+        static Faults latency(Duration latency, Duration jitter) {
+            return new Faults(latency, jitter, 0, 500, 0);
+        }
+
+        long delayNanos() {
+            return latencyNanos + (jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(jitterNanos + 1) : 0);
+        }
+    }
+}
@@ -0,0 +1,405 @@
+// ICICI Banking API - Transaction Analytics
+// Group-by/sum/count/min/max over fetched transactions, by transaction type,
+// account, day or counterparty, restricted to a date range and a set of
+// transaction types. All arithmetic is on long paise, so totals are exact.
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+// Works on TransactionBlocks (one per account, or any other split). Rows are
+// cut into chunks that a parallel stream spreads over the common fork-join
+// pool; each worker folds its chunks into flat long[] accumulators indexed by
+// a dense group code and the partial accumulators are added at the end, so
+// the hot loop touches only primitive columns and never boxes or allocates.
+//
+// Transaction types and account numbers are remapped from each block's own
+// dictionary to one shared code space up front. Days are coded as the offset
+// from the first day in range. Counterparty codes come from a caller-supplied
+// function of the description, evaluated once per row per query.
+//
+// A row is a credit or a debit by its transaction_type (CREDIT or DEBIT, in
+// any case), which holds whichever sign convention the bank uses for
+// amounts; only rows with another or no type fall back to the amount's sign.
+//
+// Rows without an amount are ignored; rows whose date does not start with
+// yyyy-MM-dd are ignored whenever a date bound is given or the grouping is by
+// day.
+public final class TransactionAnalytics {
+    private static final int CHUNK_ROWS = 1 << 14;
+
+    private final List<TransactionBlock> blocks;
+    private final List<String> types = new ArrayList<>();
+    private final List<String> accounts = new ArrayList<>();
+    private final int[][] typeCodes;
+    private final int[][] accountCodes;
+    private final int minDay;
+    private final int maxDay;
+    // Per shared type code: CREDIT, DEBIT or BY_SIGN
+    private final int[] directions;
+
+    private TransactionAnalytics(List<TransactionBlock> blocks) {
+        this.blocks = blocks;
+        this.typeCodes = new int[blocks.size()][];
+        this.accountCodes = new int[blocks.size()][];
+        Map<String, Integer> typeIndex = new HashMap<>();
+        Map<String, Integer> accountIndex = new HashMap<>();
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int b = 0; b < blocks.size(); b++) {
+            TransactionBlock block = blocks.get(b);
+            typeCodes[b] = remap(block.transactionTypes(), typeIndex, types);
+            accountCodes[b] = remap(block.accountNumbers(), accountIndex, accounts);
+            for (int row = 0; row < block.size(); row++) {
+                int day = block.epochDay(row);
+                if (day != TransactionBlock.NULL_DAY) {
+                    min = Math.min(min, day);
+                    max = Math.max(max, day);
+                }
+            }
+        }
+        this.minDay = min;
+        this.maxDay = max;
+        this.directions = new int[types.size()];
+        for (int code = 0; code < directions.length; code++) {
+            String type = types.get(code);
+            directions[code] = "CREDIT".equalsIgnoreCase(type) ? Accumulator.CREDIT
+                : "DEBIT".equalsIgnoreCase(type) ? Accumulator.DEBIT : Accumulator.BY_SIGN;
+        }
+    }
+
+    public static TransactionAnalytics of(Collection<TransactionBlock> blocks) {
+        return new TransactionAnalytics(List.copyOf(blocks));
+    }
+
+    public static TransactionAnalytics of(TransactionBlock... blocks) {
+        return new TransactionAnalytics(List.of(blocks));
+    }
+
+    public static TransactionAnalytics ofTransactions(List<Transaction> transactions) {
+        return of(TransactionBlock.of(transactions));
+    }
+
+    // Totals over [from, to] for the given transaction types. A null bound
+    // is open; null types means every type.
+    public Summary total(LocalDate from, LocalDate to, Set<String> transactionTypes) {
+        Map<Integer, Summary> all = summarize(GroupBy.ALL, from, to, transactionTypes);
+        return all.isEmpty() ? Summary.EMPTY : all.get(0);
+    }
+
+    // One Summary per non-empty group, in key order
+    public <K extends Comparable<? super K>> SortedMap<K, Summary> summarize(GroupBy<K> groupBy,
+            LocalDate from, LocalDate to, Set<String> transactionTypes) {
+        int fromDay = from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+        int toDay = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+        boolean needsDay = from != null || to != null || groupBy.kind == GroupBy.DAY_KIND;
+        boolean[] allowedTypes = allowedTypes(transactionTypes);
+        Keys keys = keys(groupBy, Math.max(fromDay, minDay), Math.min(toDay, maxDay));
+
+        SortedMap<K, Summary> result = new TreeMap<>();
+        if (keys.width <= 0) {
+            return result;
+        }
+        Accumulator total = Arrays.stream(chunks()).parallel().collect(
+            () -> new Accumulator(keys.width),
+            (accumulator, chunk) -> accumulate(accumulator, chunk, keys, fromDay, toDay, needsDay, allowedTypes),
+            Accumulator::merge);
+
+        for (int key = 0; key < keys.width; key++) {
+            if (total.counts[key] > 0) {
+                result.put(groupBy.decode(keys.names, keys.firstDay, key), total.summary(key));
+            }
+        }
+        return result;
+    }
+
+    public List<String> getTransactionTypes() { return List.copyOf(types); }
+    public List<String> getAccountNumbers() { return List.copyOf(accounts); }
+
+    // Each chunk is encoded as block index << 32 | first row
+    private long[] chunks() {
+        List<Long> starts = new ArrayList<>();
+        for (int b = 0; b < blocks.size(); b++) {
+            for (int row = 0; row < blocks.get(b).size(); row += CHUNK_ROWS) {
+                starts.add((long) b << 32 | row);
+            }
+        }
+        return starts.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private void accumulate(Accumulator accumulator, long chunk, Keys keys,
+            int fromDay, int toDay, boolean needsDay, boolean[] allowedTypes) {
+        int b = (int) (chunk >>> 32);
+        TransactionBlock block = blocks.get(b);
+        int start = (int) chunk;
+        int end = Math.min(start + CHUNK_ROWS, block.size());
+        int[] blockTypes = typeCodes[b];
+        int[] blockKeys = keys.codes == null ? null : keys.codes[b];
+        for (int row = start; row < end; row++) {
+            long paise = block.amountPaise(row);
+            if (paise == TransactionBlock.NULL_AMOUNT) {
+                continue;
+            }
+            int day = block.epochDay(row);
+            if (needsDay && (day == TransactionBlock.NULL_DAY || day < fromDay || day > toDay)) {
+                continue;
+            }
+            int type = block.transactionTypeCode(row);
+            if (allowedTypes != null && (type == TransactionBlock.NULL_CODE || !allowedTypes[blockTypes[type]])) {
+                continue;
+            }
+            int key;
+            switch (keys.kind) {
+                case GroupBy.ALL_KIND:
+                    key = 0;
+                    break;
+                case GroupBy.DAY_KIND:
+                    key = day - keys.firstDay;
+                    break;
+                case GroupBy.TYPE_KIND:
+                    key = type == TransactionBlock.NULL_CODE ? TransactionBlock.NULL_CODE : blockKeys[type];
+                    break;
+                case GroupBy.ACCOUNT_KIND:
+                    int account = block.accountNumberCode(row);
+                    key = account == TransactionBlock.NULL_CODE ? TransactionBlock.NULL_CODE : blockKeys[account];
+                    break;
+                default:
+                    key = blockKeys[row];
+                    break;
+            }
+            if (key != TransactionBlock.NULL_CODE) {
+                accumulator.add(key, paise,
+                    type == TransactionBlock.NULL_CODE ? Accumulator.BY_SIGN : directions[blockTypes[type]]);
+            }
+        }
+    }
+
+    private boolean[] allowedTypes(Set<String> transactionTypes) {
+        if (transactionTypes == null) {
+            return null;
+        }
+        boolean[] allowed = new boolean[types.size()];
+        for (int code = 0; code < types.size(); code++) {
+            allowed[code] = transactionTypes.contains(types.get(code));
+        }
+        return allowed;
+    }
+
+    private Keys keys(GroupBy<?> groupBy, int firstDay, int lastDay) {
+        switch (groupBy.kind) {
+            case GroupBy.ALL_KIND:
+                return new Keys(GroupBy.ALL_KIND, 1, null, null, firstDay);
+            case GroupBy.TYPE_KIND:
+                return new Keys(GroupBy.TYPE_KIND, types.size(), typeCodes, types.toArray(new String[0]), firstDay);
+            case GroupBy.ACCOUNT_KIND:
+                return new Keys(GroupBy.ACCOUNT_KIND, accounts.size(), accountCodes, accounts.toArray(new String[0]), firstDay);
+            case GroupBy.DAY_KIND:
+                return new Keys(GroupBy.DAY_KIND, firstDay > lastDay ? 0 : lastDay - firstDay + 1, null, null, firstDay);
+            default:
+                return counterpartyKeys(groupBy.counterparty, firstDay);
+        }
+    }
+
+    // Row-level codes from the counterparty function, assigned concurrently
+    private Keys counterpartyKeys(Function<String, String> counterparty, int firstDay) {
+        Map<String, Integer> index = new ConcurrentHashMap<>();
+        AtomicInteger next = new AtomicInteger();
+        int[][] rowCodes = new int[blocks.size()][];
+        for (int b = 0; b < blocks.size(); b++) {
+            TransactionBlock block = blocks.get(b);
+            int[] codes = new int[block.size()];
+            IntStream.range(0, block.size()).parallel().forEach(row -> {
+                String name = counterparty.apply(block.description(row));
+                codes[row] = name == null ? TransactionBlock.NULL_CODE
+                    : index.computeIfAbsent(name, n -> next.getAndIncrement());
+            });
+            rowCodes[b] = codes;
+        }
+        String[] names = new String[next.get()];
+        index.forEach((name, code) -> names[code] = name);
+        return new Keys(GroupBy.COUNTERPARTY_KIND, names.length, rowCodes, names, firstDay);
+    }
+
+    private static int[] remap(List<String> dictionary, Map<String, Integer> index, List<String> values) {
+        int[] codes = new int[dictionary.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = index.computeIfAbsent(dictionary.get(i), value -> {
+                values.add(value);
+                return values.size() - 1;
+            });
+        }
+        return codes;
+    }
+
+    // Dense key space for one query. For types and accounts codes[b] maps a
+    // block's dictionary code to the key; for counterparties codes[b][row]
+    // is the row's key; days are keyed by offset from firstDay.
+    private static final class Keys {
+        final int kind;
+        final int width;
+        final int[][] codes;
+        final String[] names;
+        final int firstDay;
+
+        Keys(int kind, int width, int[][] codes, String[] names, int firstDay) {
+            this.kind = kind;
+            this.width = width;
+            this.codes = codes;
+            this.names = names;
+            this.firstDay = firstDay;
+        }
+    }
+
+    private static final class Accumulator {
+        static final int BY_SIGN = 0;
+        static final int CREDIT = 1;
+        static final int DEBIT = 2;
+
+        final long[] counts;
+        final long[] sums;
+        final long[] credits;
+        final long[] debits;
+        final long[] mins;
+        final long[] maxes;
+
+        Accumulator(int width) {
+            counts = new long[width];
+            sums = new long[width];
+            credits = new long[width];
+            debits = new long[width];
+            mins = new long[width];
+            maxes = new long[width];
+            Arrays.fill(mins, Long.MAX_VALUE);
+            Arrays.fill(maxes, Long.MIN_VALUE);
+        }
+
+        void add(int key, long paise, int direction) {
+            counts[key]++;
+            sums[key] = Math.addExact(sums[key], paise);
+            if (direction == CREDIT || direction == BY_SIGN && paise >= 0) {
+                credits[key] = Math.addExact(credits[key], Math.abs(paise));
+            } else {
+                debits[key] = Math.subtractExact(debits[key], Math.abs(paise));
+            }
+            if (paise < mins[key]) {
+                mins[key] = paise;
+            }
+            if (paise > maxes[key]) {
+                maxes[key] = paise;
+            }
+        }
+
+        void merge(Accumulator other) {
+            for (int key = 0; key < counts.length; key++) {
+                counts[key] += other.counts[key];
+                sums[key] = Math.addExact(sums[key], other.sums[key]);
+                credits[key] = Math.addExact(credits[key], other.credits[key]);
+                debits[key] = Math.addExact(debits[key], other.debits[key]);
+                mins[key] = Math.min(mins[key], other.mins[key]);
+                maxes[key] = Math.max(maxes[key], other.maxes[key]);
+            }
+        }
+
+        Summary summary(int key) {
+            return new Summary(counts[key], sums[key], credits[key], debits[key], mins[key], maxes[key]);
+        }
+    }
+
+    // What to group by. DAY keys are LocalDates; the others are Strings.
+    public static final class GroupBy<K extends Comparable<? super K>> {
+        private static final int ALL_KIND = 0;
+        private static final int TYPE_KIND = 1;
+        private static final int ACCOUNT_KIND = 2;
+        private static final int DAY_KIND = 3;
+        private static final int COUNTERPARTY_KIND = 4;
+
+        static final GroupBy<Integer> ALL = new GroupBy<>(ALL_KIND, null);
+        public static final GroupBy<String> TRANSACTION_TYPE = new GroupBy<>(TYPE_KIND, null);
+        public static final GroupBy<String> ACCOUNT_NUMBER = new GroupBy<>(ACCOUNT_KIND, null);
+        public static final GroupBy<LocalDate> DAY = new GroupBy<>(DAY_KIND, null);
+
+        private final int kind;
+        private final Function<String, String> counterparty;
+
+        private GroupBy(int kind, Function<String, String> counterparty) {
+            this.kind = kind;
+            this.counterparty = counterparty;
+        }
+
+        // Groups by the counterparty the function extracts from a row's
+        // description (which may be null); rows it maps to null are skipped.
+        // The function must be thread-safe.
+        public static GroupBy<String> counterparty(Function<String, String> fromDescription) {
+            return new GroupBy<>(COUNTERPARTY_KIND, fromDescription);
+        }
+
+        @SuppressWarnings("unchecked")
+        private K decode(String[] names, int firstDay, int key) {
+            switch (kind) {
+                case ALL_KIND:
+                    return (K) Integer.valueOf(0);
+                case DAY_KIND:
+                    return (K) LocalDate.ofEpochDay(firstDay + key);
+                default:
+                    return (K) names[key];
+            }
+        }
+    }
+
+    // Aggregate of the amounts in one group. Credits are the total of the
+    // credit rows as a positive amount, debits the total of the debit rows as
+    // a negative one, so credits + debits is the net flow. Sum is the plain sum
+    // of the amounts; it equals the net flow when the bank signs debits
+    // negative.
+    public static final class Summary {
+        static final Summary EMPTY = new Summary(0, 0, 0, 0, TransactionBlock.NULL_AMOUNT, TransactionBlock.NULL_AMOUNT);
+
+        private final long count;
+        private final long sumPaise;
+        private final long creditPaise;
+        private final long debitPaise;
+        private final long minPaise;
+        private final long maxPaise;
+
+        Summary(long count, long sumPaise, long creditPaise, long debitPaise, long minPaise, long maxPaise) {
+            this.count = count;
+            this.sumPaise = sumPaise;
+            this.creditPaise = creditPaise;
+            this.debitPaise = debitPaise;
+            this.minPaise = minPaise;
+            this.maxPaise = maxPaise;
+        }
+
+        public long getCount() { return count; }
+        public long getSumPaise() { return sumPaise; }
+        public long getCreditPaise() { return creditPaise; }
+        public long getDebitPaise() { return debitPaise; }
+        // NULL_AMOUNT for an empty summary
+        public long getMinPaise() { return minPaise; }
+        public long getMaxPaise() { return maxPaise; }
+
+        public BigDecimal getSum() { return TransactionBlock.toAmount(sumPaise); }
+        public BigDecimal getCredits() { return TransactionBlock.toAmount(creditPaise); }
+        public BigDecimal getDebits() { return TransactionBlock.toAmount(debitPaise); }
+        public BigDecimal getMin() { return TransactionBlock.toAmount(minPaise); }
+        public BigDecimal getMax() { return TransactionBlock.toAmount(maxPaise); }
+
+        @Override
+        public String toString() {
+            return "Summary{count=" + count + ", sum=" + getSum() + ", credits=" + getCredits()
+                + ", debits=" + getDebits() + ", min=" + getMin() + ", max=" + getMax() + "}";
+        }
+    }
+}
@@ -0,0 +1,528 @@
+// ICICI Banking API - Columnar Transaction Block
+// Compact, read-only column store for large transaction sets: amounts in
+// paise, dates as epoch days, dictionary-coded repeated strings, and
+// Transaction objects only materialised on demand.
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+// Per row the block keeps two longs (amount and balance in paise), two ints
+// for the date, two int dictionary codes (transaction_type, account_number)
+// and the UTF-8 bytes of transaction_id, reference_number and description in
+// shared byte arrays. That is roughly 80 bytes for a typical row against
+// ~460 for a Transaction with its BigDecimals and Strings.
+//
+// Dates of the form yyyy-MM-dd or yyyy-MM-ddTHH:mm:ss are stored as epoch
+// day plus second of day. Any other date whose first ten characters are
+// yyyy-MM-dd (fractional seconds, an offset or Z) still gets its epoch day,
+// with only the rest of the text kept in a sparse side table; a date that
+// does not start with a day is kept there whole. Either way
+// get(i).getDate() returns the original text. Amounts must
+// be whole paise (at most two decimals); they come back with scale 2.
+//
+// Builder.append(JsonParser) reads a transaction object token by token
+// straight into the columns, so filling a block from a history page never
+// creates the intermediate Transaction, BigDecimal or String objects.
+public final class TransactionBlock {
+    public static final long NULL_AMOUNT = Long.MIN_VALUE;
+    public static final int NULL_DAY = Integer.MIN_VALUE;
+    public static final int NULL_CODE = -1;
+    private static final int NO_TIME = -1;
+
+    private final int size;
+    private final long[] amounts;
+    private final long[] balances;
+    private final int[] epochDays;
+    private final int[] secondsOfDay;
+    private final int[] typeCodes;
+    private final int[] accountCodes;
+    private final String[] types;
+    private final String[] accounts;
+    private final Utf8Column transactionIds;
+    private final Utf8Column referenceNumbers;
+    private final Utf8Column descriptions;
+    // the text after the day when the row has an epoch day, else the whole date
+    private final Map<Integer, String> irregularDates;
+
+    private TransactionBlock(Builder builder) {
+        size = builder.size;
+        amounts = Arrays.copyOf(builder.amounts, size);
+        balances = Arrays.copyOf(builder.balances, size);
+        epochDays = Arrays.copyOf(builder.epochDays, size);
+        secondsOfDay = Arrays.copyOf(builder.secondsOfDay, size);
+        typeCodes = Arrays.copyOf(builder.typeCodes, size);
+        accountCodes = Arrays.copyOf(builder.accountCodes, size);
+        types = builder.types.values();
+        accounts = builder.accounts.values();
+        transactionIds = builder.transactionIds.trimmed(size);
+        referenceNumbers = builder.referenceNumbers.trimmed(size);
+        descriptions = builder.descriptions.trimmed(size);
+        irregularDates = Map.copyOf(builder.irregularDates);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static TransactionBlock of(List<Transaction> transactions) {
+        Builder builder = new Builder();
+        for (Transaction transaction : transactions) {
+            builder.append(transaction);
+        }
+        return builder.build();
+    }
+
+    public int size() { return size; }
+
+    // Column access. Amounts are in paise (NULL_AMOUNT when absent), days are
+    // LocalDate epoch days (NULL_DAY when absent or not starting with
+    // yyyy-MM-dd), codes index
+    // transactionTypes()/accountNumbers() (NULL_CODE when absent).
+    public long amountPaise(int row) { return amounts[checkRow(row)]; }
+    public long balancePaise(int row) { return balances[checkRow(row)]; }
+    public int epochDay(int row) { return epochDays[checkRow(row)]; }
+    public int transactionTypeCode(int row) { return typeCodes[checkRow(row)]; }
+    public int accountNumberCode(int row) { return accountCodes[checkRow(row)]; }
+    public String transactionType(int row) { return decode(types, transactionTypeCode(row)); }
+    public String accountNumber(int row) { return decode(accounts, accountNumberCode(row)); }
+    public String transactionId(int row) { return transactionIds.get(checkRow(row)); }
+    public String referenceNumber(int row) { return referenceNumbers.get(checkRow(row)); }
+    public String description(int row) { return descriptions.get(checkRow(row)); }
+
+    public String date(int row) {
+        checkRow(row);
+        if (epochDays[row] == NULL_DAY) {
+            return irregularDates.get(row);
+        }
+        String day = LocalDate.ofEpochDay(epochDays[row]).toString();
+        String time = irregularDates.get(row);
+        if (time != null) {
+            return day + time;
+        }
+        int seconds = secondsOfDay[row];
+        return seconds == NO_TIME ? day
+            : day + 'T' + twoDigits(seconds / 3600) + ':' + twoDigits(seconds / 60 % 60) + ':' + twoDigits(seconds % 60);
+    }
+
+    // Dictionaries, indexed by the codes above
+    public List<String> transactionTypes() { return List.of(types); }
+    public List<String> accountNumbers() { return List.of(accounts); }
+
+    // A fresh Transaction for the row; changes to it do not affect the block
+    public Transaction get(int row) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(transactionId(row));
+        transaction.setAccountNumber(accountNumber(row));
+        transaction.setAmount(toAmount(amounts[row]));
+        transaction.setTransactionType(transactionType(row));
+        transaction.setDescription(description(row));
+        transaction.setDate(date(row));
+        transaction.setBalance(toAmount(balances[row]));
+        transaction.setReferenceNumber(referenceNumber(row));
+        return transaction;
+    }
+
+    // Read-only List view that materialises each Transaction as it is read
+    public List<Transaction> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Transaction get(int index) {
+                return TransactionBlock.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    public static BigDecimal toAmount(long paise) {
+        return paise == NULL_AMOUNT ? null : BigDecimal.valueOf(paise, 2);
+    }
+
+    public static long toPaise(BigDecimal amount) {
+        return amount == null ? NULL_AMOUNT : amount.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row " + row + " of " + size);
+        }
+        return row;
+    }
+
+    private static String decode(String[] dictionary, int code) {
+        return code == NULL_CODE ? null : dictionary[code];
+    }
+
+    private static String twoDigits(int value) {
+        return value < 10 ? "0" + value : Integer.toString(value);
+    }
+
+    // Appends rows into growable columns; build() trims them into a block.
+    // Not thread-safe.
+    public static final class Builder {
+        private int size;
+        private long[] amounts = new long[256];
+        private long[] balances = new long[256];
+        private int[] epochDays = new int[256];
+        private int[] secondsOfDay = new int[256];
+        private int[] typeCodes = new int[256];
+        private int[] accountCodes = new int[256];
+        private final Dictionary types = new Dictionary();
+        private final Dictionary accounts = new Dictionary();
+        private final Utf8Column transactionIds = new Utf8Column();
+        private final Utf8Column referenceNumbers = new Utf8Column();
+        private final Utf8Column descriptions = new Utf8Column();
+        private final Map<Integer, String> irregularDates = new HashMap<>();
+
+        private Builder() {}
+
+        public int size() { return size; }
+
+        public Builder append(Transaction transaction) {
+            int row = newRow();
+            transactionIds.add(transaction.getTransactionId());
+            accountCodes[row] = accounts.code(transaction.getAccountNumber());
+            amounts[row] = toPaise(transaction.getAmount());
+            typeCodes[row] = types.code(transaction.getTransactionType());
+            descriptions.add(transaction.getDescription());
+            setDate(row, transaction.getDate());
+            balances[row] = toPaise(transaction.getBalance());
+            referenceNumbers.add(transaction.getReferenceNumber());
+            return this;
+        }
+
+        // Reads one transaction object, with the parser on its START_OBJECT,
+        // and leaves the parser on the matching END_OBJECT. Field names and
+        // value coercions follow the Transaction DTO.
+        public Builder append(JsonParser parser) throws IOException {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a transaction object but got " + parser.currentToken());
+            }
+            int row = newRow();
+            boolean id = false;
+            boolean reference = false;
+            boolean description = false;
+            String name;
+            while ((name = parser.nextFieldName()) != null) {
+                parser.nextToken();
+                switch (name) {
+                    case "transaction_id":
+                        transactionIds.set(row, parser);
+                        id = true;
+                        break;
+                    case "account_number":
+                        accountCodes[row] = accounts.code(DtoCodecSupport.readString(parser));
+                        break;
+                    case "amount":
+                        amounts[row] = readPaise(parser);
+                        break;
+                    case "transaction_type":
+                        typeCodes[row] = types.code(DtoCodecSupport.readString(parser));
+                        break;
+                    case "description":
+                        descriptions.set(row, parser);
+                        description = true;
+                        break;
+                    case "date":
+                        setDate(row, DtoCodecSupport.readString(parser));
+                        break;
+                    case "balance":
+                        balances[row] = readPaise(parser);
+                        break;
+                    case "reference_number":
+                        referenceNumbers.set(row, parser);
+                        reference = true;
+                        break;
+                    default:
+                        throw DtoCodecSupport.unknownProperty(parser, Transaction.class, name);
+                }
+            }
+            if (!id) {
+                transactionIds.add(null);
+            }
+            if (!reference) {
+                referenceNumbers.add(null);
+            }
+            if (!description) {
+                descriptions.add(null);
+            }
+            return this;
+        }
+
+        public TransactionBlock build() {
+            return new TransactionBlock(this);
+        }
+
+        private int newRow() {
+            if (size == amounts.length) {
+                int capacity = size * 2;
+                amounts = Arrays.copyOf(amounts, capacity);
+                balances = Arrays.copyOf(balances, capacity);
+                epochDays = Arrays.copyOf(epochDays, capacity);
+                secondsOfDay = Arrays.copyOf(secondsOfDay, capacity);
+                typeCodes = Arrays.copyOf(typeCodes, capacity);
+                accountCodes = Arrays.copyOf(accountCodes, capacity);
+            }
+            int row = size++;
+            amounts[row] = NULL_AMOUNT;
+            balances[row] = NULL_AMOUNT;
+            epochDays[row] = NULL_DAY;
+            secondsOfDay[row] = NO_TIME;
+            typeCodes[row] = NULL_CODE;
+            accountCodes[row] = NULL_CODE;
+            return row;
+        }
+
+        private void setDate(int row, String date) {
+            epochDays[row] = NULL_DAY;
+            secondsOfDay[row] = NO_TIME;
+            irregularDates.remove(row);
+            if (date == null) {
+                return;
+            }
+            int day = parseDay(date);
+            if (day == NULL_DAY) {
+                irregularDates.put(row, date);
+                return;
+            }
+            epochDays[row] = day;
+            if (date.length() == 10) {
+                return;
+            }
+            int seconds = date.length() == 19 && date.charAt(10) == 'T' ? parseSecondOfDay(date) : NULL_DAY;
+            if (seconds == NULL_DAY) {
+                // e.g. 2024-03-31T23:30:00.123+05:30: the day is still usable
+                irregularDates.put(row, date.substring(10));
+                return;
+            }
+            secondsOfDay[row] = seconds;
+        }
+
+        // Parses the JSON number or numeric string in place when it is a plain
+        // decimal with at most two fraction digits; anything else goes through
+        // BigDecimal and must still be whole paise.
+        private static long readPaise(JsonParser parser) throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token == JsonToken.VALUE_NULL) {
+                return NULL_AMOUNT;
+            }
+            if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT
+                    || token == JsonToken.VALUE_STRING) {
+                long paise = parsePaise(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                if (paise != NULL_AMOUNT) {
+                    return paise;
+                }
+            }
+            BigDecimal amount = DtoCodecSupport.readDecimal(parser);
+            try {
+                return toPaise(amount);
+            } catch (ArithmeticException e) {
+                throw new JsonParseException(parser, "Amount " + amount + " is not a whole number of paise", e);
+            }
+        }
+
+        // NULL_AMOUNT if the text is not of the form -?digits(.d{0,2})?
+        private static long parsePaise(char[] text, int offset, int length) {
+            int end = offset + length;
+            int i = offset;
+            boolean negative = i < end && text[i] == '-';
+            if (negative) {
+                i++;
+            }
+            int digitsStart = i;
+            long value = 0;
+            while (i < end && text[i] >= '0' && text[i] <= '9') {
+                if (i - digitsStart >= 16) {
+                    return NULL_AMOUNT;
+                }
+                value = value * 10 + (text[i++] - '0');
+            }
+            if (i == digitsStart) {
+                return NULL_AMOUNT;
+            }
+            int fraction = 0;
+            if (i < end && text[i] == '.') {
+                i++;
+                while (i < end && fraction < 2 && text[i] >= '0' && text[i] <= '9') {
+                    value = value * 10 + (text[i++] - '0');
+                    fraction++;
+                }
+            }
+            if (i != end) {
+                return NULL_AMOUNT;
+            }
+            for (; fraction < 2; fraction++) {
+                value *= 10;
+            }
+            return negative ? -value : value;
+        }
+
+        private static int parseDay(String date) {
+            if (date.length() < 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+                return NULL_DAY;
+            }
+            int year = digits(date, 0, 4);
+            int month = digits(date, 5, 7);
+            int day = digits(date, 8, 10);
+            if (year < 0 || month < 1 || month > 12 || day < 1 || day > LocalDate.of(year, month, 1).lengthOfMonth()) {
+                return NULL_DAY;
+            }
+            return (int) LocalDate.of(year, month, day).toEpochDay();
+        }
+
+        private static int parseSecondOfDay(String date) {
+            if (date.charAt(13) != ':' || date.charAt(16) != ':') {
+                return NULL_DAY;
+            }
+            int hours = digits(date, 11, 13);
+            int minutes = digits(date, 14, 16);
+            int seconds = digits(date, 17, 19);
+            if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59 || seconds < 0 || seconds > 59) {
+                return NULL_DAY;
+            }
+            return hours * 3600 + minutes * 60 + seconds;
+        }
+
+        private static int digits(String s, int from, int to) {
+            int value = 0;
+            for (int i = from; i < to; i++) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+            }
+            return value;
+        }
+    }
+
+    // Assigns dense int codes to distinct strings in first-seen order
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int code(String value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        String[] values() {
+            return values.toArray(new String[0]);
+        }
+    }
+
+    // Strings stored back to back as UTF-8; ends[i] is the end offset of row
+    // i and row i starts where row i - 1 ended. Rows are appended in order.
+    private static final class Utf8Column {
+        private byte[] bytes;
+        private int[] ends;
+        private final BitSet nulls;
+        private int rows;
+
+        Utf8Column() {
+            this(new byte[4096], new int[256], new BitSet(), 0);
+        }
+
+        private Utf8Column(byte[] bytes, int[] ends, BitSet nulls, int rows) {
+            this.bytes = bytes;
+            this.ends = ends;
+            this.nulls = nulls;
+            this.rows = rows;
+        }
+
+        void add(String value) {
+            if (value == null) {
+                nulls.set(rows);
+                addBytes(new byte[0], 0);
+            } else {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                addBytes(utf8, utf8.length);
+            }
+        }
+
+        // Appends the parser's current string value as the given row, copying
+        // ASCII straight from the parser's buffer
+        void set(int row, JsonParser parser) throws IOException {
+            if (row != rows) {
+                throw new JsonParseException(parser, "Duplicate field \"" + parser.currentName() + "\"");
+            }
+            JsonToken token = parser.currentToken();
+            if (token != JsonToken.VALUE_STRING) {
+                add(DtoCodecSupport.readString(parser));
+                return;
+            }
+            char[] text = parser.getTextCharacters();
+            int offset = parser.getTextOffset();
+            int length = parser.getTextLength();
+            for (int i = 0; i < length; i++) {
+                if (text[offset + i] >= 0x80) {
+                    add(new String(text, offset, length));
+                    return;
+                }
+            }
+            int start = rows == 0 ? 0 : ends[rows - 1];
+            ensureBytes(start + length);
+            for (int i = 0; i < length; i++) {
+                bytes[start + i] = (byte) text[offset + i];
+            }
+            endRow(start + length);
+        }
+
+        String get(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            int start = row == 0 ? 0 : ends[row - 1];
+            return new String(bytes, start, ends[row] - start, StandardCharsets.UTF_8);
+        }
+
+        Utf8Column trimmed(int size) {
+            int used = size == 0 ? 0 : ends[size - 1];
+            return new Utf8Column(Arrays.copyOf(bytes, used), Arrays.copyOf(ends, size), (BitSet) nulls.clone(), size);
+        }
+
+        private void addBytes(byte[] utf8, int length) {
+            int start = rows == 0 ? 0 : ends[rows - 1];
+            ensureBytes(start + length);
+            System.arraycopy(utf8, 0, bytes, start, length);
+            endRow(start + length);
+        }
+
+        private void ensureBytes(int required) {
+            if (required > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(required, bytes.length * 2));
+            }
+        }
+
+        private void endRow(int end) {
+            if (rows == ends.length) {
+                ends = Arrays.copyOf(ends, rows * 2);
+            }
+            ends[rows++] = end;
+        }
+    }
+}
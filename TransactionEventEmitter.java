@@ -0,0 +1,172 @@
+// ICICI Banking API - Transaction Event Emitter
+// Local stand-in for the bank's notification sender: signs and POSTs
+// TransactionNotifications to a TransactionNotificationReceiver, so the push
+// path can be exercised end to end without the bank:
+//   java TransactionEventEmitter [accounts=5] [rows=400] [lossEvery=25]
+// The demo replays a StubBankServer's history as notifications, losing every
+// lossEvery-th one, and checks that gap filling still delivers every row.
+
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Numbers each account's notifications 1, 2, 3, ... as the bank does, and
+// signs every delivery (with a fresh timestamp and nonce, so a redelivery is
+// not mistaken for a replay) with RequestSigner. skip consumes a sequence
+// number without sending, which is what a lost delivery looks like to the
+// receiver.
+public class TransactionEventEmitter implements AutoCloseable {
+    private final URI endpoint;
+    private final RequestSigner signer;
+    private final JsonCodec codec;
+    private final HttpClient httpClient;
+    private final Map<String, AtomicLong> sequences = new ConcurrentHashMap<>();
+    private final AtomicLong eventIds = new AtomicLong();
+
+    public TransactionEventEmitter(URI endpoint, RequestSigner signer) {
+        this(endpoint, signer, JsonCodec.withGeneratedCodecs(new ObjectMapper()));
+    }
+
+    TransactionEventEmitter(URI endpoint, RequestSigner signer, JsonCodec codec) {
+        this.endpoint = endpoint;
+        this.signer = signer;
+        this.codec = codec;
+        this.httpClient = HttpClient.newHttpClient();
+    }
+
+    // Sends the transaction as its account's next notification and completes
+    // with the receiver's status code
+    public CompletableFuture<Integer> emit(Transaction transaction) {
+        return send(nextNotification(transaction));
+    }
+
+    // The transaction as its account's next notification, without sending it
+    public TransactionNotification nextNotification(Transaction transaction) {
+        TransactionNotification notification = new TransactionNotification();
+        notification.setEventId("EVT" + eventIds.incrementAndGet());
+        notification.setEventType("transaction.created");
+        notification.setAccountNumber(transaction.getAccountNumber());
+        notification.setSequence(nextSequence(transaction.getAccountNumber()));
+        notification.setTransaction(transaction);
+        return notification;
+    }
+
+    // Sends a notification as given, e.g. a redelivery after a 503
+    public CompletableFuture<Integer> send(TransactionNotification notification) {
+        byte[] body;
+        try {
+            body = codec.encode(notification);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        RequestSigner.SignedRequest signed = signer.sign("POST", endpoint, body);
+        HttpRequest request = HttpRequest.newBuilder(endpoint)
+            .header("Content-Type", "application/json")
+            .header(RequestSigner.SIGNATURE_HEADER, signed.getSignature())
+            .header(RequestSigner.TIMESTAMP_HEADER, Long.toString(signed.getTimestamp()))
+            .header(RequestSigner.NONCE_HEADER, signed.getNonce())
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .thenApply(HttpResponse::statusCode);
+    }
+
+    // Loses the account's next notification
+    public void skip(String accountNumber) {
+        nextSequence(accountNumber);
+    }
+
+    @Override
+    public void close() {
+        // HttpClient has no close before JDK 21; its threads are daemons
+    }
+
+    private long nextSequence(String accountNumber) {
+        return sequences.computeIfAbsent(accountNumber, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int accountCount = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        int lossEvery = args.length > 2 ? Integer.parseInt(args[2]) : 25;
+        JsonCodec codec = JsonCodec.withGeneratedCodecs(new ObjectMapper());
+        RequestSigner signer = new RequestSigner("webhook-demo-secret");
+
+        try (StubBankServer bank = new StubBankServer(codec, 0, accountCount, rows);
+                TransactionNotificationReceiver receiver = new TransactionNotificationReceiver(
+                    new InetSocketAddress("127.0.0.1", 0), TransactionNotificationReceiver.DEFAULT_PATH,
+                    signer, codec, 1024, Duration.ofMinutes(5))) {
+            URI endpoint = URI.create("http://127.0.0.1:" + receiver.getPort() + receiver.getPath());
+            TransactionEventEmitter emitter = new TransactionEventEmitter(endpoint, signer, codec);
+            ICICIBankingAPI api = new ICICIBankingAPI("demo-api-key", ICICIBankingAPI.newHttpClient(null),
+                codec, bank.baseUrl());
+            api.authenticate("demo", "demo");
+            LongAdder credits = new LongAdder();
+            LongAdder seen = new LongAdder();
+            receiver.subscribe(transaction -> {
+                seen.increment();
+                if ("CREDIT".equals(transaction.getTransactionType())) {
+                    credits.increment();
+                }
+            });
+            receiver.enableGapFill(api, Duration.ofMinutes(15));
+
+            long total = 0;
+            long lost = 0;
+            for (String account : bank.accountNumbers()) {
+                receiver.watch(account, LocalDate.of(2024, 1, 1));
+                List<Transaction> history = api.getTransactionHistory(account, rows, "2024-01-01", "2024-12-31");
+                for (int i = 0; i < history.size(); i++) {
+                    total++;
+                    if (i % lossEvery == lossEvery - 1) {
+                        emitter.skip(account);
+                        lost++;
+                        continue;
+                    }
+                    TransactionNotification notification = emitter.nextNotification(history.get(i));
+                    while (emitter.send(notification).get() == 503) {
+                        TimeUnit.MILLISECONDS.sleep(10);
+                    }
+                }
+            }
+            System.out.println("Emitted " + (total - lost) + " notifications, lost " + lost + " of " + total);
+
+            // a delivery signed with another secret must be turned away
+            Transaction forged = new Transaction();
+            forged.setTransactionId("TXN-FORGED");
+            forged.setAccountNumber(StubBankServer.accountNumber(0));
+            forged.setTransactionType("CREDIT");
+            forged.setAmount(new BigDecimal("1000000.00"));
+            try (TransactionEventEmitter forger = new TransactionEventEmitter(endpoint,
+                    new RequestSigner("wrong-secret"), codec)) {
+                System.out.println("Forged delivery answered " + forger.emit(forged).get());
+            }
+
+            // sequence gaps trigger fills; the last losses need a reconciliation pass
+            TimeUnit.MILLISECONDS.sleep(1500);
+            receiver.reconcile();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (seen.sum() < total && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            System.out.println("Delivered " + seen.sum() + " of " + total + " transactions (" + credits.sum()
+                + " credits)");
+            System.out.println(receiver.getStats());
+            System.out.println("History calls: " + bank.requestCounts().get("GET /accounts/*/transactions"));
+        }
+    }
+}
@@ -0,0 +1,300 @@
+// ICICI Banking API - Local Transaction Ledger
+// Append-only, memory-mapped store of one account's transactions, used to sync
+// only what is new since the last run and to answer date-range queries locally.
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.stream.Stream;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// File layout:
+//   header (HEADER_SIZE bytes)
+//     int   magic
+//     int   version
+//     long  end of the last committed record
+//     long  committed record count
+//     short + bytes  high-water mark date (UTF-8)
+//   records, each: int length + Transaction as UTF-8 JSON
+//
+// Records are appended in (date, transaction_id) order and every sync only
+// fetches rows dated on or after the high-water mark, so the file stays sorted
+// by date and range queries binary search an in-memory day index. Rows the
+// bank sends without a yyyy-MM-dd date have no place in that order and are
+// not stored. The high-water date alone decides where a sync starts; rows on
+// that day are refetched and dropped by reference_number, since a row posted
+// late on that day may sort before the last stored one. The header
+// is rewritten after the records of a sync have been written, so a crash
+// mid-sync leaves the previous state intact.
+public class TransactionLedger implements Closeable {
+    private static final int MAGIC = 0x49434c47; // "ICLG"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 256;
+    private static final int MAX_HEADER_STRING = 96;
+    private static final long INITIAL_MAPPING = 1L << 20;
+    private static final int DEFAULT_PAGE_SIZE = 500;
+    private static final int UNDATED = Integer.MIN_VALUE;
+
+    private final String accountNumber;
+    private final FileChannel channel;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MappedByteBuffer mapped;
+
+    private long writePosition = HEADER_SIZE;
+    private int recordCount;
+    private String highWaterDate;
+
+    // In-memory index over the file: record offsets, their epoch days, and the
+    // dedupe keys already stored
+    private long[] offsets = new long[1024];
+    private int[] epochDays = new int[1024];
+    private final Set<String> knownReferences = new HashSet<>();
+
+    private TransactionLedger(String accountNumber, FileChannel channel) {
+        this.accountNumber = accountNumber;
+        this.channel = channel;
+    }
+
+    public static TransactionLedger open(Path directory, String accountNumber) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel channel = FileChannel.open(directory.resolve(accountNumber + ".ledger"),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        TransactionLedger ledger = new TransactionLedger(accountNumber, channel);
+        try {
+            ledger.load();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return ledger;
+    }
+
+    // Fetches everything dated from the high-water mark (or initialFromDate for
+    // an empty ledger) up to today, drops rows whose reference_number is already
+    // stored and rows without a date, and appends the rest. Returns the number
+    // of new transactions.
+    public synchronized int sync(ICICIBankingAPI api, String initialFromDate) throws IOException {
+        return sync(api, initialFromDate, LocalDate.now().toString(), DEFAULT_PAGE_SIZE);
+    }
+
+    public synchronized int sync(ICICIBankingAPI api, String initialFromDate,
+            String toDate, int pageSize) throws IOException {
+        String fromDate = highWaterDate != null ? highWaterDate : initialFromDate;
+
+        List<Transaction> fresh = new ArrayList<>();
+        Set<String> batchReferences = new HashSet<>();
+        try (Stream<Transaction> history = api.streamTransactionHistory(accountNumber, pageSize, fromDate, toDate)) {
+            history.forEach(transaction -> {
+                if (epochDay(transaction.getDate()) == UNDATED) {
+                    return;
+                }
+                String key = dedupeKey(transaction);
+                if (!knownReferences.contains(key) && batchReferences.add(key)) {
+                    fresh.add(transaction);
+                }
+            });
+        }
+        if (fresh.isEmpty()) {
+            return 0;
+        }
+
+        fresh.sort(Comparator.comparingInt((Transaction t) -> epochDay(t.getDate()))
+            .thenComparing(Transaction::getTransactionId, Comparator.nullsFirst(Comparator.naturalOrder())));
+        append(fresh);
+        return fresh.size();
+    }
+
+    // Transactions dated within [fromDate, toDate], oldest first, at most limit rows
+    public synchronized List<Transaction> query(LocalDate fromDate, LocalDate toDate, int limit) throws IOException {
+        int from = lowerBound((int) fromDate.toEpochDay());
+        int to = lowerBound((int) toDate.toEpochDay() + 1);
+        int count = Math.min(to - from, limit);
+        List<Transaction> result = new ArrayList<>(Math.max(count, 0));
+        for (int i = from; i < from + count; i++) {
+            result.add(read(offsets[i]));
+        }
+        return result;
+    }
+
+    public synchronized int size() { return recordCount; }
+    public synchronized String getAccountNumber() { return accountNumber; }
+    public synchronized String getHighWaterDate() { return highWaterDate; }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            if (mapped != null) {
+                mapped.force();
+            }
+            channel.close();
+        }
+        mapped = null;
+    }
+
+    // Storage
+
+    private void load() throws IOException {
+        boolean fresh = channel.size() < HEADER_SIZE;
+        ensureMapped(Math.max(INITIAL_MAPPING, channel.size()));
+        if (fresh) {
+            writeHeader();
+            mapped.force();
+            return;
+        }
+
+        if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+            throw new IOException("Not a transaction ledger for account " + accountNumber);
+        }
+        long committedEnd = mapped.getLong(8);
+        long committedCount = mapped.getLong(16);
+        ByteBuffer header = mapped.duplicate();
+        header.position(24);
+        highWaterDate = readHeaderString(header);
+
+        // Rebuild the index from the committed records; anything past
+        // committedEnd is a torn sync and is overwritten by the next append
+        long position = HEADER_SIZE;
+        while (position < committedEnd) {
+            Transaction transaction = read(position);
+            index(position, transaction);
+            position += Integer.BYTES + mapped.getInt((int) position);
+        }
+        if (recordCount != committedCount) {
+            throw new IOException("Ledger for account " + accountNumber + " is corrupt: expected "
+                + committedCount + " records, found " + recordCount);
+        }
+        writePosition = committedEnd;
+    }
+
+    private void append(List<Transaction> transactions) throws IOException {
+        long position = writePosition;
+        long[] positions = new long[transactions.size()];
+        for (int i = 0; i < positions.length; i++) {
+            byte[] json = objectMapper.writeValueAsBytes(transactions.get(i));
+            ensureMapped(position + Integer.BYTES + json.length);
+            mapped.putInt((int) position, json.length);
+            ByteBuffer target = mapped.duplicate();
+            target.position((int) position + Integer.BYTES);
+            target.put(json);
+            positions[i] = position;
+            position += Integer.BYTES + json.length;
+        }
+        // Records must be durable before the header that commits them
+        mapped.force();
+
+        for (int i = 0; i < positions.length; i++) {
+            index(positions[i], transactions.get(i));
+        }
+        Transaction last = transactions.get(transactions.size() - 1);
+        writePosition = position;
+        highWaterDate = last.getDate().substring(0, 10);
+        writeHeader();
+        mapped.force();
+    }
+
+    private Transaction read(long position) throws IOException {
+        int length = mapped.getInt((int) position);
+        byte[] json = new byte[length];
+        ByteBuffer source = mapped.duplicate();
+        source.position((int) position + Integer.BYTES);
+        source.get(json);
+        return objectMapper.readValue(json, Transaction.class);
+    }
+
+    private void index(long position, Transaction transaction) {
+        if (recordCount == offsets.length) {
+            offsets = Arrays.copyOf(offsets, recordCount * 2);
+            epochDays = Arrays.copyOf(epochDays, recordCount * 2);
+        }
+        offsets[recordCount] = position;
+        epochDays[recordCount] = epochDay(transaction.getDate());
+        recordCount++;
+        knownReferences.add(dedupeKey(transaction));
+    }
+
+    private void writeHeader() {
+        mapped.putInt(0, MAGIC);
+        mapped.putInt(4, VERSION);
+        mapped.putLong(8, writePosition);
+        mapped.putLong(16, recordCount);
+        ByteBuffer header = mapped.duplicate();
+        header.position(24);
+        writeHeaderString(header, highWaterDate);
+    }
+
+    // Maps at least the requested size, doubling the mapping so appends remap rarely
+    private void ensureMapped(long required) throws IOException {
+        if (mapped != null && mapped.capacity() >= required) {
+            return;
+        }
+        long size = mapped == null ? INITIAL_MAPPING : mapped.capacity();
+        while (size < required) {
+            size *= 2;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Ledger for account " + accountNumber + " exceeds 2 GB");
+        }
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private static void writeHeaderString(ByteBuffer header, String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_HEADER_STRING) {
+            bytes = Arrays.copyOf(bytes, MAX_HEADER_STRING);
+        }
+        header.putShort((short) (value == null ? -1 : bytes.length));
+        header.put(bytes);
+    }
+
+    private static String readHeaderString(ByteBuffer header) {
+        int length = header.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        header.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // First index whose day is >= epochDay
+    private int lowerBound(int epochDay) {
+        int low = 0;
+        int high = recordCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDays[mid] < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // UNDATED unless the date starts with yyyy-MM-dd
+    private static int epochDay(String date) {
+        if (date == null || date.length() < 10) {
+            return UNDATED;
+        }
+        try {
+            return (int) LocalDate.parse(date.substring(0, 10)).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return UNDATED;
+        }
+    }
+
+    private static String dedupeKey(Transaction transaction) {
+        return transaction.getReferenceNumber() != null
+            ? transaction.getReferenceNumber()
+            : "id:" + transaction.getTransactionId();
+    }
+}
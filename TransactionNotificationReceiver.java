@@ -0,0 +1,606 @@
+// ICICI Banking API - Transaction Notification Receiver
+// Embedded webhook endpoint for the bank's transaction notifications: verifies
+// each event's signature, turns it into a Transaction and hands it to
+// subscriber callbacks through a bounded lock-free queue. History polling is
+// left to fill the gaps that lost deliveries leave behind.
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// The bank POSTs one TransactionNotification per transaction to path, signed
+// with the shared secret exactly as RequestSigner signs our requests
+// (signature, timestamp and nonce headers). Answers:
+//   202  accepted and queued
+//   200  a transaction already delivered (webhooks are at-least-once)
+//   401  bad signature, timestamp outside the tolerance, or a replayed nonce
+//   400  not a transaction notification; 413 larger than MAX_BODY_BYTES
+//   503  queue full, with Retry-After: 1, so the bank redelivers later
+//        rather than the event being dropped here
+// A nonce is only used up by a delivery answered 202 or 200; after a 400 or
+// 503 the same signed request may be sent again (within the tolerance).
+//
+// HTTP worker threads only verify, parse and offer to the queue; a single
+// dispatcher thread drains it and calls the subscribers in arrival order, so
+// a slow subscriber backs up the queue (and then the bank, via 503s) instead
+// of the HTTP threads. The dispatcher parks when the queue is empty and is
+// unparked by the next offer.
+//
+// Each notification carries a per-account sequence number. A jump in it
+// means a delivery was lost: once gap filling is enabled the missing range is
+// fetched from the transaction history and any row not yet delivered is
+// queued like a notification. A reconciliation pass per watched account every
+// reconcileInterval catches losses no later event reveals (the last event
+// before a quiet spell). That pass is the only polling left, one history call
+// per account per interval. Duplicates are suppressed by transaction id for
+// DEDUPLICATION_DAYS after delivery, pruned by the maintenance task whether or
+// not gap filling runs or succeeds; gap fills and reconciliation never reach
+// back further than that, so nothing they refetch outlives its id.
+public class TransactionNotificationReceiver implements AutoCloseable {
+    public static final String DEFAULT_PATH = "/notifications/transactions";
+    static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int DEFAULT_QUEUE_CAPACITY = 65_536;
+    private static final Duration DEFAULT_TOLERANCE = Duration.ofMinutes(5);
+    static final int DEDUPLICATION_DAYS = 2;
+    private static final long GAP_FILL_DELAY_MILLIS = 1000;
+    private static final int GAP_FILL_PAGE_SIZE = 500;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final String path;
+    private final RequestSigner signer;
+    private final JsonCodec codec;
+    private final long toleranceSeconds;
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService maintenance;
+    private final BoundedEventQueue<Transaction> queue;
+    private final Thread dispatcher;
+    private final List<Consumer<Transaction>> subscribers = new CopyOnWriteArrayList<>();
+    private final Map<String, Long> recentNonces = new ConcurrentHashMap<>();
+    private final Map<String, AccountState> accounts = new ConcurrentHashMap<>();
+    private volatile boolean dispatcherParked;
+    private volatile boolean closed;
+    private volatile ICICIBankingAPI gapFillApi;
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder subscriberErrors = new LongAdder();
+    private final LongAdder gapsDetected = new LongAdder();
+    private final LongAdder gapFilled = new LongAdder();
+    private final LongAdder gapFillErrors = new LongAdder();
+
+    // Listens on all interfaces at port (0 picks a free one) under DEFAULT_PATH
+    public TransactionNotificationReceiver(int port, RequestSigner signer) throws IOException {
+        this(new InetSocketAddress(port), DEFAULT_PATH, signer,
+            JsonCodec.withGeneratedCodecs(new ObjectMapper()), DEFAULT_QUEUE_CAPACITY, DEFAULT_TOLERANCE);
+    }
+
+    TransactionNotificationReceiver(InetSocketAddress address, String path, RequestSigner signer, JsonCodec codec,
+            int queueCapacity, Duration tolerance) throws IOException {
+        this.path = path;
+        this.signer = signer;
+        this.codec = codec;
+        this.toleranceSeconds = tolerance.getSeconds();
+        this.queue = new BoundedEventQueue<>(queueCapacity);
+
+        dispatcher = new Thread(this::dispatch, "icici-notification-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        maintenance = Executors.newSingleThreadScheduledExecutor(daemon("icici-notification-maintenance"));
+        maintenance.scheduleWithFixedDelay(this::prune, toleranceSeconds, toleranceSeconds, TimeUnit.SECONDS);
+
+        server = HttpServer.create(address, 0);
+        workers = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()),
+            daemon("icici-notification-worker"));
+        server.setExecutor(workers);
+        server.createContext(path, this::handle);
+        server.start();
+    }
+
+    // The callback runs on the dispatcher thread, once per transaction, in
+    // arrival order; close the returned handle to unsubscribe
+    public AutoCloseable subscribe(Consumer<Transaction> subscriber) {
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+
+    // Fills sequence gaps from api's transaction history and reconciles every
+    // watched account each reconcileInterval
+    public void enableGapFill(ICICIBankingAPI api, Duration reconcileInterval) {
+        this.gapFillApi = api;
+        long millis = reconcileInterval.toMillis();
+        maintenance.scheduleWithFixedDelay(this::reconcile, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    // Reconciles accountNumber from since on even before its first
+    // notification arrives; accounts are otherwise watched from the date of
+    // their first notification
+    public void watch(String accountNumber, LocalDate since) {
+        accountState(accountNumber).since = since;
+    }
+
+    // One reconciliation pass over every watched account, on the calling thread
+    public void reconcile() {
+        ICICIBankingAPI api = gapFillApi;
+        if (api == null) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        LocalDate oldest = today.minusDays(DEDUPLICATION_DAYS);
+        for (Map.Entry<String, AccountState> entry : accounts.entrySet()) {
+            AccountState state = entry.getValue();
+            LocalDate since = state.since;
+            if (since == null) {
+                continue;
+            }
+            if (fill(api, entry.getKey(), state, since.isBefore(oldest) ? oldest : since, today)) {
+                state.since = today.minusDays(1);
+            }
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public String getPath() { return path; }
+
+    public NotificationStats getStats() {
+        return new NotificationStats(received.sum(), rejected.sum(), duplicates.sum(), overflowed.sum(),
+            delivered.sum(), subscriberErrors.sum(), gapsDetected.sum(), gapFilled.sum(), gapFillErrors.sum(),
+            queue.size());
+    }
+
+    // Stops accepting notifications and delivers what is already queued
+    @Override
+    public void close() {
+        server.stop(0);
+        workers.shutdownNow();
+        maintenance.shutdownNow();
+        closed = true;
+        LockSupport.unpark(dispatcher);
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            int status;
+            if (!exchange.getRequestMethod().equals("POST")) {
+                status = 405;
+            } else if (!exchange.getRequestURI().getRawPath().equals(path)) {
+                status = 404;
+            } else {
+                byte[] body = readBody(exchange);
+                status = body == null ? 413 : accept(exchange.getRequestURI().getRawPath(),
+                    exchange.getRequestURI().getRawQuery(),
+                    exchange.getRequestHeaders().getFirst(RequestSigner.SIGNATURE_HEADER),
+                    exchange.getRequestHeaders().getFirst(RequestSigner.TIMESTAMP_HEADER),
+                    exchange.getRequestHeaders().getFirst(RequestSigner.NONCE_HEADER), body);
+            }
+            if (status == 503) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+            }
+            exchange.sendResponseHeaders(status, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // null if the body is larger than MAX_BODY_BYTES
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                in.transferTo(OutputStream.nullOutputStream());
+                return null;
+            }
+            return body;
+        }
+    }
+
+    // The HTTP status for one delivery
+    int accept(String rawPath, String rawQuery, String signature, String timestamp, String nonce, byte[] body) {
+        received.increment();
+        long sentAt;
+        try {
+            sentAt = timestamp == null ? -1 : Long.parseLong(timestamp);
+        } catch (NumberFormatException e) {
+            sentAt = -1;
+        }
+        long now = System.currentTimeMillis() / 1000;
+        // verify before remembering the nonce, so forged requests cannot fill the nonce map
+        if (sentAt < 0 || Math.abs(now - sentAt) > toleranceSeconds
+                || !signer.verify("POST", rawPath, rawQuery, sentAt, nonce, body, signature)
+                || recentNonces.putIfAbsent(nonce, sentAt) != null) {
+            rejected.increment();
+            return 401;
+        }
+
+        TransactionNotification notification;
+        try {
+            notification = codec.decode(body, TransactionNotification.class);
+        } catch (IOException e) {
+            recentNonces.remove(nonce, sentAt);
+            rejected.increment();
+            return 400;
+        }
+        Transaction transaction = notification.getTransaction();
+        String accountNumber = notification.getAccountNumber() != null
+            ? notification.getAccountNumber()
+            : transaction == null ? null : transaction.getAccountNumber();
+        if (transaction == null || transaction.getTransactionId() == null || accountNumber == null) {
+            recentNonces.remove(nonce, sentAt);
+            rejected.increment();
+            return 400;
+        }
+        if (transaction.getAccountNumber() == null) {
+            transaction.setAccountNumber(accountNumber);
+        }
+
+        AccountState state = accountState(accountNumber);
+        int status = publish(state, transaction);
+        if (status == 202) {
+            trackSequence(accountNumber, state, notification.getSequence(), dateOf(transaction));
+        } else if (status == 200) {
+            duplicates.increment();
+        } else {
+            // not taken, so the bank's redelivery after Retry-After may reuse the nonce
+            recentNonces.remove(nonce, sentAt);
+        }
+        return status;
+    }
+
+    // 202 when queued, 200 when already delivered, 503 when the queue is full
+    private int publish(AccountState state, Transaction transaction) {
+        String id = transaction.getTransactionId();
+        Long day = LocalDate.now().toEpochDay();
+        if (state.deliveredIds.putIfAbsent(id, day) != null) {
+            return 200;
+        }
+        if (!queue.offer(transaction)) {
+            // not delivered, so a redelivery must not count as a duplicate
+            state.deliveredIds.remove(id, day);
+            overflowed.increment();
+            return 503;
+        }
+        if (dispatcherParked) {
+            LockSupport.unpark(dispatcher);
+        }
+        return 202;
+    }
+
+    private void trackSequence(String accountNumber, AccountState state, long sequence, LocalDate date) {
+        LocalDate gapFrom = null;
+        synchronized (state) {
+            if (state.since == null && date != null) {
+                state.since = date;
+            }
+            if (sequence <= 0 || sequence <= state.lastSequence) {
+                // unsequenced, or a late delivery from inside an earlier gap
+                return;
+            }
+            if (state.lastSequence > 0 && sequence > state.lastSequence + 1) {
+                gapFrom = state.lastDate != null ? state.lastDate : date;
+            }
+            state.lastSequence = sequence;
+            if (date != null) {
+                state.lastDate = date;
+            }
+        }
+        if (gapFrom != null && date != null) {
+            gapsDetected.increment();
+            LocalDate oldest = LocalDate.now().minusDays(DEDUPLICATION_DAYS);
+            LocalDate earlier = gapFrom.isBefore(date) ? gapFrom : date;
+            LocalDate from = earlier.isBefore(oldest) ? oldest : earlier;
+            LocalDate to = gapFrom.isBefore(date) ? date : gapFrom;
+            if (to.isBefore(from)) {
+                // the whole gap is older than the ids kept to suppress its rows
+                return;
+            }
+            // give deliveries that are merely out of order a moment to arrive
+            maintenance.schedule(() -> {
+                ICICIBankingAPI api = gapFillApi;
+                if (api != null) {
+                    fill(api, accountNumber, state, from, to);
+                }
+            }, GAP_FILL_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Queues every row of [from, to] not delivered yet; false if the history
+    // could not be read or the queue overflowed, so the range must be retried
+    private boolean fill(ICICIBankingAPI api, String accountNumber, AccountState state, LocalDate from, LocalDate to) {
+        boolean complete = true;
+        try (Stream<Transaction> rows = api.streamTransactionHistory(accountNumber, GAP_FILL_PAGE_SIZE,
+                from.toString(), to.toString())) {
+            for (Transaction row : (Iterable<Transaction>) rows::iterator) {
+                if (row.getTransactionId() == null) {
+                    continue;
+                }
+                if (row.getAccountNumber() == null) {
+                    row.setAccountNumber(accountNumber);
+                }
+                int status = publish(state, row);
+                if (status == 202) {
+                    gapFilled.increment();
+                } else if (status == 503) {
+                    complete = false;
+                }
+            }
+        } catch (RuntimeException e) {
+            gapFillErrors.increment();
+            return false;
+        }
+        return complete;
+    }
+
+    private void dispatch() {
+        while (true) {
+            Transaction transaction = queue.poll();
+            if (transaction == null) {
+                if (closed) {
+                    return;
+                }
+                dispatcherParked = true;
+                // re-check after publishing the flag so an offer racing with
+                // it either is seen here or sees the flag and unparks
+                if (queue.isEmpty() && !closed) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                dispatcherParked = false;
+                continue;
+            }
+            for (Consumer<Transaction> subscriber : subscribers) {
+                try {
+                    subscriber.accept(transaction);
+                } catch (RuntimeException e) {
+                    subscriberErrors.increment();
+                }
+            }
+            delivered.increment();
+        }
+    }
+
+    private void prune() {
+        pruneNonces();
+        pruneDeliveredIds(LocalDate.now());
+    }
+
+    private void pruneNonces() {
+        long oldest = System.currentTimeMillis() / 1000 - toleranceSeconds;
+        // a pruned nonce's timestamp is out of tolerance, so it cannot be replayed
+        recentNonces.values().removeIf(sentAt -> sentAt < oldest);
+    }
+
+    // Forgets ids delivered more than DEDUPLICATION_DAYS before today
+    void pruneDeliveredIds(LocalDate today) {
+        long oldest = today.minusDays(DEDUPLICATION_DAYS).toEpochDay();
+        for (AccountState state : accounts.values()) {
+            state.deliveredIds.values().removeIf(day -> day < oldest);
+        }
+    }
+
+    private AccountState accountState(String accountNumber) {
+        AccountState state = accounts.get(accountNumber);
+        return state != null ? state : accounts.computeIfAbsent(accountNumber, key -> new AccountState());
+    }
+
+    private static LocalDate dateOf(Transaction transaction) {
+        String date = transaction.getDate();
+        if (date == null || date.length() < 10) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date.substring(0, 10));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger threads = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class AccountState {
+        // transaction id -> epoch day it was delivered, for duplicate suppression
+        final Map<String, Long> deliveredIds = new ConcurrentHashMap<>();
+        volatile LocalDate since;
+        long lastSequence;
+        LocalDate lastDate;
+    }
+}
+
+// Webhook payload: one transaction with its position in the account's
+// notification sequence (1, 2, 3, ... per account)
+class TransactionNotification {
+    @JsonProperty("event_id")
+    private String eventId;
+    @JsonProperty("event_type")
+    private String eventType;
+    @JsonProperty("account_number")
+    private String accountNumber;
+    @JsonProperty("sequence")
+    private long sequence;
+    @JsonProperty("transaction")
+    private Transaction transaction;
+
+    public String getEventId() { return eventId; }
+    public void setEventId(String eventId) { this.eventId = eventId; }
+    public String getEventType() { return eventType; }
+    public void setEventType(String eventType) { this.eventType = eventType; }
+    public String getAccountNumber() { return accountNumber; }
+    public void setAccountNumber(String accountNumber) { this.accountNumber = accountNumber; }
+    public long getSequence() { return sequence; }
+    public void setSequence(long sequence) { this.sequence = sequence; }
+    public Transaction getTransaction() { return transaction; }
+    public void setTransaction(Transaction transaction) { this.transaction = transaction; }
+}
+
+class NotificationStats {
+    private final long received;
+    private final long rejected;
+    private final long duplicates;
+    private final long overflowed;
+    private final long delivered;
+    private final long subscriberErrors;
+    private final long gapsDetected;
+    private final long gapFilled;
+    private final long gapFillErrors;
+    private final int queued;
+
+    public NotificationStats(long received, long rejected, long duplicates, long overflowed, long delivered,
+            long subscriberErrors, long gapsDetected, long gapFilled, long gapFillErrors, int queued) {
+        this.received = received;
+        this.rejected = rejected;
+        this.duplicates = duplicates;
+        this.overflowed = overflowed;
+        this.delivered = delivered;
+        this.subscriberErrors = subscriberErrors;
+        this.gapsDetected = gapsDetected;
+        this.gapFilled = gapFilled;
+        this.gapFillErrors = gapFillErrors;
+        this.queued = queued;
+    }
+
+    // Deliveries that reached the receiver, whatever became of them
+    public long getReceived() { return received; }
+    // Bad signature, stale timestamp, replayed nonce or malformed payload
+    public long getRejected() { return rejected; }
+    // Redelivered notifications of transactions already delivered
+    public long getDuplicates() { return duplicates; }
+    // Turned away with 503 because the queue was full
+    public long getOverflowed() { return overflowed; }
+    // Transactions handed to the subscribers
+    public long getDelivered() { return delivered; }
+    public long getSubscriberErrors() { return subscriberErrors; }
+    public long getGapsDetected() { return gapsDetected; }
+    // Transactions queued from the history rather than a notification
+    public long getGapFilled() { return gapFilled; }
+    public long getGapFillErrors() { return gapFillErrors; }
+    public int getQueued() { return queued; }
+
+    @Override
+    public String toString() {
+        return String.format("NotificationStats{received=%d, rejected=%d, duplicates=%d, overflowed=%d, "
+                + "delivered=%d, subscriberErrors=%d, gapsDetected=%d, gapFilled=%d, gapFillErrors=%d, queued=%d}",
+            received, rejected, duplicates, overflowed, delivered, subscriberErrors, gapsDetected, gapFilled,
+            gapFillErrors, queued);
+    }
+}
+
+// Bounded multi-producer multi-consumer ring (Vyukov's design): every slot
+// has a sequence number telling producers and consumers whose turn it is, so
+// offer and poll are a CAS on the tail or head plus plain atomic stores, with
+// no lock and no allocation. offer fails rather than blocks when full.
+final class BoundedEventQueue<E> {
+    private final AtomicReferenceArray<E> items;
+    private final AtomicLongArray sequences;
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    // capacity is rounded up to a power of two
+    BoundedEventQueue(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        }
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.items = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    boolean offer(E item) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long turn = sequences.get(index) - position;
+            if (turn == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    items.set(index, item);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (turn < 0) {
+                // the slot still holds the item from one lap ago
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    E poll() {
+        long position = head.get();
+        while (true) {
+            int index = (int) position & mask;
+            long turn = sequences.get(index) - (position + 1);
+            if (turn == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    E item = items.get(index);
+                    items.set(index, null);
+                    sequences.set(index, position + capacity);
+                    return item;
+                }
+                position = head.get();
+            } else if (turn < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(capacity, size));
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    int capacity() { return capacity; }
+}
@@ -0,0 +1,266 @@
+// ICICI Banking API - Transaction Range Index
+// In-memory index of transaction history keyed by account and epoch day. It
+// remembers which date ranges have been fetched completely, answers
+// from/to/limit queries over them locally and fetches only the gaps.
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Each account has an immutable Snapshot: its rows sorted by day in a
+// Transaction[] with a parallel int[] of epoch days, and the covered day
+// ranges as a sorted int[] of inclusive [from, to] pairs. Readers load the
+// current snapshot and binary search it, so they never take a lock; merging a
+// fetched gap builds a new snapshot and installs it with a CAS, retrying if
+// another merge got in first.
+//
+// A gap is always fetched in full (every page), so once merged the index
+// holds every row the bank has for those days. Days from today on are never
+// marked covered because new rows can still arrive; queries touching them
+// refetch those days and replace what was stored for them. Concurrent queries
+// needing the same gap share one fetch.
+//
+// Rows whose date is missing or not ISO cannot be placed on a day and are not
+// indexed. Results are ordered oldest first and cut at limit.
+public class TransactionRangeIndex {
+    private static final Snapshot EMPTY = new Snapshot(new int[0], new Transaction[0], new int[0]);
+
+    // Fetches every transaction of the account dated within [from, to]
+    interface RangeFetcher {
+        CompletableFuture<List<Transaction>> fetch(String accountNumber, LocalDate from, LocalDate to);
+    }
+
+    private final Clock clock;
+    private final Map<String, AtomicReference<Snapshot>> accounts = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    public TransactionRangeIndex() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public TransactionRangeIndex(Clock clock) {
+        this.clock = clock;
+    }
+
+    // A reversed range (from after to) fails the returned future
+    CompletableFuture<List<Transaction>> queryAsync(String accountNumber, LocalDate from, LocalDate to,
+            int limit, RangeFetcher fetcher) {
+        if (from.isAfter(to)) {
+            return CompletableFuture.failedFuture(
+                new IllegalArgumentException("from " + from + " is after to " + to));
+        }
+        int fromDay = (int) from.toEpochDay();
+        int toDay = (int) to.toEpochDay();
+        AtomicReference<Snapshot> current = accounts.computeIfAbsent(accountNumber, a -> new AtomicReference<>(EMPTY));
+        int[] gaps = current.get().gaps(fromDay, toDay);
+        if (gaps.length == 0) {
+            return CompletableFuture.completedFuture(current.get().query(fromDay, toDay, limit));
+        }
+
+        CompletableFuture<?>[] fetches = new CompletableFuture<?>[gaps.length / 2];
+        for (int i = 0; i < gaps.length; i += 2) {
+            fetches[i / 2] = fetchGap(accountNumber, current, gaps[i], gaps[i + 1], fetcher);
+        }
+        return CompletableFuture.allOf(fetches)
+            .thenApply(done -> current.get().query(fromDay, toDay, limit));
+    }
+
+    // True if every day in [from, to] has been fetched and is before today
+    public boolean isCovered(String accountNumber, LocalDate from, LocalDate to) {
+        AtomicReference<Snapshot> current = accounts.get(accountNumber);
+        return current != null && current.get().gaps((int) from.toEpochDay(), (int) to.toEpochDay()).length == 0;
+    }
+
+    public int size(String accountNumber) {
+        AtomicReference<Snapshot> current = accounts.get(accountNumber);
+        return current == null ? 0 : current.get().rows.length;
+    }
+
+    public void invalidate(String accountNumber) {
+        accounts.remove(accountNumber);
+    }
+
+    public void invalidateAll() {
+        accounts.clear();
+    }
+
+    private CompletableFuture<Void> fetchGap(String accountNumber, AtomicReference<Snapshot> current,
+            int fromDay, int toDay, RangeFetcher fetcher) {
+        String key = accountNumber + ':' + fromDay + ':' + toDay;
+        CompletableFuture<Void> mine = new CompletableFuture<>();
+        CompletableFuture<Void> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            return existing;
+        }
+        int coveredUntil = (int) LocalDate.now(clock).toEpochDay() - 1;
+        fetcher.fetch(accountNumber, LocalDate.ofEpochDay(fromDay), LocalDate.ofEpochDay(toDay))
+            .whenComplete((rows, error) -> {
+                inFlight.remove(key, mine);
+                if (error != null) {
+                    mine.completeExceptionally(error);
+                    return;
+                }
+                try {
+                    merge(current, fromDay, toDay, Math.min(toDay, coveredUntil), rows);
+                    mine.complete(null);
+                } catch (RuntimeException e) {
+                    mine.completeExceptionally(e);
+                }
+            });
+        return mine;
+    }
+
+    private static void merge(AtomicReference<Snapshot> current, int fromDay, int toDay,
+            int coveredUntil, List<Transaction> fetched) {
+        int[] fetchedDays = new int[fetched.size()];
+        Transaction[] fetchedRows = new Transaction[fetched.size()];
+        int count = 0;
+        for (Transaction transaction : fetched) {
+            int day = epochDay(transaction.getDate());
+            if (day != Integer.MIN_VALUE && day >= fromDay && day <= toDay) {
+                fetchedDays[count] = day;
+                fetchedRows[count++] = transaction;
+            }
+        }
+        sortByDay(fetchedDays, fetchedRows, count);
+
+        while (true) {
+            Snapshot snapshot = current.get();
+            Snapshot merged = snapshot.replaceDays(fromDay, toDay, fetchedDays, fetchedRows, count,
+                fromDay <= coveredUntil ? new int[] {fromDay, coveredUntil} : new int[0]);
+            if (current.compareAndSet(snapshot, merged)) {
+                return;
+            }
+        }
+    }
+
+    // Stable sort of the first count rows by day, via day << 32 | index keys
+    private static void sortByDay(int[] days, Transaction[] rows, int count) {
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = (long) days[i] << 32 | i;
+        }
+        Arrays.sort(keys);
+        Transaction[] sortedRows = new Transaction[count];
+        for (int i = 0; i < count; i++) {
+            sortedRows[i] = rows[(int) keys[i]];
+            days[i] = (int) (keys[i] >> 32);
+        }
+        System.arraycopy(sortedRows, 0, rows, 0, count);
+    }
+
+    private static int epochDay(String date) {
+        if (date == null || date.length() < 10) {
+            return Integer.MIN_VALUE;
+        }
+        try {
+            return (int) LocalDate.parse(date.substring(0, 10)).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return Integer.MIN_VALUE;
+        }
+    }
+
+    private static final class Snapshot {
+        final int[] days;
+        final Transaction[] rows;
+        final int[] coverage;
+
+        Snapshot(int[] days, Transaction[] rows, int[] coverage) {
+            this.days = days;
+            this.rows = rows;
+            this.coverage = coverage;
+        }
+
+        List<Transaction> query(int fromDay, int toDay, int limit) {
+            int from = lowerBound(fromDay);
+            int to = Math.min(lowerBound(toDay + 1), from + Math.max(limit, 0));
+            return new ArrayList<>(Arrays.asList(rows).subList(from, to));
+        }
+
+        // Uncovered parts of [fromDay, toDay] as [from, to] pairs
+        int[] gaps(int fromDay, int toDay) {
+            int[] gaps = new int[coverage.length + 2];
+            int count = 0;
+            int next = fromDay;
+            for (int i = 0; i < coverage.length && next <= toDay; i += 2) {
+                if (coverage[i + 1] < next) {
+                    continue;
+                }
+                if (coverage[i] > next) {
+                    gaps[count++] = next;
+                    gaps[count++] = Math.min(coverage[i] - 1, toDay);
+                }
+                next = coverage[i + 1] + 1;
+            }
+            if (next <= toDay) {
+                gaps[count++] = next;
+                gaps[count++] = toDay;
+            }
+            return Arrays.copyOf(gaps, count);
+        }
+
+        // Drops the stored rows of [fromDay, toDay], inserts the fetched ones
+        // (sorted by day) in their place and adds the covered range
+        Snapshot replaceDays(int fromDay, int toDay, int[] fetchedDays, Transaction[] fetchedRows,
+                int fetchedCount, int[] covered) {
+            int start = lowerBound(fromDay);
+            int end = lowerBound(toDay + 1);
+            int size = rows.length - (end - start) + fetchedCount;
+            int[] newDays = new int[size];
+            Transaction[] newRows = new Transaction[size];
+            System.arraycopy(days, 0, newDays, 0, start);
+            System.arraycopy(rows, 0, newRows, 0, start);
+            System.arraycopy(fetchedDays, 0, newDays, start, fetchedCount);
+            System.arraycopy(fetchedRows, 0, newRows, start, fetchedCount);
+            System.arraycopy(days, end, newDays, start + fetchedCount, days.length - end);
+            System.arraycopy(rows, end, newRows, start + fetchedCount, rows.length - end);
+            return new Snapshot(newDays, newRows, covered.length == 0 ? coverage : addRange(covered[0], covered[1]));
+        }
+
+        // Coverage with [from, to] added, merging overlapping and adjacent ranges
+        private int[] addRange(int from, int to) {
+            int insert = 0;
+            while (insert < coverage.length && coverage[insert] < from) {
+                insert += 2;
+            }
+            int[] ranges = new int[coverage.length + 2];
+            System.arraycopy(coverage, 0, ranges, 0, insert);
+            ranges[insert] = from;
+            ranges[insert + 1] = to;
+            System.arraycopy(coverage, insert, ranges, insert + 2, coverage.length - insert);
+
+            int count = 0;
+            for (int i = 0; i < ranges.length; i += 2) {
+                if (count > 0 && ranges[i] <= ranges[count - 1] + 1) {
+                    ranges[count - 1] = Math.max(ranges[count - 1], ranges[i + 1]);
+                } else {
+                    ranges[count++] = ranges[i];
+                    ranges[count++] = ranges[i + 1];
+                }
+            }
+            return Arrays.copyOf(ranges, count);
+        }
+
+        // First row whose day is >= day
+        private int lowerBound(int day) {
+            int low = 0;
+            int high = days.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (days[mid] < day) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
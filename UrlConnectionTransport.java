@@ -0,0 +1,129 @@
+// ICICI Banking API - URLConnection Transport
+// HttpTransport over HttpURLConnection/HttpsURLConnection, the stack the
+// original single-request example used.
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+
+// Each exchange blocks a thread of the executor (by default a fixed pool of
+// maxConnectionsPerHost threads, so concurrency equals the connection count)
+// from connect until the response headers arrive; the body is then pushed to
+// the BodyHandler's subscriber as it asks for it, so a streamed body
+// (BodyHandlers.ofInputStream) is read on the consumer's thread.
+//
+// HTTP/1.1 only: there is no multiplexing, so throughput is bounded by the
+// pool. Connections are reused through the JDK's keep-alive cache, whose size
+// is the process-wide http.maxConnections property (set here from the config
+// unless already set); a connection is returned to it once its body has been
+// read to the end and closed (TransportSupport does both). One SSLSocketFactory
+// from the config's TLS context is shared by every connection so sessions are
+// resumed.
+class UrlConnectionTransport implements HttpTransport {
+    private final TransportConfig config;
+    private final SSLSocketFactory sslSocketFactory;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+
+    UrlConnectionTransport(TransportConfig config) {
+        this.config = config;
+        this.sslSocketFactory = config.newSslContext().getSocketFactory();
+        if (config.getExecutor() != null) {
+            this.executor = config.getExecutor();
+            this.ownedExecutor = null;
+        } else {
+            AtomicInteger threads = new AtomicInteger();
+            this.ownedExecutor = Executors.newFixedThreadPool(config.getMaxConnectionsPerHost(), runnable -> {
+                Thread thread = new Thread(runnable, "icici-urlconnection-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.executor = ownedExecutor;
+        }
+        JdkHttpTransport.setIfAbsent("http.maxConnections", config.getMaxConnectionsPerHost());
+        JdkHttpTransport.setIfAbsent("http.keepAlive.time.server", config.getKeepAlive().getSeconds());
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+            HttpResponse.BodyHandler<T> bodyHandler) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return exchange(request, bodyHandler);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor).thenCompose(exchange -> exchange);
+    }
+
+    @Override
+    public String name() {
+        return "urlconnection";
+    }
+
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> exchange(HttpRequest request,
+            HttpResponse.BodyHandler<T> bodyHandler) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) request.uri().toURL().openConnection();
+        if (connection instanceof HttpsURLConnection) {
+            ((HttpsURLConnection) connection).setSSLSocketFactory(sslSocketFactory);
+        }
+        connection.setConnectTimeout((int) config.getConnectTimeout().toMillis());
+        connection.setReadTimeout((int) request.timeout().orElse(config.getReadTimeout()).toMillis());
+        connection.setRequestMethod(request.method());
+        connection.setInstanceFollowRedirects(false);
+        request.headers().map().forEach((name, values) -> {
+            for (String value : values) {
+                connection.addRequestProperty(name, value);
+            }
+        });
+
+        byte[] body = TransportSupport.requestBody(request);
+        if (body != null && (body.length > 0 || !request.method().equals("GET"))) {
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+        }
+
+        int status = connection.getResponseCode();
+        HttpHeaders headers = HttpHeaders.of(withoutStatusLine(connection.getHeaderFields()), (name, value) -> true);
+        InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        return TransportSupport.deliver(request, status, headers, HttpClient.Version.HTTP_1_1,
+            in == null ? InputStream.nullInputStream() : in, bodyHandler);
+    }
+
+    // HttpURLConnection reports the status line under a null key
+    private static Map<String, List<String>> withoutStatusLine(Map<String, List<String>> fields) {
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        fields.forEach((name, values) -> {
+            if (name != null) {
+                headers.put(name, values);
+            }
+        });
+        return headers;
+    }
+}
@@ -0,0 +1,27 @@
+// ICICI Banking API - Benchmark Main
+// Runs the JMH benchmarks in this package with the GC profiler, so every
+// result carries gc.alloc.rate.norm (bytes allocated per operation) next to
+// throughput and average time, and writes them to jmh-result.json for
+// comparison between client versions:
+//   java -cp <classpath> benchmarks.BenchmarkMain [regex]
+
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class BenchmarkMain {
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(args.length > 0 ? args[0] : "benchmarks\\..*Benchmark")
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result("jmh-result.json")
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,175 @@
+// ICICI Banking API - Client Hot Paths
+// Implementation of benchmarks.HotPaths over the real client classes; see
+// that interface for why the JMH benchmarks reach the client through it.
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ClientHotPaths implements benchmarks.HotPaths {
+    private static final String BASE_URL = "https://api.icicibank.com/v1";
+    private static final String SECRET = "benchmark-secret-0123456789abcdef";
+
+    private final ObjectMapper objectMapper;
+    private final JsonCodec codec;
+    private final ICICIBankingAPI api;
+    private final TransferRequest transfer = new TransferRequest("1234567890", "0987654321",
+        new BigDecimal("1000.00"), "INR", "Vendor payout", "IMPS");
+    private final BillPaymentRequest billPayment = new BillPaymentRequest("1234567890", "BESCOM01",
+        "CN-7781234", new BigDecimal("1250.00"), "ELECTRICITY");
+    private final byte[] transferBody;
+    private final byte[] history;
+    private final RequestSigner signer = new RequestSigner(SECRET);
+    private final URI getUri = URI.create(BASE_URL + "/accounts/1234567890/transactions?limit=100&from=2024-08-01&to=2024-08-31");
+    private final URI postUri = URI.create(BASE_URL + "/transfers");
+
+    private StubBankServer stubServer;
+    private ICICIBankingAPI stubClient;
+
+    public ClientHotPaths(boolean generatedCodecs, int historyRows) throws Exception {
+        objectMapper = new ObjectMapper();
+        codec = generatedCodecs ? JsonCodec.withGeneratedCodecs(objectMapper) : new JsonCodec(objectMapper);
+        api = new ICICIBankingAPI("benchmark-api-key", ICICIBankingAPI.newHttpClient(null), codec, BASE_URL);
+        transferBody = codec.encode(transfer);
+        history = codec.encode(history(historyRows));
+    }
+
+    public static Object coldStart(boolean generatedCodecs) throws Exception {
+        JsonCodec codec = generatedCodecs
+            ? JsonCodec.withGeneratedCodecs(new ObjectMapper())
+            : new JsonCodec(new ObjectMapper());
+        byte[] transfer = codec.encode(new TransferRequest("1234567890", "0987654321",
+            new BigDecimal("1000.00"), "INR", "Vendor payout", "IMPS"));
+        TransactionHistoryResponse decoded = codec.decode(codec.encode(history(100)),
+            TransactionHistoryResponse.class);
+        return transfer.length + decoded.getTransactions().size();
+    }
+
+    @Override
+    public Object buildGetRequest() {
+        return api.newRequest("/accounts/1234567890/balance", "benchmark-access-token").GET().build();
+    }
+
+    @Override
+    public Object buildPostRequest() throws Exception {
+        return api.newRequest("/transfers", "benchmark-access-token")
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(codec.encode(transfer)))
+            .build();
+    }
+
+    @Override
+    public byte[] encodeTransfer() throws Exception {
+        return codec.encode(transfer);
+    }
+
+    @Override
+    public byte[] encodeBillPayment() throws Exception {
+        return codec.encode(billPayment);
+    }
+
+    @Override
+    public byte[] encodeTransferViaString() throws Exception {
+        return objectMapper.writeValueAsString(transfer).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Object decodeHistory() throws Exception {
+        return codec.decode(history, TransactionHistoryResponse.class);
+    }
+
+    @Override
+    public Object decodeHistoryViaString() throws Exception {
+        return objectMapper.readValue(new String(history, StandardCharsets.UTF_8), TransactionHistoryResponse.class);
+    }
+
+    @Override
+    public Object parseHistoryIntoBlock() throws Exception {
+        TransactionBlock.Builder block = TransactionBlock.builder();
+        try (JsonParser parser = codec.objectMapper().getFactory().createParser(history)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.FIELD_NAME && "transactions".equals(parser.currentName())) {
+                    parser.nextToken();
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        block.append(parser);
+                    }
+                }
+            }
+        }
+        return block.build();
+    }
+
+    @Override
+    public String signGet() {
+        return signer.sign("GET", getUri, null).getSignature();
+    }
+
+    @Override
+    public String signPost() {
+        return signer.sign("POST", postUri, transferBody).getSignature();
+    }
+
+    @Override
+    public String signPostPerCallMac() throws Exception {
+        String dataToSign = new String(transferBody, StandardCharsets.UTF_8) + SECRET;
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return Base64.getEncoder().encodeToString(mac.doFinal(dataToSign.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public void startStubServer() throws Exception {
+        stubServer = new StubBankServer(codec);
+        stubClient = new ICICIBankingAPI("benchmark-api-key", ICICIBankingAPI.newHttpClient(null),
+            codec, stubServer.baseUrl());
+        stubClient.authenticate("benchmark", "benchmark");
+    }
+
+    @Override
+    public Object callGetBalance() throws Exception {
+        return stubClient.getBalance(StubBankServer.accountNumber(0));
+    }
+
+    @Override
+    public Object callTransfer() throws Exception {
+        return stubClient.transferFunds(transfer);
+    }
+
+    @Override
+    public void close() {
+        if (stubServer != null) {
+            stubServer.close();
+            stubServer = null;
+        }
+    }
+
+    static TransactionHistoryResponse history(int rows) {
+        List<Transaction> transactions = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId("TXN" + (100000 + i));
+            transaction.setAccountNumber("1234567890");
+            transaction.setAmount(new BigDecimal(i % 2 == 0 ? "2500.00" : "-499.50"));
+            transaction.setTransactionType(i % 2 == 0 ? "CREDIT" : "DEBIT");
+            transaction.setDescription("UPI/" + (400000 + i) + "/Payment");
+            transaction.setDate("2024-08-" + String.format("%02d", 1 + i % 28));
+            transaction.setBalance(new BigDecimal("150000.00").add(BigDecimal.valueOf(i)));
+            transaction.setReferenceNumber("REF" + (900000 + i));
+            transactions.add(transaction);
+        }
+        TransactionHistoryResponse response = new TransactionHistoryResponse();
+        response.setTransactions(transactions);
+        response.setTotalCount(rows);
+        return response;
+    }
+}
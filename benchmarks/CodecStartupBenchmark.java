@@ -0,0 +1,35 @@
+// ICICI Banking API - Codec Startup Benchmark
+// Time from a JVM that has not touched the codec to the first encoded
+// TransferRequest and decoded 100-row TransactionHistoryResponse, with the
+// codecs generated by DtoCodecProcessor and with databind. Each fork measures
+// one cold call, so the score is the distribution over forks.
+
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class CodecStartupBenchmark {
+    @Param({"generated", "databind"})
+    public String codec;
+
+    @Benchmark
+    public Object firstCall() throws Exception {
+        return HotPaths.coldStart("generated".equals(codec));
+    }
+}
@@ -0,0 +1,58 @@
+// ICICI Banking API - End-to-End Benchmark
+// Complete getBalance and transferFunds calls, through the real HttpClient,
+// against StubBankServer on loopback: request build, encode, send, receive
+// and decode.
+
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(2)
+public class EndToEndBenchmark {
+    private HotPaths client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        client = HotPaths.create(true, 10);
+        client.startStubServer();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public Object getBalance() throws Exception {
+        return client.callGetBalance();
+    }
+
+    @Benchmark
+    public Object transferFunds() throws Exception {
+        return client.callTransfer();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object getBalanceConcurrent() throws Exception {
+        return client.callGetBalance();
+    }
+}
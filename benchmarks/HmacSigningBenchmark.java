@@ -0,0 +1,69 @@
+// ICICI Banking API - HMAC Signing Benchmark
+// RequestSigner over a canonical GET with a query and over a POST with the
+// TransferRequest body, single-threaded and with four threads sharing the
+// signer's Mac pool, against the original per-call Mac.getInstance + init
+// over payload + secret Strings.
+
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class HmacSigningBenchmark {
+    private HotPaths client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        client = HotPaths.create(true, 10);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public String signGet() {
+        return client.signGet();
+    }
+
+    @Benchmark
+    public String signPost() {
+        return client.signPost();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String signPostContended() {
+        return client.signPost();
+    }
+
+    @Benchmark
+    public String signPostPerCallMac() throws Exception {
+        return client.signPostPerCallMac();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String signPostPerCallMacContended() throws Exception {
+        return client.signPostPerCallMac();
+    }
+}
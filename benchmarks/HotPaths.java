@@ -0,0 +1,68 @@
+// ICICI Banking API - Benchmark Hot Paths
+// The client operations the JMH benchmarks measure, as seen from the
+// benchmarks package.
+
+package benchmarks;
+
+// JMH refuses benchmark classes in the unnamed package, and code in a named
+// package cannot refer to classes in the unnamed package, where the client
+// lives. So the benchmarks call the client through this interface, which
+// ClientHotPaths (unnamed package, kept in this directory so a plain build of
+// the client does not need it) implements and create() loads by name once per
+// trial; measured calls cost one interface dispatch on top of the work.
+public interface HotPaths extends AutoCloseable {
+    String IMPLEMENTATION = "ClientHotPaths";
+
+    // generatedCodecs picks the DtoCodecProcessor codecs over databind;
+    // historyRows sizes the TransactionHistoryResponse used for parsing
+    static HotPaths create(boolean generatedCodecs, int historyRows) throws Exception {
+        return (HotPaths) Class.forName(IMPLEMENTATION)
+            .getConstructor(boolean.class, int.class)
+            .newInstance(generatedCodecs, historyRows);
+    }
+
+    // Builds a codec in a JVM that has not touched one yet, encodes a
+    // TransferRequest and decodes a 100-row history: a run's cold-start cost
+    static Object coldStart(boolean generatedCodecs) throws Exception {
+        return Class.forName(IMPLEMENTATION)
+            .getMethod("coldStart", boolean.class)
+            .invoke(null, generatedCodecs);
+    }
+
+    // HttpRequest.newBuilder + auth headers, as ICICIBankingAPI sends them
+    Object buildGetRequest();
+
+    Object buildPostRequest() throws Exception;
+
+    byte[] encodeTransfer() throws Exception;
+
+    byte[] encodeBillPayment() throws Exception;
+
+    // The pre-JsonCodec path: writeValueAsString, then the String's bytes
+    byte[] encodeTransferViaString() throws Exception;
+
+    Object decodeHistory() throws Exception;
+
+    // The pre-JsonCodec path: the body as a String, then readValue
+    Object decodeHistoryViaString() throws Exception;
+
+    // Parses the same history straight into a TransactionBlock
+    Object parseHistoryIntoBlock() throws Exception;
+
+    String signGet();
+
+    String signPost();
+
+    // The original generateSignature: a new Mac per call over payload + secret
+    String signPostPerCallMac() throws Exception;
+
+    // Starts StubBankServer and logs a client in against it
+    void startStubServer() throws Exception;
+
+    Object callGetBalance() throws Exception;
+
+    Object callTransfer() throws Exception;
+
+    @Override
+    void close();
+}
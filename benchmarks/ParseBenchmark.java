@@ -0,0 +1,64 @@
+// ICICI Banking API - Parse Benchmark
+// Parsing a TransactionHistoryResponse of 10, 1k and 100k rows: decoded into
+// DTOs with each codec (and through a String, the pre-JsonCodec baseline),
+// and streamed into a columnar TransactionBlock.
+
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+public class ParseBenchmark {
+    @Param({"generated", "databind"})
+    public String codec;
+
+    @Param({"10", "1000", "100000"})
+    public int rows;
+
+    private HotPaths client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        client = HotPaths.create("generated".equals(codec), rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public Object decodeHistory() throws Exception {
+        return client.decodeHistory();
+    }
+
+    // Independent of the codec parameter; always databind through a String
+    @Benchmark
+    public Object decodeHistoryViaString() throws Exception {
+        return client.decodeHistoryViaString();
+    }
+
+    // Independent of the codec parameter; it is the same parser either way
+    @Benchmark
+    public Object parseIntoBlock() throws Exception {
+        return client.parseHistoryIntoBlock();
+    }
+}
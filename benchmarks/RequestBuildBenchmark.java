@@ -0,0 +1,49 @@
+// ICICI Banking API - Request Build Benchmark
+// HttpRequest.newBuilder plus the Authorization and X-API-Key headers every
+// call carries, for a GET and for a POST with its encoded JSON body.
+
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class RequestBuildBenchmark {
+    private HotPaths client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        client = HotPaths.create(true, 10);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public Object get() {
+        return client.buildGetRequest();
+    }
+
+    @Benchmark
+    public Object post() throws Exception {
+        return client.buildPostRequest();
+    }
+}
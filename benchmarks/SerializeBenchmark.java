@@ -0,0 +1,60 @@
+// ICICI Banking API - Serialize Benchmark
+// Encoding TransferRequest and BillPaymentRequest to request bodies, with the
+// generated codecs and with plain databind, plus the String-based path the
+// client used before JsonCodec as a baseline for gc.alloc.rate.norm.
+
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class SerializeBenchmark {
+    @Param({"generated", "databind"})
+    public String codec;
+
+    private HotPaths client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        client = HotPaths.create("generated".equals(codec), 10);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public byte[] transferRequest() throws Exception {
+        return client.encodeTransfer();
+    }
+
+    // Independent of the codec parameter; always databind through a String
+    @Benchmark
+    public byte[] transferRequestViaString() throws Exception {
+        return client.encodeTransferViaString();
+    }
+
+    @Benchmark
+    public byte[] billPaymentRequest() throws Exception {
+        return client.encodeBillPayment();
+    }
+}
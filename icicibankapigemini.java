@@ -1,10 +1,8 @@
 import java.io.IOException;
+import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.util.Base64;
 import java.util.UUID;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -22,28 +20,28 @@ public class IciciBankingApiClient {
     private static final String API_SECRET = "YOUR_API_SECRET";
     private static final String BASE_URL = "https://developer.icicibank.com/api/v1"; // Example URL
 
-    private final OkHttpClient httpClient = new OkHttpClient();
+    // Pool size, keep-alive, HTTP/2 and timeouts come from TransportConfig
+    private final OkHttpClient httpClient = OkHttpTransport.newClient(TransportConfig.defaults());
+
+    // Signs every request; the Mac pool and key are built once and shared
+    private static final RequestSigner SIGNER = new RequestSigner(API_SECRET);
 
     /**
-     * Generates a signed payload for the API request.
-     * The signing mechanism is specific to the bank's API. This is a common
-     * but hypothetical example using HMAC-SHA256.
-     * @param requestPayload The JSON payload of the request.
-     * @return A Base64-encoded signature string.
+     * Adds the signature, timestamp and nonce headers for the request.
+     * The signature covers the method, path, query, timestamp, nonce and the
+     * exact body bytes that are sent (see RequestSigner).
+     * @param builder The request being built.
+     * @param method The HTTP method.
+     * @param url The full request URL.
+     * @param body The encoded request body, or null for a GET.
+     * @return The builder, for chaining.
      */
-    private String generateSignature(String requestPayload) {
-        try {
-            // A real signature might include more parameters like timestamp or nonce
-            String dataToSign = requestPayload + API_SECRET;
-            Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKeySpec = new SecretKeySpec(API_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-            mac.init(secretKeySpec);
-            byte[] hmacSha256 = mac.doFinal(dataToSign.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(hmacSha256);
-        } catch (Exception e) {
-            System.err.println("Error generating signature: " + e.getMessage());
-            return null;
-        }
+    private Request.Builder signed(Request.Builder builder, String method, String url, byte[] body) {
+        RequestSigner.SignedRequest signed = SIGNER.sign(method, URI.create(url), body);
+        return builder
+            .header(RequestSigner.SIGNATURE_HEADER, signed.getSignature())
+            .header(RequestSigner.TIMESTAMP_HEADER, Long.toString(signed.getTimestamp()))
+            .header(RequestSigner.NONCE_HEADER, signed.getNonce());
     }
 
     /**
@@ -57,12 +55,8 @@ public class IciciBankingApiClient {
             String path = "/accounts/balance";
             String fullUrl = BASE_URL + path + "?accountNumber=" + URLEncoder.encode(accountNumber, StandardCharsets.UTF_8.toString());
 
-            // A typical API will require a signed header, even for GET requests.
-            // The signature for a GET request might be based on the URL and other headers.
-            // For simplicity, we will omit the signature here as it's highly dependent on the API spec.
-            // A real implementation would require careful reading of the official documentation.
-
-            Request request = new Request.Builder()
+            // GET requests are signed too; the signature covers the path and query
+            Request request = signed(new Request.Builder(), "GET", fullUrl, null)
                 .url(fullUrl)
                 .header("api-key", API_KEY)
                 .build();
@@ -94,19 +88,14 @@ public class IciciBankingApiClient {
             String requestPayload = String.format("{\"sourceAccount\":\"%s\",\"destinationAccount\":\"%s\",\"amount\":%.2f,\"uniqueId\":\"%s\"}",
                 sourceAccount, destinationAccount, amount, UUID.randomUUID().toString());
 
-            // Generate a signature based on the payload
-            String signature = generateSignature(requestPayload);
-            if (signature == null) {
-                return "Error: Could not generate signature.";
-            }
-            
-            RequestBody body = RequestBody.create(requestPayload, MediaType.parse("application/json; charset=utf-8"));
+            // Encode once; the same bytes are signed and sent
+            byte[] payloadBytes = requestPayload.getBytes(StandardCharsets.UTF_8);
+            RequestBody body = RequestBody.create(payloadBytes, MediaType.parse("application/json; charset=utf-8"));
 
-            Request request = new Request.Builder()
+            Request request = signed(new Request.Builder(), "POST", fullUrl, payloadBytes)
                 .url(fullUrl)
                 .post(body)
                 .header("api-key", API_KEY)
-                .header("signature", signature) // Add the signature to the header
                 .header("Content-Type", "application/json")
                 .build();
 
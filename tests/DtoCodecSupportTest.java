@@ -0,0 +1,69 @@
+// ICICI Banking API - DTO Codec Support Test
+// Checks that the generated codecs' number coercions match databind:
+//   java -ea DtoCodecSupportTest
+// Exits non-zero on the first failed check.
+
+import java.io.IOException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class DtoCodecSupportTest {
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    public static void main(String[] args) throws Exception {
+        check(readInt("42") == 42, "int");
+        check(readInt("\"42\"") == 42, "numeric string");
+        check(readInt("3.7") == 3, "float is truncated");
+        check(readInt("null") == 0, "null");
+        check(readLong("9000000000") == 9_000_000_000L, "long");
+        for (String json : new String[] {"\"abc\"", "true", "[1]", "9000000000", "\"1.5\""}) {
+            rejected(json);
+        }
+        sameAsDatabind();
+        System.out.println("DtoCodecSupportTest: all checks passed");
+    }
+
+    // Whatever databind refuses for an int field, the generated path must refuse too
+    static void sameAsDatabind() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (String json : new String[] {"\"abc\"", "true", "9000000000"}) {
+            try {
+                objectMapper.readValue(json, int.class);
+                throw new AssertionError("databind accepted " + json);
+            } catch (JsonProcessingException expected) {
+                // the generated path is checked by rejected()
+            }
+        }
+    }
+
+    private static void rejected(String json) throws IOException {
+        try {
+            readInt(json);
+        } catch (JsonProcessingException expected) {
+            return;
+        }
+        throw new AssertionError("read " + json + " as an int");
+    }
+
+    private static int readInt(String json) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(json)) {
+            parser.nextToken();
+            return DtoCodecSupport.readInt(parser);
+        }
+    }
+
+    private static long readLong(String json) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(json)) {
+            parser.nextToken();
+            return DtoCodecSupport.readLong(parser);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
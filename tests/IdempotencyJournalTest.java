@@ -0,0 +1,106 @@
+// ICICI Banking API - Idempotency Journal Test
+// Crash-recovery checks for IdempotencyJournal; run with assertions on:
+//   java -ea IdempotencyJournalTest
+// Exits non-zero on the first failed check.
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class IdempotencyJournalTest {
+
+    public static void main(String[] args) throws Exception {
+        tornFinalLineIsCutOffOnOpen();
+        unresolvedIntentsSurviveReopen();
+        appendAfterCloseFails();
+        System.out.println("IdempotencyJournalTest: all checks passed");
+    }
+
+    // A crash mid-write leaves a line without its '\n'; the next record must
+    // start on a line of its own instead of being glued onto the fragment
+    static void tornFinalLineIsCutOffOnOpen() throws Exception {
+        Path file = Files.createTempFile("journal", ".log");
+        try {
+            try (IdempotencyJournal journal = IdempotencyJournal.open(file)) {
+                await(journal.recordIntent("key-1", "transfer", Map.of("amount", "10.00")));
+            }
+            Files.write(file, "{\"type\":\"INTENT\",\"key\":\"key-2\",\"oper".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+            try (IdempotencyJournal journal = IdempotencyJournal.open(file)) {
+                check(keys(journal.getPendingIntents()).equals(List.of("key-1")),
+                    "torn intent must not be replayed: " + keys(journal.getPendingIntents()));
+                await(journal.recordIntent("key-3", "transfer", Map.of("amount", "30.00")));
+            }
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                check(!line.contains("key-2"), "torn fragment left in the journal: " + line);
+            }
+            try (IdempotencyJournal journal = IdempotencyJournal.open(file)) {
+                check(keys(journal.getPendingIntents()).equals(List.of("key-1", "key-3")),
+                    "record after a torn line lost: " + keys(journal.getPendingIntents()));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    static void unresolvedIntentsSurviveReopen() throws Exception {
+        Path file = Files.createTempFile("journal", ".log");
+        try {
+            try (IdempotencyJournal journal = IdempotencyJournal.open(file)) {
+                await(journal.recordIntent("done", "transfer", Map.of()));
+                await(journal.recordIntent("refused", "transfer", Map.of()));
+                await(journal.recordIntent("open", "transfer", Map.of()));
+                await(journal.recordCompleted("done", Map.of("status", "SUCCESS")));
+                await(journal.recordRejected("refused", "insufficient funds"));
+            }
+            try (IdempotencyJournal journal = IdempotencyJournal.open(file)) {
+                check(keys(journal.getPendingIntents()).equals(List.of("open")),
+                    "only the unresolved intent must be pending: " + keys(journal.getPendingIntents()));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // A write that can never become durable must fail and must not stay pending
+    static void appendAfterCloseFails() throws Exception {
+        Path file = Files.createTempFile("journal", ".log");
+        try {
+            IdempotencyJournal journal = IdempotencyJournal.open(file);
+            journal.close();
+            CompletableFuture<Void> late = journal.recordIntent("late", "transfer", Map.of());
+            try {
+                late.get(5, TimeUnit.SECONDS);
+                throw new AssertionError("intent recorded after close");
+            } catch (ExecutionException expected) {
+                check(expected.getCause() instanceof IOException, "unexpected failure: " + expected.getCause());
+            }
+            check(journal.getPendingIntents().isEmpty(), "failed intent left pending");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static List<String> keys(List<JournalIntent> intents) {
+        return intents.stream().map(JournalIntent::getIdempotencyKey).collect(Collectors.toList());
+    }
+
+    private static void await(CompletableFuture<Void> write) throws Exception {
+        write.get(5, TimeUnit.SECONDS);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+// ICICI Banking API - Payout Engine Test
+// Batch replay checks for PayoutEngine against an in-process StubBankServer:
+//   java -ea PayoutEngineTest
+// Exits non-zero on the first failed check.
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class PayoutEngineTest {
+
+    public static void main(String[] args) throws Exception {
+        JsonCodec codec = JsonCodec.withGeneratedCodecs(new ObjectMapper());
+        try (StubBankServer bank = new StubBankServer(codec, 0, 2, 10)) {
+            ICICIBankingAPI api = new ICICIBankingAPI("test-api-key", ICICIBankingAPI.newHttpClient(null),
+                codec, bank.baseUrl());
+            api.authenticate("test", "test");
+
+            replayedBatchResendsTheSameKeys(api);
+            generatorKeysAreUsedWithoutABatchId(api);
+            batchWithoutStableKeysIsRefused(api);
+            sourceFailureDoesNotStrandTransfers(api);
+        }
+        rateMustBePositive();
+        System.out.println("PayoutEngineTest: all checks passed");
+    }
+
+    // Re-running a payout file after a crash must not pay anyone twice, which
+    // the bank can only tell if every row comes back with its earlier key
+    static void replayedBatchResendsTheSameKeys(ICICIBankingAPI api) throws Exception {
+        PayoutEngine engine = new PayoutEngine(api, 4, 1000);
+        KeySink first = new KeySink();
+        PayoutStats stats = engine.run("payroll-2024-06", payoutFile(25).iterator(), first);
+        check(stats.getSucceeded() == 25 && stats.getFailed() == 0, "first run: " + stats);
+
+        KeySink replay = new KeySink();
+        engine.run("payroll-2024-06", payoutFile(25).iterator(), replay);
+        check(replay.keys.equals(first.keys), "replay sent different keys: " + first.keys + " vs " + replay.keys);
+        check(first.keys.get(7L).equals("payroll-2024-06-7"), "unexpected key: " + first.keys.get(7L));
+
+        KeySink other = new KeySink();
+        engine.run("payroll-2024-07", payoutFile(25).iterator(), other);
+        check(!other.keys.get(0L).equals(first.keys.get(0L)), "another batch reused a key");
+    }
+
+    static void generatorKeysAreUsedWithoutABatchId(ICICIBankingAPI api) throws Exception {
+        PayoutEngine engine = new PayoutEngine(api, 4, 1000);
+        engine.setIdempotencyKeyGenerator((index, request) -> "vendor-" + request.getToAccount());
+        KeySink sink = new KeySink();
+        engine.run(payoutFile(5).iterator(), sink);
+        check(sink.keys.get(3L).equals("vendor-BEN0003"), "generator not used: " + sink.keys);
+    }
+
+    static void batchWithoutStableKeysIsRefused(ICICIBankingAPI api) throws Exception {
+        PayoutEngine engine = new PayoutEngine(api, 4, 1000);
+        expect(IllegalStateException.class, () -> engine.run(payoutFile(1).iterator(), new KeySink()));
+        expect(IllegalArgumentException.class, () -> engine.run(" ", payoutFile(1).iterator(), new KeySink()));
+    }
+
+    // A source that throws mid-batch must hand every slot back, so a second
+    // run on the same engine still completes
+    static void sourceFailureDoesNotStrandTransfers(ICICIBankingAPI api) throws Exception {
+        PayoutEngine engine = new PayoutEngine(api, 1, 1000);
+        Iterator<TransferRequest> rows = payoutFile(3).iterator();
+        Iterator<TransferRequest> failing = new Iterator<>() {
+            int served;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public TransferRequest next() {
+                if (served++ == 3) {
+                    throw new IllegalStateException("payout file truncated");
+                }
+                return rows.next();
+            }
+        };
+        KeySink sink = new KeySink();
+        expect(IllegalStateException.class, () -> engine.run("truncated", failing, sink));
+        PayoutStats stats = engine.run("after-truncated", payoutFile(3).iterator(), new KeySink());
+        check(stats.getSucceeded() == 3, "run after a failed source: " + stats);
+    }
+
+    static void rateMustBePositive() {
+        expect(IllegalArgumentException.class, () -> new PayoutEngine(null, 1, 0));
+        expect(IllegalArgumentException.class, () -> new PayoutEngine(null, 1, Double.NaN));
+    }
+
+    private static List<TransferRequest> payoutFile(int rows) {
+        List<TransferRequest> requests = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            requests.add(new TransferRequest(StubBankServer.accountNumber(0), String.format("BEN%04d", i),
+                new BigDecimal("1500.00"), "INR", "Salary", "NEFT"));
+        }
+        return requests;
+    }
+
+    private static final class KeySink implements PayoutSink {
+        final Map<Long, String> keys = new ConcurrentHashMap<>();
+
+        @Override
+        public void onSuccess(long index, TransferRequest request, String idempotencyKey,
+                TransferResponse response) {
+            keys.put(index, idempotencyKey);
+        }
+
+        @Override
+        public void onFailure(long index, TransferRequest request, String idempotencyKey, Throwable error) {
+            keys.put(index, idempotencyKey);
+        }
+    }
+
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    private static void expect(Class<? extends Throwable> type, Action action) {
+        try {
+            action.run();
+        } catch (Throwable e) {
+            check(type.isInstance(e), "expected " + type.getSimpleName() + " but got " + e);
+            return;
+        }
+        throw new AssertionError("expected " + type.getSimpleName());
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
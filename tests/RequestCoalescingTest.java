@@ -0,0 +1,93 @@
+// ICICI Banking API - Request Coalescing Test
+// Single-flight GET checks for ICICIBankingAPI against an in-process
+// StubBankServer whose balance endpoint is slowed down so that calls overlap:
+//   java -ea RequestCoalescingTest
+// Exits non-zero on the first failed check.
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class RequestCoalescingTest {
+    private static final String BALANCE = "GET /accounts/*/balance";
+    private static final int CALLERS = 16;
+
+    public static void main(String[] args) throws Exception {
+        JsonCodec codec = JsonCodec.withGeneratedCodecs(new ObjectMapper());
+        try (StubBankServer bank = new StubBankServer(codec, 0, 2, 10)) {
+            ICICIBankingAPI api = new ICICIBankingAPI("test-api-key", ICICIBankingAPI.newHttpClient(null),
+                codec, bank.baseUrl());
+            api.authenticate("test", "test");
+            bank.setFaults(BALANCE, StubBankServer.Faults.latency(Duration.ofMillis(300), Duration.ZERO));
+
+            concurrentGetsShareOneExchange(bank, api);
+            getAfterAWriteDoesNotJoinAnOlderExchange(bank, api);
+            disabledCoalescingSendsEveryGet(bank, api);
+        }
+        System.out.println("RequestCoalescingTest: all checks passed");
+    }
+
+    static void concurrentGetsShareOneExchange(StubBankServer bank, ICICIBankingAPI api) throws Exception {
+        String account = StubBankServer.accountNumber(0);
+        long sent = count(bank);
+        long coalesced = api.getCoalescedRequestCount();
+        List<CompletableFuture<BalanceResponse>> calls = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            calls.add(api.getBalanceAsync(account));
+        }
+        BalanceResponse first = calls.get(0).get();
+        for (CompletableFuture<BalanceResponse> call : calls) {
+            check(call.get() == first, "caller got its own response object");
+        }
+        check(count(bank) - sent == 1, CALLERS + " concurrent GETs sent " + (count(bank) - sent) + " requests");
+        check(api.getCoalescedRequestCount() - coalesced == CALLERS - 1,
+            "coalesced count " + (api.getCoalescedRequestCount() - coalesced));
+
+        // the exchange is gone once it completes; the next GET sends again
+        api.getBalance(account);
+        check(count(bank) - sent == 2, "completed exchange reused");
+    }
+
+    // A balance read after a completed transfer must reflect it, so it may
+    // not be answered by an exchange that was sent before the transfer
+    static void getAfterAWriteDoesNotJoinAnOlderExchange(StubBankServer bank, ICICIBankingAPI api)
+            throws Exception {
+        String account = StubBankServer.accountNumber(1);
+        long sent = count(bank);
+        CompletableFuture<BalanceResponse> before = api.getBalanceAsync(account);
+        CompletableFuture<BalanceResponse> joined = api.getBalanceAsync(account);
+        api.transferFunds(new TransferRequest(account, "BEN0001", new BigDecimal("250.00"), "INR", "Rent", "IMPS"));
+        check(!before.isDone(), "balance answered before the transfer completed; slow the stub down");
+        CompletableFuture<BalanceResponse> after = api.getBalanceAsync(account);
+
+        check(joined.get() == before.get(), "GET before the write did not join the in-flight exchange");
+        check(after.get() != before.get(), "GET after the write joined the older exchange");
+        check(count(bank) - sent == 2, "expected 2 balance requests, got " + (count(bank) - sent));
+    }
+
+    static void disabledCoalescingSendsEveryGet(StubBankServer bank, ICICIBankingAPI api) throws Exception {
+        String account = StubBankServer.accountNumber(0);
+        api.setRequestCoalescing(false);
+        long sent = count(bank);
+        List<CompletableFuture<BalanceResponse>> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            calls.add(api.getBalanceAsync(account));
+        }
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).get();
+        check(count(bank) - sent == 4, "coalescing off still shared exchanges");
+        api.setRequestCoalescing(true);
+    }
+
+    private static long count(StubBankServer bank) {
+        return bank.requestCounts().getOrDefault(BALANCE, 0L);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+// ICICI Banking API - Resilience Test
+// Retry backoff, circuit breaker and hedging checks for RetryPolicy,
+// CircuitBreaker and ICICIBankingAPI against an in-process StubBankServer:
+//   java -ea RetryPolicyTest
+// Exits non-zero on the first failed check.
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class RetryPolicyTest {
+    private static final String BALANCE = "GET /accounts/*/balance";
+    private static final String TRANSFER = "POST /transfers";
+
+    public static void main(String[] args) throws Exception {
+        JsonCodec codec = JsonCodec.withGeneratedCodecs(new ObjectMapper());
+        try (StubBankServer bank = new StubBankServer(codec, 0, 2, 10)) {
+            transientErrorsAreRetriedWithBackoff(bank, newApi(codec, bank));
+            throttlingHonoursRetryAfter(bank, newApi(codec, bank));
+            breakerOpensHalfOpensAndCloses(bank, newApi(codec, bank));
+            slowGetIsHedged(bank, newApi(codec, bank));
+        }
+        onlyTheTrialSettlesAHalfOpenBreaker();
+        trialFailureReopens();
+        System.out.println("RetryPolicyTest: all checks passed");
+    }
+
+    static void transientErrorsAreRetriedWithBackoff(StubBankServer bank, ICICIBankingAPI api) throws Exception {
+        String account = StubBankServer.accountNumber(0);
+        api.setRetryPolicy(BALANCE, new RetryPolicy(3, Duration.ofMillis(5), Duration.ofMillis(20)));
+        bank.setFaults(BALANCE, new StubBankServer.Faults(Duration.ZERO, Duration.ZERO, 1, 503, 0));
+        long before = count(bank, BALANCE);
+        expectStatus(503, () -> api.getBalance(account));
+        check(count(bank, BALANCE) - before == 3, "expected 3 attempts, got " + (count(bank, BALANCE) - before));
+
+        // a POST without an idempotency key could pay twice, so it gets one try
+        bank.setFaults(TRANSFER, new StubBankServer.Faults(Duration.ZERO, Duration.ZERO, 1, 503, 0));
+        before = count(bank, TRANSFER);
+        expectStatus(503, () -> api.transferFunds(transfer()));
+        check(count(bank, TRANSFER) - before == 1, "unkeyed POST retried");
+        before = count(bank, TRANSFER);
+        api.setRetryPolicy(TRANSFER, new RetryPolicy(2, Duration.ofMillis(5), Duration.ofMillis(20)));
+        expectStatus(503, () -> api.transferFunds(transfer(), "retry-test-1"));
+        check(count(bank, TRANSFER) - before == 2, "keyed POST not retried");
+        bank.clearFaults();
+
+        RetryPolicy policy = new RetryPolicy(5, Duration.ofMillis(10), Duration.ofMillis(40));
+        for (int attempt = 0; attempt < 5; attempt++) {
+            long cap = Math.min(TimeUnit.MILLISECONDS.toNanos(10) << attempt, TimeUnit.MILLISECONDS.toNanos(40));
+            for (int i = 0; i < 100; i++) {
+                long delay = policy.delayNanos(attempt, null);
+                check(delay >= 0 && delay <= cap, "delay " + delay + " outside [0, " + cap + "] at " + attempt);
+            }
+        }
+    }
+
+    // The stub's 429s carry Retry-After: 1, which outweighs the jitter up to
+    // the policy's maximum delay
+    static void throttlingHonoursRetryAfter(StubBankServer bank, ICICIBankingAPI api) throws Exception {
+        api.setRetryPolicy(BALANCE, new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(150)));
+        bank.setFaults(BALANCE, new StubBankServer.Faults(Duration.ZERO, Duration.ZERO, 0, 500, 1));
+        long start = System.nanoTime();
+        expectStatus(429, () -> api.getBalance(StubBankServer.accountNumber(0)));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        check(elapsed >= 300, "retries did not wait for Retry-After: " + elapsed + " ms");
+        bank.clearFaults();
+    }
+
+    static void breakerOpensHalfOpensAndCloses(StubBankServer bank, ICICIBankingAPI api) throws Exception {
+        String account = StubBankServer.accountNumber(1);
+        api.setDefaultRetryPolicy(RetryPolicy.NONE);
+        api.enableCircuitBreakers(2, Duration.ofMillis(200));
+        bank.setFaults(BALANCE, new StubBankServer.Faults(Duration.ZERO, Duration.ZERO, 1, 500, 0));
+        long before = count(bank, BALANCE);
+        expectStatus(500, () -> api.getBalance(account));
+        expectStatus(500, () -> api.getBalance(account));
+        expect(CircuitBreakerOpenException.class, () -> api.getBalance(account));
+        check(count(bank, BALANCE) - before == 2, "open breaker let a call through");
+
+        // the half-open trial fails and the breaker opens again
+        TimeUnit.MILLISECONDS.sleep(250);
+        expectStatus(500, () -> api.getBalance(account));
+        expect(CircuitBreakerOpenException.class, () -> api.getBalance(account));
+
+        // the next trial succeeds and closes it
+        bank.clearFaults();
+        TimeUnit.MILLISECONDS.sleep(250);
+        check(api.getBalance(account) != null, "trial call failed");
+        check(api.getBalance(account) != null, "breaker not closed after a good trial");
+        check(count(bank, BALANCE) - before == 5, "unexpected calls: " + (count(bank, BALANCE) - before));
+    }
+
+    // Once the endpoint has a p95, a GET that outlives it is sent a second
+    // time and the call still completes once
+    static void slowGetIsHedged(StubBankServer bank, ICICIBankingAPI api) throws Exception {
+        String account = StubBankServer.accountNumber(0);
+        api.enableHedging(Duration.ofMillis(20));
+        for (int i = 0; i < 64; i++) {
+            api.getBalance(account);
+        }
+        long before = count(bank, BALANCE);
+        api.getBalance(account);
+        check(count(bank, BALANCE) - before == 1, "fast GET hedged");
+
+        bank.setFaults(BALANCE, StubBankServer.Faults.latency(Duration.ofMillis(300), Duration.ZERO));
+        before = count(bank, BALANCE);
+        check(api.getBalance(account) != null, "hedged GET failed");
+        check(count(bank, BALANCE) - before == 2, "slow GET sent " + (count(bank, BALANCE) - before) + " times");
+
+        before = count(bank, TRANSFER);
+        bank.setFaults(TRANSFER, StubBankServer.Faults.latency(Duration.ofMillis(300), Duration.ZERO));
+        api.transferFunds(transfer());
+        check(count(bank, TRANSFER) - before == 1, "POST hedged");
+        bank.clearFaults();
+    }
+
+    // A call admitted before the breaker opened may fail while the half-open
+    // trial is in flight; that must neither re-open the breaker nor free the
+    // trial slot for a second trial
+    static void onlyTheTrialSettlesAHalfOpenBreaker() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("GET /test", 1, Duration.ofMillis(50));
+        long early = breaker.allowRequest();
+        long opening = breaker.allowRequest();
+        check(early == CircuitBreaker.ADMITTED && opening == CircuitBreaker.ADMITTED, "closed breaker refused");
+        breaker.onFailure(opening);
+        check(breaker.isOpen(), "breaker not opened");
+        check(breaker.allowRequest() == CircuitBreaker.REJECTED, "open breaker admitted a call");
+
+        TimeUnit.MILLISECONDS.sleep(60);
+        long trial = breaker.allowRequest();
+        check(trial > 0, "no trial permit after the open period");
+        check(breaker.allowRequest() == CircuitBreaker.REJECTED, "second trial admitted");
+        breaker.onFailure(early);
+        check(breaker.allowRequest() == CircuitBreaker.REJECTED, "stale failure freed the trial slot");
+        breaker.onSuccess(early);
+        check(breaker.isOpen(), "stale success closed the breaker");
+
+        breaker.onSuccess(trial);
+        check(!breaker.isOpen(), "trial success did not close the breaker");
+        check(breaker.allowRequest() == CircuitBreaker.ADMITTED, "closed breaker refused");
+    }
+
+    static void trialFailureReopens() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("GET /test", 1, Duration.ofMillis(50));
+        breaker.onFailure(breaker.allowRequest());
+        TimeUnit.MILLISECONDS.sleep(60);
+        long trial = breaker.allowRequest();
+        breaker.onFailure(trial);
+        check(breaker.allowRequest() == CircuitBreaker.REJECTED, "failed trial did not re-open the breaker");
+        breaker.onSuccess(trial);
+        check(breaker.isOpen(), "a settled trial's permit closed the breaker");
+    }
+
+    private static ICICIBankingAPI newApi(JsonCodec codec, StubBankServer bank) throws Exception {
+        ICICIBankingAPI api = new ICICIBankingAPI("test-api-key", ICICIBankingAPI.newHttpClient(null), codec,
+            bank.baseUrl());
+        api.authenticate("test", "test");
+        return api;
+    }
+
+    private static TransferRequest transfer() {
+        return new TransferRequest(StubBankServer.accountNumber(0), "BEN0001", new BigDecimal("100.00"), "INR",
+            "Rent", "IMPS");
+    }
+
+    private static long count(StubBankServer bank, String endpoint) {
+        return bank.requestCounts().getOrDefault(endpoint, 0L);
+    }
+
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    private static void expectStatus(int status, Action action) {
+        try {
+            action.run();
+        } catch (ICICIBankingException e) {
+            check(e.getStatusCode() == status, "expected status " + status + " but got " + e.getStatusCode());
+            return;
+        } catch (Exception e) {
+            throw new AssertionError("expected status " + status + " but got " + e, e);
+        }
+        throw new AssertionError("expected status " + status);
+    }
+
+    private static void expect(Class<? extends Throwable> type, Action action) {
+        try {
+            action.run();
+        } catch (Throwable e) {
+            check(type.isInstance(e), "expected " + type.getSimpleName() + " but got " + e);
+            return;
+        }
+        throw new AssertionError("expected " + type.getSimpleName());
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
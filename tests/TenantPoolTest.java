@@ -0,0 +1,111 @@
+// ICICI Banking API - Tenant Pool Test
+// Session and token renewal checks for ICICIBankingTenantPool and
+// TokenManager, against an in-process StubBankServer:
+//   java -ea TenantPoolTest
+// Exits non-zero on the first failed check.
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class TenantPoolTest {
+
+    public static void main(String[] args) throws Exception {
+        tenantsShareTheGivenTransport();
+        tokenWithoutRefreshTokenIsRenewedByLogin();
+        tokenWithRefreshTokenIsRefreshed();
+        System.out.println("TenantPoolTest: all checks passed");
+    }
+
+    static void tenantsShareTheGivenTransport() throws Exception {
+        JsonCodec codec = JsonCodec.withGeneratedCodecs(new ObjectMapper());
+        try (StubBankServer bank = new StubBankServer(codec, 0, 3, 10);
+                CountingTransport transport = new CountingTransport(
+                    HttpTransport.create("urlconnection", TransportConfig.defaults()))) {
+            ICICIBankingTenantPool pool = new ICICIBankingTenantPool(transport, codec, bank.baseUrl());
+            pool.registerTenant("acme", "acme-key", "acme", "secret");
+            pool.registerTenant("globex", "globex-key", "globex", "secret");
+            for (String tenant : List.of("acme", "globex", "acme")) {
+                List<Account> accounts = pool.call(tenant, api -> api.getAllAccountsAsync());
+                check(accounts.size() == 3, tenant + " got " + accounts.size() + " accounts");
+            }
+            check(pool.getActiveSessionCount() == 2, "sessions: " + pool.getActiveSessionCount());
+            long requests = bank.requestCounts().values().stream().mapToLong(Long::longValue).sum();
+            check(transport.sent.sum() == requests, "sent " + transport.sent.sum() + " of " + requests
+                + " requests through the pool's transport");
+        }
+    }
+
+    // A token the bank issued without a refresh_token must not be used past
+    // its expiry; the refresher is asked to log in again (null refresh token)
+    static void tokenWithoutRefreshTokenIsRenewedByLogin() throws Exception {
+        List<String> renewals = new CopyOnWriteArrayList<>();
+        TokenManager tokens = new TokenManager(refreshToken -> {
+            renewals.add(String.valueOf(refreshToken));
+            return CompletableFuture.completedFuture(token("renewed", null, 3600));
+        });
+        tokens.update(token("first", null, 1));
+        check(tokens.accessTokenAsync().get().equals("first"), "fresh token not used");
+        TimeUnit.MILLISECONDS.sleep(1100);
+        check(tokens.accessTokenAsync().get(5, TimeUnit.SECONDS).equals("renewed"), "expired token still used");
+        check(renewals.equals(List.of("null")), "renewals: " + renewals);
+    }
+
+    static void tokenWithRefreshTokenIsRefreshed() throws Exception {
+        List<String> renewals = new CopyOnWriteArrayList<>();
+        TokenManager tokens = new TokenManager(refreshToken -> {
+            renewals.add(refreshToken);
+            return CompletableFuture.completedFuture(token("refreshed", null, 3600));
+        });
+        tokens.update(token("first", "refresh-1", 1));
+        TimeUnit.MILLISECONDS.sleep(1100);
+        check(tokens.accessTokenAsync().get(5, TimeUnit.SECONDS).equals("refreshed"), "token not refreshed");
+        check(renewals.equals(List.of("refresh-1")), "renewals: " + renewals);
+    }
+
+    private static AuthResponse token(String accessToken, String refreshToken, int expiresIn) {
+        AuthResponse response = new AuthResponse();
+        response.setAccessToken(accessToken);
+        response.setTokenType("Bearer");
+        response.setExpiresIn(expiresIn);
+        response.setRefreshToken(refreshToken);
+        return response;
+    }
+
+    private static final class CountingTransport implements HttpTransport {
+        final HttpTransport delegate;
+        final LongAdder sent = new LongAdder();
+
+        CountingTransport(HttpTransport delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                HttpResponse.BodyHandler<T> bodyHandler) {
+            sent.increment();
+            return delegate.sendAsync(request, bodyHandler);
+        }
+
+        @Override
+        public String name() {
+            return delegate.name();
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
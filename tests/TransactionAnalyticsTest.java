@@ -0,0 +1,61 @@
+// ICICI Banking API - Transaction Analytics Test
+// Credit/debit split checks for TransactionAnalytics:
+//   java -ea TransactionAnalyticsTest
+// Exits non-zero on the first failed check.
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+
+public class TransactionAnalyticsTest {
+
+    public static void main(String[] args) {
+        typeDecidesDirectionWhateverTheSign();
+        untypedRowsFallBackToTheSign();
+        System.out.println("TransactionAnalyticsTest: all checks passed");
+    }
+
+    // Statements that report every amount as positive still have to show
+    // their debits as debits
+    static void typeDecidesDirectionWhateverTheSign() {
+        List<Transaction> rows = new ArrayList<>();
+        rows.add(transaction("CREDIT", "500.00"));
+        rows.add(transaction("DEBIT", "200.00"));
+        rows.add(transaction("debit", "-50.00"));
+        rows.add(transaction("CREDIT", "-25.00"));
+        TransactionAnalytics.Summary total = TransactionAnalytics.ofTransactions(rows).total(null, null, null);
+        check(total.getCreditPaise() == 52_500, "credits: " + total);
+        check(total.getDebitPaise() == -25_000, "debits: " + total);
+        check(total.getSumPaise() == 62_500, "sum must stay the plain sum: " + total);
+
+        SortedMap<String, TransactionAnalytics.Summary> byType = TransactionAnalytics.ofTransactions(rows)
+            .summarize(TransactionAnalytics.GroupBy.TRANSACTION_TYPE, null, null, null);
+        check(byType.get("DEBIT").getCreditPaise() == 0, "positive DEBIT counted as a credit: " + byType);
+    }
+
+    static void untypedRowsFallBackToTheSign() {
+        List<Transaction> rows = new ArrayList<>();
+        rows.add(transaction(null, "300.00"));
+        rows.add(transaction("REVERSAL", "-120.00"));
+        TransactionAnalytics.Summary total = TransactionAnalytics.ofTransactions(rows).total(null, null, null);
+        check(total.getCreditPaise() == 30_000, "credits: " + total);
+        check(total.getDebitPaise() == -12_000, "debits: " + total);
+    }
+
+    private static Transaction transaction(String type, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId("TXN" + type + amount);
+        transaction.setAccountNumber("ACC1");
+        transaction.setTransactionType(type);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setDate("2024-03-31");
+        return transaction;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
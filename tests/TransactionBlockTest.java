@@ -0,0 +1,71 @@
+// ICICI Banking API - Transaction Block Test
+// Date column checks for TransactionBlock:
+//   java -ea TransactionBlockTest
+// Exits non-zero on the first failed check.
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+public class TransactionBlockTest {
+
+    public static void main(String[] args) {
+        datesRoundTripVerbatim();
+        dayIsKeptWhenOnlyTheTimeIsIrregular();
+        System.out.println("TransactionBlockTest: all checks passed");
+    }
+
+    static void datesRoundTripVerbatim() {
+        String[] dates = {
+            "2024-03-31", "2024-03-31T23:30:00", "2024-03-31T23:30:00.123", "2024-03-31T23:30:00+05:30",
+            "2024-03-31T18:00:00Z", "2024-03-31 23:30", "31/03/2024", "2024-02-30", null
+        };
+        TransactionBlock block = TransactionBlock.of(transactions(dates));
+        for (int row = 0; row < dates.length; row++) {
+            check(Objects.equals(block.get(row).getDate(), dates[row]),
+                "row " + row + " came back as " + block.get(row).getDate() + ", not " + dates[row]);
+        }
+    }
+
+    // Millis, offsets and Z must not cost the row its day, or date-bounded
+    // analytics silently drop it
+    static void dayIsKeptWhenOnlyTheTimeIsIrregular() {
+        String[] dates = {
+            "2024-03-31T23:30:00.123", "2024-03-31T23:30:00+05:30", "2024-03-31T18:00:00Z", "2024-03-31 23:30",
+            "31/03/2024", "2024-02-30"
+        };
+        TransactionBlock block = TransactionBlock.of(transactions(dates));
+        int day = (int) LocalDate.of(2024, 3, 31).toEpochDay();
+        for (int row = 0; row < 4; row++) {
+            check(block.epochDay(row) == day, "no day for " + dates[row]);
+        }
+        check(block.epochDay(4) == TransactionBlock.NULL_DAY, "day made up for " + dates[4]);
+        check(block.epochDay(5) == TransactionBlock.NULL_DAY, "day made up for " + dates[5]);
+
+        TransactionAnalytics analytics = TransactionAnalytics.of(block);
+        TransactionAnalytics.Summary march = analytics.total(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31), null);
+        check(march.getCount() == 4, "expected the 4 dated rows in March, got " + march.getCount());
+    }
+
+    private static List<Transaction> transactions(String[] dates) {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < dates.length; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId("TXN" + i);
+            transaction.setAccountNumber("ACC1");
+            transaction.setTransactionType("CREDIT");
+            transaction.setAmount(new BigDecimal("100.00"));
+            transaction.setDate(dates[i]);
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+// ICICI Banking API - Transaction Ledger Test
+// Sync and reopen checks for TransactionLedger against an in-process
+// StubBankServer:
+//   java -ea TransactionLedgerTest
+// Exits non-zero on the first failed check.
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class TransactionLedgerTest {
+
+    public static void main(String[] args) throws Exception {
+        JsonCodec codec = JsonCodec.withGeneratedCodecs(new ObjectMapper());
+        Path directory = Files.createTempDirectory("ledger");
+        try (StubBankServer bank = new StubBankServer(codec, 0, 1, 730)) {
+            ICICIBankingAPI api = new ICICIBankingAPI("test-api-key", ICICIBankingAPI.newHttpClient(null),
+                codec, bank.baseUrl());
+            api.authenticate("test", "test");
+            String account = StubBankServer.accountNumber(0);
+
+            try (TransactionLedger ledger = TransactionLedger.open(directory, account)) {
+                int added = ledger.sync(api, "2024-01-01", "2024-06-30", 100);
+                check(added > 0 && added == ledger.size(), "first sync added " + added);
+                // the high-water day is refetched; its rows must not be stored twice
+                check(ledger.sync(api, "2024-01-01", "2024-06-30", 100) == 0, "resync stored duplicates");
+                check(ledger.getHighWaterDate().equals("2024-06-30"), "high water " + ledger.getHighWaterDate());
+                int more = ledger.sync(api, "2024-01-01", "2024-12-31", 100);
+                check(more > 0, "nothing after the high-water mark");
+            }
+            try (TransactionLedger ledger = TransactionLedger.open(directory, account)) {
+                check(ledger.size() == 730, "reopened with " + ledger.size() + " rows");
+                List<Transaction> march = ledger.query(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31), 1000);
+                check(!march.isEmpty(), "no rows in March");
+                for (Transaction transaction : march) {
+                    check(transaction.getDate().startsWith("2024-03"), "out of range: " + transaction.getDate());
+                }
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+        System.out.println("TransactionLedgerTest: all checks passed");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+// ICICI Banking API - Transaction Notification Receiver Test
+// Nonce handling checks for TransactionNotificationReceiver, calling accept()
+// directly with requests signed as the bank signs them:
+//   java -ea TransactionNotificationReceiverTest
+// Exits non-zero on the first failed check.
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class TransactionNotificationReceiverTest {
+    private static final JsonCodec CODEC = JsonCodec.withGeneratedCodecs(new ObjectMapper());
+    private static final RequestSigner SIGNER = new RequestSigner("receiver-test-secret");
+    private static final String PATH = TransactionNotificationReceiver.DEFAULT_PATH;
+
+    public static void main(String[] args) throws Exception {
+        retryAfter503MayReuseTheSignature();
+        rejectedPayloadDoesNotUseUpTheNonce();
+        deliveredIdsArePrunedWithoutGapFill();
+        System.out.println("TransactionNotificationReceiverTest: all checks passed");
+    }
+
+    // The bank retries a 503 after Retry-After with the very same signed
+    // request; that must be accepted, and only then count as a replay
+    static void retryAfter503MayReuseTheSignature() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (TransactionNotificationReceiver receiver = newReceiver(4)) {
+            receiver.subscribe(transaction -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            Signed overflow = null;
+            for (int i = 0; i < 64 && overflow == null; i++) {
+                Signed delivery = sign(notification("TXN" + i, i + 1));
+                if (delivery.send(receiver) == 503) {
+                    overflow = delivery;
+                }
+            }
+            check(overflow != null, "queue never filled up");
+
+            release.countDown();
+            int status = 503;
+            for (long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                    status == 503 && System.nanoTime() < deadline; ) {
+                TimeUnit.MILLISECONDS.sleep(10);
+                status = overflow.send(receiver);
+            }
+            check(status == 202, "retried delivery answered " + status);
+            check(overflow.send(receiver) == 401, "replay after acceptance not refused");
+        }
+    }
+
+    static void rejectedPayloadDoesNotUseUpTheNonce() throws Exception {
+        try (TransactionNotificationReceiver receiver = newReceiver(16)) {
+            Signed malformed = sign("{\"event_id\":\"EVT1\"}".getBytes(StandardCharsets.UTF_8));
+            check(malformed.send(receiver) == 400, "notification without a transaction accepted");
+            check(malformed.send(receiver) == 400, "400 used up the nonce");
+
+            Signed delivery = sign(notification("TXN1", 1));
+            check(delivery.send(receiver) == 202, "valid delivery refused");
+            check(delivery.send(receiver) == 401, "replayed nonce accepted");
+        }
+    }
+
+    // Duplicate suppression must not keep every id forever just because gap
+    // filling is off
+    static void deliveredIdsArePrunedWithoutGapFill() throws Exception {
+        try (TransactionNotificationReceiver receiver = newReceiver(16)) {
+            check(sign(notification("TXN1", 1)).send(receiver) == 202, "first delivery refused");
+            check(sign(notification("TXN1", 1)).send(receiver) == 200, "redelivery not suppressed");
+
+            LocalDate today = LocalDate.now();
+            receiver.pruneDeliveredIds(today.plusDays(TransactionNotificationReceiver.DEDUPLICATION_DAYS));
+            check(sign(notification("TXN1", 1)).send(receiver) == 200, "id pruned inside the window");
+            receiver.pruneDeliveredIds(today.plusDays(TransactionNotificationReceiver.DEDUPLICATION_DAYS + 1));
+            check(sign(notification("TXN1", 1)).send(receiver) == 202, "id kept past the window");
+        }
+    }
+
+    private static TransactionNotificationReceiver newReceiver(int queueCapacity) throws Exception {
+        return new TransactionNotificationReceiver(new InetSocketAddress("127.0.0.1", 0), PATH, SIGNER, CODEC,
+            queueCapacity, Duration.ofMinutes(5));
+    }
+
+    private static byte[] notification(String transactionId, long sequence) throws Exception {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(transactionId);
+        transaction.setAccountNumber("1234567890");
+        transaction.setTransactionType("CREDIT");
+        transaction.setDate("2024-08-12");
+        TransactionNotification notification = new TransactionNotification();
+        notification.setEventId("EVT-" + transactionId);
+        notification.setEventType("transaction.created");
+        notification.setAccountNumber("1234567890");
+        notification.setSequence(sequence);
+        notification.setTransaction(transaction);
+        return CODEC.encode(notification);
+    }
+
+    private static Signed sign(byte[] body) {
+        long timestamp = System.currentTimeMillis() / 1000;
+        String nonce = UUID.randomUUID().toString();
+        return new Signed(SIGNER.sign("POST", PATH, null, timestamp, nonce, body), timestamp, nonce, body);
+    }
+
+    private static final class Signed {
+        final String signature;
+        final long timestamp;
+        final String nonce;
+        final byte[] body;
+
+        Signed(String signature, long timestamp, String nonce, byte[] body) {
+            this.signature = signature;
+            this.timestamp = timestamp;
+            this.nonce = nonce;
+            this.body = body;
+        }
+
+        int send(TransactionNotificationReceiver receiver) {
+            return receiver.accept(PATH, null, signature, Long.toString(timestamp), nonce, body);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+// ICICI Banking API - Transaction Range Index Test
+// Gap fetching and coverage merging checks for TransactionRangeIndex, with a
+// recording fetcher in place of the bank:
+//   java -ea TransactionRangeIndexTest
+// Exits non-zero on the first failed check.
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class TransactionRangeIndexTest {
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 15);
+    private static final String ACCOUNT = "1234567890";
+
+    // Requested [from, to] ranges, in order
+    private static final List<String> fetched = new CopyOnWriteArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        onlyGapsAreFetched();
+        adjacentRangesMerge();
+        daysFromTodayAreNeverCovered();
+        reversedRangeFailsTheFuture();
+        System.out.println("TransactionRangeIndexTest: all checks passed");
+    }
+
+    static void onlyGapsAreFetched() throws Exception {
+        TransactionRangeIndex index = newIndex();
+        List<Transaction> middle = query(index, "2024-01-10", "2024-01-20");
+        expectFetches("2024-01-10..2024-01-20");
+        check(middle.size() == 11, "one row per day expected, got " + middle.size());
+
+        List<Transaction> month = query(index, "2024-01-01", "2024-01-31");
+        expectFetches("2024-01-01..2024-01-09", "2024-01-21..2024-01-31");
+        check(month.size() == 31, "January has " + month.size() + " rows");
+        for (int i = 1; i < month.size(); i++) {
+            check(month.get(i - 1).getDate().compareTo(month.get(i).getDate()) <= 0, "rows out of order");
+        }
+
+        query(index, "2024-01-05", "2024-01-25");
+        expectFetches();
+        check(index.isCovered(ACCOUNT, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)), "January not covered");
+        check(index.size(ACCOUNT) == 31, "rows stored twice: " + index.size(ACCOUNT));
+    }
+
+    // Separately fetched neighbours become one covered range, so a query
+    // spanning them (and an earlier range) fetches nothing
+    static void adjacentRangesMerge() throws Exception {
+        TransactionRangeIndex index = newIndex();
+        query(index, "2024-02-11", "2024-02-20");
+        query(index, "2024-02-01", "2024-02-10");
+        query(index, "2024-03-01", "2024-03-05");
+        expectFetches("2024-02-11..2024-02-20", "2024-02-01..2024-02-10", "2024-03-01..2024-03-05");
+
+        check(index.isCovered(ACCOUNT, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 20)), "ranges not merged");
+        check(!index.isCovered(ACCOUNT, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 3, 5)), "gap covered");
+
+        List<Transaction> rows = query(index, "2024-02-05", "2024-03-03");
+        expectFetches("2024-02-21..2024-02-29");
+        check(rows.size() == 28, "expected 28 rows, got " + rows.size());
+        check(index.isCovered(ACCOUNT, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 3, 5)), "bridge not merged");
+
+        check(query(index, "2024-02-01", "2024-03-05", 3).size() == 3, "limit ignored");
+        expectFetches();
+    }
+
+    // Rows can still arrive for today, so its days are refetched every time
+    static void daysFromTodayAreNeverCovered() throws Exception {
+        TransactionRangeIndex index = newIndex();
+        query(index, "2024-06-10", "2024-06-15");
+        query(index, "2024-06-10", "2024-06-15");
+        expectFetches("2024-06-10..2024-06-15", "2024-06-15..2024-06-15");
+        check(index.size(ACCOUNT) == 6, "today's rows duplicated: " + index.size(ACCOUNT));
+    }
+
+    // Stored rows between the two days used to make the lookup throw before
+    // any future was returned
+    static void reversedRangeFailsTheFuture() throws Exception {
+        TransactionRangeIndex index = newIndex();
+        query(index, "2024-04-01", "2024-04-30");
+        fetched.clear();
+        CompletableFuture<List<Transaction>> reversed = index.queryAsync(ACCOUNT, LocalDate.parse("2024-04-20"),
+            LocalDate.parse("2024-04-10"), 1000, TransactionRangeIndexTest::fetch);
+        check(reversed.isCompletedExceptionally(), "reversed range answered: " + reversed);
+        try {
+            reversed.join();
+        } catch (CompletionException e) {
+            check(e.getCause() instanceof IllegalArgumentException, "unexpected failure: " + e.getCause());
+        }
+        expectFetches();
+    }
+
+    private static TransactionRangeIndex newIndex() {
+        fetched.clear();
+        return new TransactionRangeIndex(Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    private static List<Transaction> query(TransactionRangeIndex index, String from, String to) throws Exception {
+        return query(index, from, to, 1000);
+    }
+
+    private static List<Transaction> query(TransactionRangeIndex index, String from, String to, int limit)
+            throws Exception {
+        return index.queryAsync(ACCOUNT, LocalDate.parse(from), LocalDate.parse(to), limit,
+            TransactionRangeIndexTest::fetch).get();
+    }
+
+    // The bank has one row per day
+    private static CompletableFuture<List<Transaction>> fetch(String accountNumber, LocalDate from, LocalDate to) {
+        fetched.add(from + ".." + to);
+        List<Transaction> rows = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId("TXN-" + day);
+            transaction.setAccountNumber(accountNumber);
+            transaction.setAmount(new BigDecimal("10.00"));
+            transaction.setDate(day + "T09:30:00");
+            rows.add(transaction);
+        }
+        return CompletableFuture.completedFuture(rows);
+    }
+
+    private static void expectFetches(String... ranges) {
+        check(fetched.equals(List.of(ranges)), "expected fetches " + List.of(ranges) + " but got " + fetched);
+        fetched.clear();
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}